@@ -33,9 +33,19 @@ CREATE TABLE songs (
     album VARCHAR(100),
     duration INT, -- duration in seconds
     file_path VARCHAR(255) NOT NULL,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    -- One row per file; required by SongDAO.syncLibrary (ON DUPLICATE KEY UPDATE)
+    UNIQUE KEY unique_file_path (file_path),
+
+    -- Relevance-ranked prefix search in SongDAO/LikedSongDao
+    FULLTEXT KEY ft_song_search (song_name, artist, album)
 ) ENGINE=InnoDB;
 
+-- Existing databases (remove duplicate file_path rows first):
+-- ALTER TABLE songs ADD UNIQUE KEY unique_file_path (file_path);
+-- ALTER TABLE songs ADD FULLTEXT KEY ft_song_search (song_name, artist, album);
+
 -- Sample songs
 INSERT INTO songs (song_name, artist, album, duration, file_path) VALUES
 ('Blinding Lights', 'The Weeknd', 'After Hours', 200, '/music/blinding_lights.mp3'),
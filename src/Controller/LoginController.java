@@ -49,6 +49,7 @@ public class LoginController {
             if(loggedInUser != null){
                 // Store user session
                 Model.UserSession.getInstance().setUserData(loggedInUser);
+                service.LikedSongStore.getInstance().load(loggedInUser.getId());
                 
                 System.out.println("=== DEBUG: Login successful ===");
                 System.out.println("Username: " + loggedInUser.getUsername());
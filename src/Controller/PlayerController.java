@@ -3,9 +3,14 @@ package Controller;
 import Model.Song;
 import javafx.application.Platform;
 import javafx.embed.swing.JFXPanel;
-import javafx.scene.media.Media;
 import javafx.scene.media.MediaPlayer;
+import javafx.util.Duration;
+import service.CrossfadeEngine;
+import service.LoudnessAnalyzer;
+import service.MediaPlayerPool;
+import service.PlaybackManager;
 import utils.NowPlayingState;
+import utils.SongCache;
 import java.io.File;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -14,12 +19,48 @@ import java.util.logging.Logger;
  * PlayerController handles all audio playback logic.
  * Single responsibility: manage MediaPlayer and provide play/pause/stop/resume methods.
  * Singleton pattern ensures only one audio stream plays at a time.
+ *
+ * Gapless playback: PRELOAD_LEAD_SECONDS before the current track ends, the
+ * track PlaybackManager will play next (peekNext(), the same song in loop
+ * mode) gets its Media and MediaPlayer built so it is prepared by the time
+ * onEndOfMedia fires; playSong() then just starts it. A preload that no
+ * longer matches (skip, new playlist, loop toggled) is disposed and redone.
+ * The preload fields are only touched on the FX thread.
+ *
+ * Players come from MediaPlayerPool and are released (stopped and disposed)
+ * as soon as they are replaced, so native decoders do not pile up over a
+ * long session. Replaying the loaded song (loop mode) rewinds the existing
+ * player instead of building a new one.
+ *
+ * Crossfade: with a crossfade time set (0 = off, up to
+ * MAX_CROSSFADE_SECONDS), the next song is started that long before the
+ * current one ends and CrossfadeEngine ramps the two. Loop mode replays
+ * without a fade; a manual skip, pause or stop cuts a running fade short.
+ *
+ * Every song plays at the user volume times its LoudnessAnalyzer track
+ * gain, so consecutive tracks come out at a similar loudness.
  */
 public class PlayerController {
     private static final Logger logger = Logger.getLogger(PlayerController.class.getName());
     private static PlayerController instance;
+    private static final double PRELOAD_LEAD_SECONDS = 10;
+    public static final double MAX_CROSSFADE_SECONDS = 12;
     
+    private final MediaPlayerPool pool = MediaPlayerPool.getInstance();
+    private final CrossfadeEngine crossfade = CrossfadeEngine.getInstance();
+    private final LoudnessAnalyzer loudness = LoudnessAnalyzer.getInstance();
+    private volatile double crossfadeSeconds = crossfadeFromProperty();
+    private volatile double volume = 1.0;
+    // FX thread: normalization gain of loadedSong
+    private double trackGain = 1.0;
     private MediaPlayer mediaPlayer;
+    // Song the FX-thread mediaPlayer was built for
+    private Song loadedSong;
+    private MediaPlayer preloadedPlayer;
+    private Song preloadedSong;
+    // FX thread: player whose crossfade was started, and the song it fades to
+    private MediaPlayer crossfadeStartedFor;
+    private Song crossfadeTo;
     private boolean fxInitialized = false;
     private Song currentSong;
     
@@ -56,11 +97,6 @@ public class PlayerController {
             return;
         }
         
-        // Stop previous playback if any
-        if (mediaPlayer != null) {
-            mediaPlayer.stop();
-        }
-        
         this.currentSong = song;
         File audioFile = new File(song.getFilePath());
         
@@ -68,22 +104,69 @@ public class PlayerController {
             logger.warning("Audio file not found: " + song.getFilePath());
             return;
         }
+        SongCache.recordPlay(song);
         
         Platform.runLater(() -> {
             try {
-                String mediaUri = audioFile.toURI().toString();
-                Media media = new Media(mediaUri);
-                mediaPlayer = new MediaPlayer(media);
-                mediaPlayer.setVolume(1.0);
+                // Fade in only if this is the song a crossfade was started for;
+                // anything else (skip, new playlist) cuts a running fade short
+                boolean fadeIn = crossfadeTo == song && mediaPlayer != null
+                        && mediaPlayer.getStatus() == MediaPlayer.Status.PLAYING;
+                crossfadeTo = null;
+                if (!fadeIn) {
+                    crossfade.finishNow();
+                }
+                
+                // Same song again (loop or replay): rewind the loaded player
+                if (mediaPlayer != null && loadedSong == song
+                        && mediaPlayer.getStatus() != MediaPlayer.Status.HALTED) {
+                    discardPreloaded();
+                    mediaPlayer.seek(Duration.ZERO);
+                    mediaPlayer.play();
+                    NowPlayingState.getInstance().setCurrentSong(song, true);
+                    logger.info("Replaying: " + song.getTitle());
+                    return;
+                }
+                
+                // Use the prepared player if this is the song that was preloaded
+                MediaPlayer player = takePreloaded(song);
+                if (player == null) {
+                    player = pool.create(audioFile.toURI().toString(), "current");
+                } else {
+                    pool.setRole(player, "current");
+                }
+                MediaPlayer previous = mediaPlayer;
+                MediaPlayer current = player;
+                mediaPlayer = player;
+                loadedSong = song;
+                trackGain = loudness.getTrackGain(song);
                 
                 // Set end of media listener for loop/next song functionality
-                mediaPlayer.setOnEndOfMedia(() -> {
+                player.setOnEndOfMedia(() -> {
+                    if (current != mediaPlayer) {
+                        return; // faded out; the next song already took over
+                    }
                     logger.info("Song ended: " + song.getTitle());
                     // Notify PlaybackManager that song ended (it will handle loop or next)
-                    service.PlaybackManager.getInstance().onSongEnded();
+                    PlaybackManager.getInstance().onSongEnded();
                 });
                 
-                mediaPlayer.play();
+                // Prepare (and possibly fade to) the next song shortly before this one ends
+                player.currentTimeProperty().addListener((obs, old, now) -> {
+                    maybePreload(current, now);
+                    maybeStartCrossfade(current, now);
+                });
+                
+                if (fadeIn) {
+                    // Silent before it starts, so it never plays a moment at full volume
+                    player.setVolume(0);
+                    player.play();
+                    crossfade.start(previous, player, crossfadeSeconds, volume * trackGain, pool::release);
+                } else {
+                    pool.release(previous);
+                    player.setVolume(volume * trackGain);
+                    player.play();
+                }
                 
                 // Update global now playing state
                 NowPlayingState.getInstance().setCurrentSong(song, true);
@@ -95,11 +178,174 @@ public class PlayerController {
         });
     }
     
+    /**
+     * Drop the preloaded next song (call when what plays next has changed);
+     * it is preloaded again if the current song is near its end
+     */
+    public void invalidatePreload() {
+        Platform.runLater(() -> {
+            discardPreloaded();
+            if (mediaPlayer != null) {
+                maybePreload(mediaPlayer, mediaPlayer.getCurrentTime());
+            }
+        });
+    }
+    
+    /**
+     * FX thread: position of the current song in milliseconds
+     */
+    public long getPositionMillis() {
+        if (mediaPlayer == null) {
+            return 0;
+        }
+        Duration now = mediaPlayer.getCurrentTime();
+        return now == null || now.isUnknown() ? 0 : (long) now.toMillis();
+    }
+    
+    /**
+     * FX thread: length of the current song in milliseconds (0 if unknown)
+     */
+    public long getDurationMillis() {
+        if (mediaPlayer == null) {
+            return 0;
+        }
+        Duration total = mediaPlayer.getTotalDuration();
+        return total == null || total.isUnknown() || total.isIndefinite() ? 0 : (long) total.toMillis();
+    }
+    
+    /**
+     * Jump to a position in the current song. A running crossfade is
+     * finished first, so the seek applies to the song now playing.
+     */
+    public void seek(long millis) {
+        Platform.runLater(() -> {
+            crossfade.finishNow();
+            if (mediaPlayer != null) {
+                long total = getDurationMillis();
+                long target = Math.max(0, total > 0 ? Math.min(millis, total) : millis);
+                mediaPlayer.seek(Duration.millis(target));
+                logger.fine("Seek to " + target + " ms");
+            }
+        });
+    }
+    
+    /**
+     * Set the crossfade time between consecutive songs
+     * 
+     * @param seconds overlap, 0 (hard cut) to MAX_CROSSFADE_SECONDS
+     */
+    public void setCrossfadeSeconds(double seconds) {
+        crossfadeSeconds = clampCrossfade(seconds);
+        logger.info("Crossfade: " + crossfadeSeconds + " s");
+    }
+    
+    public double getCrossfadeSeconds() {
+        return crossfadeSeconds;
+    }
+    
+    private static double crossfadeFromProperty() {
+        try {
+            return clampCrossfade(Double.parseDouble(System.getProperty("mellow.crossfadeSeconds", "0")));
+        } catch (NumberFormatException e) {
+            logger.warning("Ignoring invalid mellow.crossfadeSeconds: " + e.getMessage());
+            return 0;
+        }
+    }
+    
+    private static double clampCrossfade(double seconds) {
+        return Double.isNaN(seconds) ? 0 : Math.max(0, Math.min(MAX_CROSSFADE_SECONDS, seconds));
+    }
+    
+    /**
+     * FX thread: once the current song is within the crossfade time of its
+     * end, advance PlaybackManager early; playSong() then fades the next
+     * song in instead of cutting
+     */
+    private void maybeStartCrossfade(MediaPlayer player, Duration now) {
+        double seconds = crossfadeSeconds;
+        if (seconds <= 0 || player != mediaPlayer || crossfadeStartedFor == player || now == null
+                || player.getStatus() != MediaPlayer.Status.PLAYING) {
+            return;
+        }
+        Duration total = player.getTotalDuration();
+        if (total == null || total.isUnknown() || total.isIndefinite()
+                || total.toSeconds() - now.toSeconds() > seconds) {
+            return;
+        }
+        Song next = PlaybackManager.getInstance().peekNext();
+        // Loop mode (or a one-song playlist) rewinds instead
+        if (next == null || next == loadedSong) {
+            return;
+        }
+        crossfadeStartedFor = player;
+        crossfadeTo = next;
+        PlaybackManager.getInstance().onSongEnded();
+    }
+    
+    /**
+     * FX thread: build the next song's player once the current one is within
+     * PRELOAD_LEAD_SECONDS (plus the crossfade time) of its end
+     */
+    private void maybePreload(MediaPlayer player, Duration now) {
+        if (player != mediaPlayer || preloadedPlayer != null || now == null) {
+            return;
+        }
+        Duration total = player.getTotalDuration();
+        if (total == null || total.isUnknown() || total.isIndefinite()
+                || total.toSeconds() - now.toSeconds() > PRELOAD_LEAD_SECONDS + crossfadeSeconds) {
+            return;
+        }
+        Song next = PlaybackManager.getInstance().peekNext();
+        // Nothing to build for a replay of the loaded song; it is rewound
+        if (next == null || next == loadedSong || next.getFilePath() == null) {
+            return;
+        }
+        File file = new File(next.getFilePath());
+        if (!file.exists()) {
+            return;
+        }
+        // Have its track gain ready by the time it starts
+        loudness.prioritize(next);
+        try {
+            preloadedPlayer = pool.create(file.toURI().toString(), "preload");
+            preloadedSong = next;
+            logger.fine(() -> "Preloaded next song: " + next.getTitle());
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Could not preload: " + next.getTitle(), e);
+        }
+    }
+    
+    /**
+     * FX thread: hand out the preloaded player if it is for this song,
+     * otherwise dispose it
+     */
+    private MediaPlayer takePreloaded(Song song) {
+        MediaPlayer player = preloadedPlayer;
+        boolean usable = player != null && preloadedSong == song
+                && player.getStatus() != MediaPlayer.Status.HALTED && player.getError() == null;
+        if (usable) {
+            preloadedPlayer = null;
+            preloadedSong = null;
+            return player;
+        }
+        discardPreloaded();
+        return null;
+    }
+    
+    private void discardPreloaded() {
+        if (preloadedPlayer != null) {
+            pool.release(preloadedPlayer);
+            preloadedPlayer = null;
+            preloadedSong = null;
+        }
+    }
+    
     /**
      * Pause current playback
      */
     public void pauseSong() {
         Platform.runLater(() -> {
+            crossfade.finishNow();
             if (mediaPlayer != null) {
                 mediaPlayer.pause();
                 NowPlayingState.getInstance().setPlaying(false);
@@ -126,6 +372,8 @@ public class PlayerController {
      */
     public void stopSong() {
         Platform.runLater(() -> {
+            crossfade.finishNow();
+            discardPreloaded();
             if (mediaPlayer != null) {
                 mediaPlayer.stop();
                 NowPlayingState.getInstance().setCurrentSong(null, false);
@@ -152,9 +400,11 @@ public class PlayerController {
      * Set playback volume (0.0 to 1.0)
      */
     public void setVolume(double volume) {
+        this.volume = Math.max(0.0, Math.min(1.0, volume));
         Platform.runLater(() -> {
-            if (mediaPlayer != null) {
-                mediaPlayer.setVolume(Math.max(0.0, Math.min(1.0, volume)));
+            crossfade.setTargetVolume(this.volume * trackGain);
+            if (mediaPlayer != null && !crossfade.isFading()) {
+                mediaPlayer.setVolume(this.volume * trackGain);
             }
         });
     }
@@ -5,12 +5,20 @@
 package Controller;
 
 import Dao.SongDAO;
+import Model.LibraryDelta;
 import Model.Song;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import service.LibraryWatcher;
+import service.LoudnessAnalyzer;
+import utils.LibraryChangeNotifier;
+import utils.LibrarySnapshot;
 import utils.MetadataReader;
+import utils.ScanIndex;
 import utils.SongCache;
 
 /**
@@ -24,6 +32,13 @@ public class SongController {
     private final SongDAO songDAO;
     private final MetadataReader metadataReader;
     private List<Song> cachedSongs = new ArrayList<>();
+    private static boolean snapshotHookRegistered = false;
+    private static boolean loudnessListenerRegistered = false;
+    private static final ExecutorService libraryWorker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "library-db-sync");
+        t.setDaemon(true);
+        return t;
+    });
 
     public SongController() {
         this.songDAO = new SongDAO();
@@ -40,21 +55,128 @@ public class SongController {
 
     /**
      * Load local songs once from the specified root path and store in SongCache.
-     * This method scans local audio files via SongDAO and stores the result in
-     * SongCache.
+     * If a valid LibrarySnapshot exists it is loaded into SongCache straight
+     * away and reconciled against the disk on a background thread, so views
+     * can render immediately. Otherwise the library recorded in the persisted
+     * ScanIndex is placed in SongCache, an incremental rescan re-extracts only
+     * new or modified files and the resulting delta is applied in place.
+     * LibraryWatcher then keeps SongCache in sync with later changes.
      * Should only be called once at application startup or when refreshing the song
      * library.
      * 
      * @param rootPath The root directory path to scan for audio files
      */
     public void loadLocalSongsOnce(String rootPath) {
+        loadLocalSongsOnce(rootPath, null);
+    }
+
+    /**
+     * Load local songs once, reporting songs as they become known.
+     * Blocks until SongCache holds the library; run it off the EDT.
+     * 
+     * @param rootPath The root directory path to scan for audio files
+     * @param listener gets the scan pipeline and every song known before the
+     *                 scan finishes (indexed songs first, then new files);
+     *                 may be null
+     */
+    public void loadLocalSongsOnce(String rootPath, SongDAO.RescanListener listener) {
         if (rootPath == null || rootPath.trim().isEmpty()) {
             return;
         }
 
         Path root = Paths.get(rootPath);
-        List<Song> scannedSongs = songDAO.scanSongs(root, metadataReader);
-        SongCache.setSongs(scannedSongs);
+        ScanIndex index = ScanIndex.load(ScanIndex.defaultLocation());
+        registerSnapshotOnExit();
+        if (SongCache.isEmpty()) {
+            List<Song> snapshot = songDAO.loadSnapshot(LibrarySnapshot.defaultLocation());
+            if (snapshot != null) {
+                SongCache.setSongs(snapshot);
+                reconcileInBackground(snapshot, root, index);
+                return;
+            }
+            List<Song> indexed = songDAO.getIndexedSongs(index);
+            SongCache.addSongs(indexed);
+            if (listener != null) {
+                indexed.forEach(listener::songFound);
+            }
+        }
+        LibraryDelta delta = songDAO.rescanSongs(root, metadataReader, index, listener);
+        SongCache.applyDelta(delta);
+        SongCache.saveSnapshot(LibrarySnapshot.defaultLocation());
+        registerSongsInBackground();
+        analyzeLoudnessInBackground();
+
+        // Keep the library live: later changes arrive as batched deltas
+        LibraryWatcher.getInstance().start(root, metadataReader, index);
+    }
+
+    /**
+     * Rescan behind a snapshot-loaded library and publish what changed
+     */
+    private void reconcileInBackground(List<Song> snapshot, Path root, ScanIndex index) {
+        Thread reconciler = new Thread(() -> {
+            LibraryDelta delta = songDAO.reconcileSnapshot(snapshot, root, metadataReader, index);
+            SongCache.applyDelta(delta);
+            LibraryChangeNotifier.notifyChanged(delta);
+            LibraryWatcher.getInstance().start(root, metadataReader, index);
+            if (!delta.isEmpty()) {
+                SongCache.saveSnapshot(LibrarySnapshot.defaultLocation());
+            }
+            registerSongsInBackground();
+            analyzeLoudnessInBackground();
+        }, "library-reconcile");
+        reconciler.setDaemon(true);
+        reconciler.setPriority(Thread.MIN_PRIORITY);
+        reconciler.start();
+    }
+
+    /**
+     * Bulk-register cached songs that have no database ID yet, so likes and
+     * playlists don't need a per-song insert later
+     */
+    private void registerSongsInBackground() {
+        libraryWorker.execute(() -> {
+            List<Song> unregistered = new ArrayList<>();
+            for (Song song : SongCache.getAllSongs()) {
+                if (song.getSongId() <= 0) {
+                    unregistered.add(song);
+                }
+            }
+            if (unregistered.isEmpty()) {
+                return;
+            }
+            songDAO.syncLibrary(unregistered);
+            for (Song song : unregistered) {
+                SongCache.updateSongId(song);
+            }
+        });
+    }
+
+    /**
+     * Measure the loudness of new and changed songs in the background, now
+     * and whenever LibraryWatcher reports changes
+     */
+    private static synchronized void analyzeLoudnessInBackground() {
+        LoudnessAnalyzer analyzer = LoudnessAnalyzer.getInstance();
+        analyzer.analyze(SongCache.getAllSongs());
+        if (!loudnessListenerRegistered) {
+            loudnessListenerRegistered = true;
+            LibraryChangeNotifier.register(delta -> {
+                analyzer.analyze(delta.getAdded());
+                analyzer.analyze(delta.getChanged());
+            });
+        }
+    }
+
+    /**
+     * Save the snapshot on exit so the next start sees watcher updates too
+     */
+    private static synchronized void registerSnapshotOnExit() {
+        if (!snapshotHookRegistered) {
+            snapshotHookRegistered = true;
+            Runtime.getRuntime().addShutdownHook(new Thread(
+                    () -> SongCache.saveSnapshot(LibrarySnapshot.defaultLocation()), "library-snapshot"));
+        }
     }
 
     /**
@@ -1,31 +1,31 @@
 package Controller;
 
 import Model.Song;
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Set;
 import java.util.logging.Logger;
 import javax.swing.SwingUtilities;
+import service.SearchScheduler;
+import service.SearchService;
+import utils.SongCache;
 import view.SongSearchView;
 
 /**
  * Controller to orchestrate song searches for any view implementing
  * SongSearchView.
- * Keeps UI code out of the controller and uses a background executor for DB
- * work.
+ * Keeps UI code out of the controller and runs searches on a debounced,
+ * latest-wins SearchScheduler channel, so only the newest result repaints
+ * the view.
  */
 public class SongSearchController {
 
     private static final Logger logger = Logger.getLogger(SongSearchController.class.getName());
-    private final ExecutorService executor;
+    private final SearchScheduler.Channel channel;
 
     public SongSearchController() {
-        this.executor = Executors.newSingleThreadExecutor(r -> {
-            Thread t = new Thread(r, "song-search-controller");
-            t.setDaemon(true);
-            return t;
-        });
+        this.channel = SearchScheduler.getInstance().openChannel("local-search", SearchService.DEBOUNCE_MILLIS);
     }
 
     public void searchLocal(String rawTerm, List<Song> masterSongs, SongSearchView view) {
@@ -35,34 +35,35 @@ public class SongSearchController {
         final String term = rawTerm == null ? "" : rawTerm.trim();
         logger.fine(() -> "Local search invoked with raw='" + rawTerm + "' normalized='" + term + "'");
         if (term.isEmpty() || "Search".equalsIgnoreCase(term)) {
+            channel.cancel();
             SwingUtilities.invokeLater(() -> view.showMessage("Please enter a search term"));
             return;
         }
 
         final List<Song> source = masterSongs == null ? List.of() : masterSongs;
 
-        executor.submit(() -> {
-            String lowerTerm = term.toLowerCase();
-            List<Song> matches = new ArrayList<>();
-            for (Song s : source) {
-                if (s == null || s.getTitle() == null) {
-                    continue;
-                }
-                String title = s.getTitle().toLowerCase();
-                if (title.contains(lowerTerm)) {
-                    matches.add(s);
-                }
+        channel.submit(ticket -> {
+            // Ranked lookup in the library's inverted index, retried with
+            // typo tolerance if nothing matches; views holding an older copy
+            // of the library only see songs they still list
+            List<Song> matches = SongCache.search(term, 0);
+            if (matches.isEmpty() && !ticket.isCancelled()) {
+                matches = SongCache.searchFuzzy(term, 0);
             }
-
-            SwingUtilities.invokeLater(() -> {
-                logger.fine(() -> "Local search matches=" + matches.size());
-                if (matches.isEmpty()) {
-                    view.clearSongTable();
-                    view.showMessage("No matching songs found");
-                } else {
-                    view.updateSongTable(matches);
-                }
-            });
-        });
+            if (source != SongCache.getAllSongs() && !ticket.isCancelled()) {
+                Set<Song> visible = Collections.newSetFromMap(new IdentityHashMap<>());
+                visible.addAll(source);
+                matches.removeIf(s -> !visible.contains(s));
+            }
+            return matches;
+        }, matches -> {
+            logger.fine(() -> "Local search matches=" + matches.size());
+            if (matches.isEmpty()) {
+                view.clearSongTable();
+                view.showMessage("No matching songs found");
+            } else {
+                view.updateSongTable(matches);
+            }
+        }, null);
     }
 }
@@ -1,10 +1,14 @@
 package Dao;
 
-import Database.MySqlConnection;
+import Database.ConnectionPool;
+import Database.Database;
 import Model.Song;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import service.SearchScheduler;
 
 /**
  * DAO for Liked Songs operations
@@ -12,7 +16,7 @@ import java.util.List;
  */
 public class LikedSongDao {
 
-    private final MySqlConnection dbConnection = new MySqlConnection();
+    private final Database dbConnection = ConnectionPool.getInstance();
 
     /**
      * Add a song to user's liked songs
@@ -22,13 +26,9 @@ public class LikedSongDao {
      * @return true if successful, false otherwise
      */
     public boolean likeSong(int userId, int songId) {
-        // Check if already liked
-        if (isSongLiked(userId, songId)) {
-            System.out.println("Song already liked by user");
-            return false;
-        }
-
-        String query = "INSERT INTO liked_songs (user_id, song_id, liked_at) VALUES (?, ?, NOW())";
+        // IGNORE makes an existing like a no-op (0 rows) instead of a second
+        // round trip to check for it first
+        String query = "INSERT IGNORE INTO liked_songs (user_id, song_id, liked_at) VALUES (?, ?, NOW())";
 
         Connection conn = null;
         PreparedStatement stmt = null;
@@ -134,6 +134,98 @@ public class LikedSongDao {
         return false;
     }
 
+    /**
+     * Get the IDs of all songs a user has liked
+     *
+     * @param userId The user's ID
+     * @return Song IDs, or null if the query failed
+     */
+    public int[] getLikedSongIds(int userId) {
+        String query = "SELECT song_id FROM liked_songs WHERE user_id = ?";
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = dbConnection.openconnection();
+            stmt = conn.prepareStatement(query);
+            stmt.setInt(1, userId);
+            ResultSet rs = stmt.executeQuery();
+
+            int[] ids = new int[64];
+            int count = 0;
+            while (rs.next()) {
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, count * 2);
+                }
+                ids[count++] = rs.getInt(1);
+            }
+            return Arrays.copyOf(ids, count);
+        } catch (SQLException e) {
+            System.err.println("Error loading liked song IDs: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            try {
+                if (stmt != null)
+                    stmt.close();
+                if (conn != null)
+                    dbConnection.closeConnection(conn);
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Apply a batch of like/unlike changes for one user in a single
+     * transaction. Each change is idempotent (INSERT IGNORE / DELETE), so a
+     * retried batch is safe.
+     *
+     * @param userId  The user's ID
+     * @param changes song ID -> true to like, false to unlike
+     * @return true if the whole batch was committed
+     */
+    public boolean applyLikeChanges(int userId, Map<Integer, Boolean> changes) {
+        if (changes.isEmpty()) {
+            return true;
+        }
+
+        Connection conn = null;
+        try {
+            conn = dbConnection.openconnection();
+            if (conn == null) {
+                return false;
+            }
+            conn.setAutoCommit(false);
+            try (PreparedStatement like = conn.prepareStatement(
+                    "INSERT IGNORE INTO liked_songs (user_id, song_id, liked_at) VALUES (?, ?, NOW())");
+                    PreparedStatement unlike = conn.prepareStatement(
+                            "DELETE FROM liked_songs WHERE user_id = ? AND song_id = ?")) {
+                for (Map.Entry<Integer, Boolean> change : changes.entrySet()) {
+                    PreparedStatement stmt = change.getValue() ? like : unlike;
+                    stmt.setInt(1, userId);
+                    stmt.setInt(2, change.getKey());
+                    stmt.addBatch();
+                }
+                like.executeBatch();
+                unlike.executeBatch();
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error saving liked songs: " + e.getMessage());
+        } finally {
+            if (conn != null)
+                dbConnection.closeConnection(conn);
+        }
+
+        return false;
+    }
+
     /**
      * Get all liked songs for a user
      * 
@@ -227,12 +319,60 @@ public class LikedSongDao {
      * Search liked songs for a user by title, artist, or album.
      */
     public List<Song> searchLikedSongs(int userId, String term) {
+        return searchLikedSongs(userId, term, 0, 0);
+    }
+
+    /**
+     * Search one page of a user's liked songs by title, artist, or album,
+     * most relevant first (see SongSearchQuery).
+     *
+     * @param offset Rows to skip
+     * @param limit  Maximum rows to return (0 = no limit)
+     */
+    public List<Song> searchLikedSongs(int userId, String term, int offset, int limit) {
+        return searchLikedSongs(userId, term, offset, limit, null);
+    }
+
+    /**
+     * Search liked songs on behalf of a SearchScheduler ticket; the running
+     * statement can be cancelled through the ticket.
+     *
+     * @param ticket scheduler ticket (may be null)
+     */
+    public List<Song> searchLikedSongs(int userId, String term, int offset, int limit,
+            SearchScheduler.Ticket ticket) {
+        SongSearchQuery query = SongSearchQuery.parse(term);
+        if (query == null) {
+            return new ArrayList<>();
+        }
+        try {
+            return queryLikedSongs(userId, query, offset, limit, ticket);
+        } catch (SQLException e) {
+            if (ticket != null && ticket.isCancelled()) {
+                return new ArrayList<>();
+            }
+            if (query.usesFullText() && e.getErrorCode() == SongSearchQuery.ER_FT_MATCHING_KEY_NOT_FOUND) {
+                SongSearchQuery.disableFullText(e);
+                try {
+                    return queryLikedSongs(userId, query.withoutFullText(), offset, limit, ticket);
+                } catch (SQLException retry) {
+                    e = retry;
+                }
+            }
+            System.err.println("Error searching liked songs: " + e.getMessage());
+        }
+        return new ArrayList<>();
+    }
+
+    private List<Song> queryLikedSongs(int userId, SongSearchQuery search, int offset, int limit,
+            SearchScheduler.Ticket ticket) throws SQLException {
         List<Song> songs = new ArrayList<>();
-        String query = "SELECT s.song_id, s.song_name, s.artist, s.album, s.duration, s.file_path " +
+        String query = "SELECT s.song_id, s.song_name, s.artist, s.album, s.duration, s.file_path, " +
+                search.relevance("s.") + " AS relevance " +
                 "FROM songs s " +
                 "INNER JOIN liked_songs ls ON s.song_id = ls.song_id " +
-                "WHERE ls.user_id = ? AND (s.song_name LIKE ? OR s.artist LIKE ? OR s.album LIKE ?) " +
-                "ORDER BY s.song_name";
+                "WHERE ls.user_id = ? AND " + search.condition("s.") +
+                SongSearchQuery.page("relevance DESC, s.song_name", offset, limit);
 
         Connection conn = null;
         PreparedStatement stmt = null;
@@ -240,11 +380,12 @@ public class LikedSongDao {
             conn = dbConnection.openconnection();
             stmt = conn.prepareStatement(query);
 
-            String like = "%" + (term == null ? "" : term.trim()) + "%";
-            stmt.setInt(1, userId);
-            stmt.setString(2, like);
-            stmt.setString(3, like);
-            stmt.setString(4, like);
+            int paramIndex = search.bindRelevance(stmt, 1);
+            stmt.setInt(paramIndex++, userId);
+            search.bindCondition(stmt, paramIndex);
+            if (ticket != null && !ticket.attach(stmt)) {
+                return songs;
+            }
 
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) {
@@ -258,9 +399,10 @@ public class LikedSongDao {
                 song.setLiked(true);
                 songs.add(song);
             }
-        } catch (SQLException e) {
-            System.err.println("Error searching liked songs: " + e.getMessage());
         } finally {
+            if (ticket != null) {
+                ticket.detach();
+            }
             try {
                 if (stmt != null) {
                     stmt.close();
@@ -1,11 +1,12 @@
 package Dao;
 
-import Database.MySqlConnection;
+import Database.ConnectionPool;
+import Database.Database;
 import java.sql.*;
 import java.time.Instant;
 
 public class PasswordResetDao {
-    private final MySqlConnection mysql = new MySqlConnection() {};
+    private final Database mysql = ConnectionPool.getInstance();
 
     public PasswordResetDao() {
         ensureTable();
@@ -1,6 +1,7 @@
 package Dao;
 
-import Database.MySqlConnection;
+import Database.ConnectionPool;
+import Database.Database;
 import Model.PlaylistModel;
 import Model.Song;
 import java.sql.*;
@@ -13,7 +14,7 @@ import java.util.List;
  */
 public class PlaylistDao {
 
-    private final MySqlConnection dbConnection = new MySqlConnection();
+    private final Database dbConnection = ConnectionPool.getInstance();
 
     /**
      * Get all playlists for a specific user
@@ -1,6 +1,7 @@
 package Dao;
 
-import Database.MySqlConnection;
+import Database.ConnectionPool;
+import Database.Database;
 import Model.Song;
 import java.sql.*;
 import java.util.ArrayList;
@@ -12,7 +13,7 @@ import java.util.List;
  */
 public class PlaylistSongDao {
 
-    private final MySqlConnection dbConnection = new MySqlConnection();
+    private final Database dbConnection = ConnectionPool.getInstance();
 
     /**
      * Get all songs in a specific playlist
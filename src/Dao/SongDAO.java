@@ -4,19 +4,31 @@
  */
 package Dao;
 
-import Database.MySqlConnection;
+import Database.ConnectionPool;
+import Database.Database;
+import Model.LibraryDelta;
 import Model.Song;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import service.LibraryScanPipeline;
+import service.SearchScheduler;
+import utils.LibrarySnapshot;
 import utils.MetadataReader;
+import utils.ScanIndex;
 
 /**
  *
@@ -25,12 +37,26 @@ import utils.MetadataReader;
 public class SongDAO {
     private static final String DEFAULT_IMAGE = "/Images/default_song.png";
     private static final Set<String> SUPPORTED_EXTS = Set.of("mp3", "wav", "flac");
+    private static final int SYNC_CHUNK_SIZE = 500;
+    private static final int MAX_PATH_LENGTH = 255; // songs.file_path VARCHAR(255)
     private static final Logger logger = Logger.getLogger(SongDAO.class.getName());
-    private final MySqlConnection dbConnection = new MySqlConnection();
+    // Bumped after every write to the songs table; cached search results
+    // fetched under an older generation are stale
+    private static final AtomicLong writeGeneration = new AtomicLong();
+    private final Database dbConnection = ConnectionPool.getInstance();
+
+    /**
+     * Get the current write generation of the songs table.
+     * Changes whenever this DAO inserts or updates songs.
+     */
+    public static long getWriteGeneration() {
+        return writeGeneration.get();
+    }
 
     /**
      * Recursively scans the provided root folder for supported audio files.
-     * Uses java.nio.file for efficient traversal and MetadataReader for tags.
+     * Runs a LibraryScanPipeline: one walker thread feeds a pool of
+     * MetadataReader workers; songs are returned in directory walk order.
      * 
      * @param root   user-selected root folder
      * @param reader metadata reader utility
@@ -40,26 +66,201 @@ public class SongDAO {
         if (root == null)
             return List.of();
         List<Song> songs = new ArrayList<>();
-        try (Stream<Path> stream = Files.walk(root)) {
-            List<Path> audioFiles = stream
-                    .filter(Files::isRegularFile)
-                    .filter(p -> isAudio(p))
-                    .collect(Collectors.toList());
+        scanSongs(new LibraryScanPipeline(reader, this::isAudio), root, songs::add);
+        return songs;
+    }
 
-            for (Path p : audioFiles) {
-                try {
-                    Song s = reader.extract(p);
-                    // preserve default image for existing UI
-                    s.setImagePath(DEFAULT_IMAGE);
-                    songs.add(s);
-                } catch (Exception e) {
-                    // Skip problematic files without failing the entire scan
+    /**
+     * Streams a scan through the given pipeline, handing each song to sink as
+     * soon as the pipeline releases it. Problematic files are skipped.
+     * 
+     * @param pipeline configured pipeline (worker count, ordering, cancellation)
+     * @param root     user-selected root folder
+     * @param sink     receives each discovered song on the calling thread
+     * @return per-stage counters for the scan
+     */
+    public LibraryScanPipeline.ScanStats scanSongs(LibraryScanPipeline pipeline, Path root, Consumer<Song> sink) {
+        return pipeline.run(root, s -> {
+            // preserve default image for existing UI
+            s.setImagePath(DEFAULT_IMAGE);
+            sink.accept(s);
+        });
+    }
+
+    /**
+     * Reads a single audio file into a Song with the default image.
+     * 
+     * @param path   audio file
+     * @param reader metadata reader utility
+     * @return the extracted song
+     */
+    public Song readSong(Path path, MetadataReader reader) {
+        Song s = reader.extract(path);
+        s.setImagePath(DEFAULT_IMAGE);
+        return s;
+    }
+
+    /**
+     * Incrementally rescans root against a persisted scan index.
+     * Only files that are new or whose size/mtime changed are passed to
+     * MetadataReader; indexed files that no longer exist are reported as
+     * removed. The index is updated and saved before returning.
+     * 
+     * @param root   user-selected root folder
+     * @param reader metadata reader utility
+     * @param index  file-state index from the previous scan
+     * @return songs added, changed and removed since the previous scan
+     */
+    public LibraryDelta rescanSongs(Path root, MetadataReader reader, ScanIndex index) {
+        return rescanSongs(root, reader, index, null);
+    }
+
+    /**
+     * Incremental rescan that reports its progress while it runs.
+     * 
+     * @param listener gets the pipeline before the walk starts and every new
+     *                 song as it is extracted (on the scanning thread); may
+     *                 be null
+     * @see #rescanSongs(Path, MetadataReader, ScanIndex)
+     */
+    public LibraryDelta rescanSongs(Path root, MetadataReader reader, ScanIndex index, RescanListener listener) {
+        if (root == null || index == null)
+            return new LibraryDelta(null, null, null);
+
+        // Walker thread records the state of every audio file it visits
+        Map<String, BasicFileAttributes> seen = new ConcurrentHashMap<>();
+        LibraryScanPipeline pipeline = new LibraryScanPipeline(reader, p -> {
+            if (!isAudio(p))
+                return false;
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(p, BasicFileAttributes.class);
+                String key = p.toAbsolutePath().toString();
+                seen.put(key, attrs);
+                return !index.isUnchanged(key, attrs.size(), attrs.lastModifiedTime().toMillis());
+            } catch (IOException e) {
+                return false;
+            }
+        });
+
+        List<Song> added = new ArrayList<>();
+        List<Song> changed = new ArrayList<>();
+        if (listener != null) {
+            listener.scanStarted(pipeline);
+        }
+        scanSongs(pipeline, root, s -> {
+            BasicFileAttributes attrs = seen.get(s.getFilePath());
+            if (index.contains(s.getFilePath())) {
+                changed.add(s);
+            } else {
+                added.add(s);
+                if (listener != null) {
+                    listener.songFound(s);
+                }
+            }
+            if (attrs != null) {
+                index.put(s, attrs.size(), attrs.lastModifiedTime().toMillis());
+            }
+        });
+
+        // Only trust "missing" when the whole tree was actually walked
+        List<String> removed = new ArrayList<>();
+        if (pipeline.isWalkComplete()) {
+            for (String path : index.paths()) {
+                if (!seen.containsKey(path)) {
+                    removed.add(path);
+                    index.remove(path);
                 }
             }
-        } catch (IOException e) {
-            // Return what we have; caller can decide how to report/handle
         }
-        return songs;
+
+        index.save();
+        LibraryDelta delta = new LibraryDelta(added, changed, removed);
+        logger.info("Incremental rescan of " + root + ": " + delta);
+        return delta;
+    }
+
+    /**
+     * Brings a library loaded from a snapshot up to date with the disk.
+     * Runs an incremental rescan, then also adds indexed songs the snapshot
+     * is missing and drops snapshot songs the index no longer knows (the
+     * snapshot may be older than the index if the app was not closed
+     * cleanly).
+     * 
+     * @param snapshotSongs songs currently shown, as loaded from the snapshot
+     * @param root          user-selected root folder
+     * @param reader        metadata reader utility
+     * @param index         file-state index from the previous scan
+     * @return delta to apply to the snapshot songs
+     */
+    public LibraryDelta reconcileSnapshot(List<Song> snapshotSongs, Path root, MetadataReader reader,
+            ScanIndex index) {
+        LibraryDelta scanDelta = rescanSongs(root, reader, index);
+
+        Set<String> snapshotPaths = new HashSet<>();
+        for (Song s : snapshotSongs) {
+            snapshotPaths.add(s.getFilePath());
+        }
+        Set<String> handled = new HashSet<>();
+        for (Song s : scanDelta.getAdded()) {
+            handled.add(s.getFilePath());
+        }
+        for (Song s : scanDelta.getChanged()) {
+            handled.add(s.getFilePath());
+        }
+
+        List<Song> added = new ArrayList<>(scanDelta.getAdded());
+        for (Song s : index.toSongs(DEFAULT_IMAGE)) {
+            if (!snapshotPaths.contains(s.getFilePath()) && !handled.contains(s.getFilePath())) {
+                added.add(s);
+            }
+        }
+        Set<String> indexed = index.paths();
+        List<String> removed = new ArrayList<>(scanDelta.getRemovedPaths());
+        for (String path : snapshotPaths) {
+            if (!indexed.contains(path) && !removed.contains(path)) {
+                removed.add(path);
+            }
+        }
+        return new LibraryDelta(added, scanDelta.getChanged(), removed);
+    }
+
+    /**
+     * Load songs from a binary library snapshot.
+     * 
+     * @param file snapshot file
+     * @return the songs, or null if the snapshot is missing or corrupt
+     */
+    public List<Song> loadSnapshot(Path file) {
+        return LibrarySnapshot.read(file, DEFAULT_IMAGE);
+    }
+
+    /**
+     * Rebuild the songs recorded in a scan index without reading any files.
+     */
+    public List<Song> getIndexedSongs(ScanIndex index) {
+        return index == null ? List.of() : index.toSongs(DEFAULT_IMAGE);
+    }
+
+    /**
+     * Check whether a path has one of the supported audio extensions.
+     */
+    public boolean isSupportedAudio(Path p) {
+        return isAudio(p);
+    }
+
+    /**
+     * Progress of an incremental rescan, called on the scanning thread
+     */
+    public interface RescanListener {
+        /**
+         * The pipeline about to run; its counters can be read mid-scan
+         */
+        void scanStarted(LibraryScanPipeline pipeline);
+
+        /**
+         * A song that is new to the library
+         */
+        void songFound(Song song);
     }
 
     private boolean isAudio(Path p) {
@@ -139,6 +340,7 @@ public class SongDAO {
             int affectedRows = stmt.executeUpdate();
 
             if (affectedRows > 0) {
+                writeGeneration.incrementAndGet();
                 ResultSet rs = stmt.getGeneratedKeys();
                 if (rs.next()) {
                     int newId = rs.getInt(1);
@@ -164,57 +366,226 @@ public class SongDAO {
     }
 
     /**
-     * Search songs by name or artist
+     * Register a whole scanned library in the songs table in bulk.
+     * Songs are upserted in chunks with a multi-row
+     * INSERT ... ON DUPLICATE KEY UPDATE (relies on the unique index on
+     * file_path), one transaction and two round trips per chunk, on a single
+     * pooled connection. The resulting IDs are also set on the Song objects.
      * 
-     * @param searchTerm The search term
-     * @return List of matching songs
+     * @param songs Songs to register (songs whose path is too long for the
+     *              file_path column are skipped)
+     * @return Map of file path to song_id for every registered song
      */
-    public List<Song> searchSongs(String searchTerm) {
-        List<Song> songs = new ArrayList<>();
-        String term = searchTerm == null ? "" : searchTerm.trim().toLowerCase();
-        if (term.isEmpty()) {
-            return songs;
+    public Map<String, Integer> syncLibrary(List<Song> songs) {
+        Map<String, Integer> ids = new HashMap<>();
+        if (songs == null || songs.isEmpty()) {
+            return ids;
         }
 
-        logger.fine(() -> "DAO search term='" + term + "'");
+        Map<String, Song> byPath = new LinkedHashMap<>();
+        for (Song song : songs) {
+            String path = song.getFilePath();
+            if (path == null || path.length() > MAX_PATH_LENGTH) {
+                logger.warning("Skipping song with unusable file path: " + path);
+                continue;
+            }
+            byPath.putIfAbsent(path, song);
+        }
+        List<Song> unique = new ArrayList<>(byPath.values());
 
-        String[] words = term.split("\\s+");
-        List<String> filtered = new ArrayList<>();
-        for (String w : words) {
-            if (!w.isBlank()) {
-                filtered.add(w);
+        Connection conn = null;
+        try {
+            conn = dbConnection.openconnection();
+            if (conn == null) {
+                return ids;
+            }
+            conn.setAutoCommit(false);
+            for (int from = 0; from < unique.size(); from += SYNC_CHUNK_SIZE) {
+                List<Song> chunk = unique.subList(from, Math.min(unique.size(), from + SYNC_CHUNK_SIZE));
+                try {
+                    upsertChunk(conn, chunk);
+                    selectChunkIds(conn, chunk, ids);
+                    conn.commit();
+                    writeGeneration.incrementAndGet();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    System.err.println("Error syncing songs " + from + "-" + (from + chunk.size()) + ": "
+                            + e.getMessage());
+                }
             }
+        } catch (SQLException e) {
+            System.err.println("Error syncing library: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (conn != null)
+                dbConnection.closeConnection(conn);
         }
-        if (filtered.isEmpty()) {
-            return songs;
+
+        for (Song song : unique) {
+            Integer id = ids.get(song.getFilePath());
+            if (id != null) {
+                song.setSongId(id);
+            }
         }
+        logger.info("Library sync: " + ids.size() + " of " + songs.size() + " songs registered");
+        return ids;
+    }
 
+    private void upsertChunk(Connection conn, List<Song> chunk) throws SQLException {
         StringBuilder sql = new StringBuilder(
-                "SELECT song_id, song_name, artist, album, duration, file_path FROM songs WHERE ");
-        for (int i = 0; i < filtered.size(); i++) {
-            if (i > 0) {
-                sql.append(" AND ");
+                "INSERT INTO songs (song_name, artist, album, duration, file_path) VALUES ");
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?)");
+        }
+        sql.append(" ON DUPLICATE KEY UPDATE song_name = VALUES(song_name), artist = VALUES(artist), ")
+                .append("album = VALUES(album), duration = VALUES(duration)");
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int p = 1;
+            for (Song song : chunk) {
+                stmt.setString(p++, truncate(song.getTitle(), 150));
+                stmt.setString(p++, truncate(song.getArtist(), 100));
+                stmt.setString(p++, truncate(song.getAlbum() != null ? song.getAlbum() : "Unknown", 100));
+                stmt.setInt(p++, song.getDurationSeconds());
+                stmt.setString(p++, song.getFilePath());
+            }
+            stmt.executeUpdate();
+        }
+    }
+
+    private void selectChunkIds(Connection conn, List<Song> chunk, Map<String, Integer> ids) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT song_id, file_path FROM songs WHERE file_path IN (");
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int p = 1;
+            for (Song song : chunk) {
+                stmt.setString(p++, song.getFilePath());
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.put(rs.getString("file_path"), rs.getInt("song_id"));
+                }
             }
-            sql.append("(LOWER(song_name) LIKE ? OR LOWER(artist) LIKE ? OR LOWER(album) LIKE ?)");
         }
-        sql.append(" ORDER BY song_name");
+    }
+
+    private static String truncate(String value, int max) {
+        if (value == null) {
+            return null;
+        }
+        return value.length() <= max ? value : value.substring(0, max);
+    }
+
+    /**
+     * Search songs by name, artist or album
+     * 
+     * @param searchTerm The search term
+     * @return List of all matching songs, most relevant first
+     */
+    public List<Song> searchSongs(String searchTerm) {
+        return searchSongs(searchTerm, 0, 0);
+    }
+
+    /**
+     * Search one page of songs by name, artist or album.
+     * Every word must match; words are matched as prefixes through the
+     * FULLTEXT index (see SongSearchQuery), so partial input works for
+     * type-ahead.
+     * 
+     * @param searchTerm The search term
+     * @param offset     Rows to skip
+     * @param limit      Maximum rows to return (0 = no limit)
+     * @return List of matching songs, most relevant first
+     */
+    public List<Song> searchSongs(String searchTerm, int offset, int limit) {
+        return searchSongs(searchTerm, offset, limit, null);
+    }
+
+    /**
+     * Search one page of songs on behalf of a SearchScheduler ticket.
+     * The running statement is attached to the ticket so a newer search can
+     * cancel it; a cancelled search returns an empty list.
+     * 
+     * @param ticket scheduler ticket (may be null)
+     */
+    public List<Song> searchSongs(String searchTerm, int offset, int limit, SearchScheduler.Ticket ticket) {
+        SongSearchQuery query = SongSearchQuery.parse(searchTerm);
+        if (query == null) {
+            return new ArrayList<>();
+        }
+
+        logger.fine(() -> "DAO search term='" + searchTerm + "' offset=" + offset + " limit=" + limit);
+        try {
+            return querySongs(query, offset, limit, ticket);
+        } catch (SQLException e) {
+            if (ticket != null && ticket.isCancelled()) {
+                return new ArrayList<>();
+            }
+            if (query.usesFullText() && e.getErrorCode() == SongSearchQuery.ER_FT_MATCHING_KEY_NOT_FOUND) {
+                SongSearchQuery.disableFullText(e);
+                try {
+                    return querySongs(query.withoutFullText(), offset, limit, ticket);
+                } catch (SQLException retry) {
+                    e = retry;
+                }
+            }
+            System.err.println("Error searching songs: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Count all songs matching a search term (for paging)
+     * 
+     * @param searchTerm The search term
+     * @return Number of matching songs
+     */
+    public int countSearchResults(String searchTerm) {
+        SongSearchQuery query = SongSearchQuery.parse(searchTerm);
+        if (query == null) {
+            return 0;
+        }
+        try {
+            return countSongs(query);
+        } catch (SQLException e) {
+            if (query.usesFullText() && e.getErrorCode() == SongSearchQuery.ER_FT_MATCHING_KEY_NOT_FOUND) {
+                SongSearchQuery.disableFullText(e);
+                try {
+                    return countSongs(query.withoutFullText());
+                } catch (SQLException retry) {
+                    e = retry;
+                }
+            }
+            System.err.println("Error counting search results: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    private List<Song> querySongs(SongSearchQuery query, int offset, int limit, SearchScheduler.Ticket ticket)
+            throws SQLException {
+        List<Song> songs = new ArrayList<>();
+        String sql = "SELECT song_id, song_name, artist, album, duration, file_path, "
+                + query.relevance("") + " AS relevance FROM songs WHERE " + query.condition("")
+                + SongSearchQuery.page("relevance DESC, song_name", offset, limit);
 
         Connection conn = null;
         PreparedStatement stmt = null;
         try {
             conn = dbConnection.openconnection();
-            stmt = conn.prepareStatement(sql.toString());
-
-            int paramIndex = 1;
-            for (String w : filtered) {
-                String like = "%" + w + "%";
-                stmt.setString(paramIndex++, like);
-                stmt.setString(paramIndex++, like);
-                stmt.setString(paramIndex++, like);
+            stmt = conn.prepareStatement(sql);
+            int paramIndex = query.bindRelevance(stmt, 1);
+            query.bindCondition(stmt, paramIndex);
+            if (ticket != null && !ticket.attach(stmt)) {
+                return songs;
             }
 
             ResultSet rs = stmt.executeQuery();
-
             while (rs.next()) {
                 Song song = new Song(
                         rs.getString("song_name"),
@@ -226,10 +597,10 @@ public class SongDAO {
                 songs.add(song);
             }
             logger.fine(() -> "DAO rows fetched=" + songs.size());
-        } catch (SQLException e) {
-            System.err.println("Error searching songs: " + e.getMessage());
-            e.printStackTrace();
         } finally {
+            if (ticket != null) {
+                ticket.detach();
+            }
             try {
                 if (stmt != null)
                     stmt.close();
@@ -239,7 +610,27 @@ public class SongDAO {
                 e.printStackTrace();
             }
         }
-
         return songs;
     }
-}
\ No newline at end of file
+
+    private int countSongs(SongSearchQuery query) throws SQLException {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = dbConnection.openconnection();
+            stmt = conn.prepareStatement("SELECT COUNT(*) FROM songs WHERE " + query.condition(""));
+            query.bindCondition(stmt, 1);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getInt(1) : 0;
+        } finally {
+            try {
+                if (stmt != null)
+                    stmt.close();
+                if (conn != null)
+                    dbConnection.closeConnection(conn);
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
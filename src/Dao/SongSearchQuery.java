@@ -0,0 +1,253 @@
+package Dao;
+
+import Model.Song;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.logging.Logger;
+import utils.SongSearchIndex;
+
+/**
+ * Builds the search condition shared by SongDAO and LikedSongDao.
+ *
+ * - Words of MIN_TOKEN_LENGTH or more characters become required prefix terms
+ *   (+word*) of one BOOLEAN MODE MATCH against the ft_song_search FULLTEXT
+ *   index on songs(song_name, artist, album). The same MATCH gives the
+ *   relevance used for ordering.
+ * - Shorter words are below InnoDB's innodb_ft_min_token_size and words on
+ *   InnoDB's default stopword list ("the", "and", "for", ...) are never
+ *   indexed, so both are matched with LIKE on the rows the index returns.
+ * - If the database has no FULLTEXT index yet (MySQL error 1191), callers
+ *   switch every later query to the LIKE-only form via disableFullText().
+ *
+ * matches() and narrows() apply the same word rules in memory, so
+ * SearchCache can answer a longer term from a cached shorter one.
+ */
+public final class SongSearchQuery {
+    private static final Logger logger = Logger.getLogger(SongSearchQuery.class.getName());
+
+    static final int MIN_TOKEN_LENGTH = 3;
+    static final int ER_FT_MATCHING_KEY_NOT_FOUND = 1191;
+
+    // INFORMATION_SCHEMA.INNODB_FT_DEFAULT_STOPWORD
+    private static final Set<String> STOPWORDS = Set.of("a", "about", "an", "are", "as", "at", "be", "by",
+            "com", "de", "en", "for", "from", "how", "i", "in", "is", "it", "la", "of", "on", "or", "that",
+            "the", "this", "to", "was", "what", "when", "where", "who", "will", "with", "und", "www");
+
+    private static volatile boolean fullTextAvailable = true;
+
+    private final List<String> indexedWords;
+    private final List<String> likeWords;
+
+    private SongSearchQuery(List<String> indexedWords, List<String> likeWords) {
+        this.indexedWords = indexedWords;
+        this.likeWords = likeWords;
+    }
+
+    /**
+     * Split a user search term into words
+     *
+     * @return the query, or null if the term has no searchable words
+     */
+    public static SongSearchQuery parse(String term) {
+        if (term == null) {
+            return null;
+        }
+        // Boolean-mode operators would change the meaning of the query
+        String cleaned = term.toLowerCase(Locale.ROOT).replaceAll("[+\\-<>()~*\"@]", " ").trim();
+        if (cleaned.isEmpty()) {
+            return null;
+        }
+        boolean fullText = fullTextAvailable;
+        List<String> indexed = new ArrayList<>();
+        List<String> like = new ArrayList<>();
+        for (String w : cleaned.split("\\s+")) {
+            if (w.isBlank()) {
+                continue;
+            }
+            (fullText && isIndexed(w) ? indexed : like).add(w);
+        }
+        return indexed.isEmpty() && like.isEmpty() ? null : new SongSearchQuery(indexed, like);
+    }
+
+    /**
+     * True if InnoDB puts the word in the FULLTEXT index
+     */
+    private static boolean isIndexed(String word) {
+        return word.length() >= MIN_TOKEN_LENGTH && !STOPWORDS.contains(word);
+    }
+
+    /**
+     * True if this query needs the FULLTEXT index
+     */
+    public boolean usesFullText() {
+        return !indexedWords.isEmpty();
+    }
+
+    /**
+     * In-memory version of condition(): every indexed word must start an
+     * indexed word of the title, artist or album, every LIKE word must occur
+     * anywhere in one of them
+     */
+    public boolean matches(Song song) {
+        String[] fields = { SongSearchIndex.normalize(song.getTitle()), SongSearchIndex.normalize(song.getArtist()),
+                SongSearchIndex.normalize(song.getAlbum()) };
+        for (String w : indexedWords) {
+            String word = SongSearchIndex.normalize(w);
+            boolean found = false;
+            for (String f : fields) {
+                for (String token : SongSearchIndex.tokenize(f)) {
+                    if (isIndexed(token) && token.startsWith(word)) {
+                        found = true;
+                        break;
+                    }
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        for (String w : likeWords) {
+            String word = SongSearchIndex.normalize(w);
+            if (!fields[0].contains(word) && !fields[1].contains(word) && !fields[2].contains(word)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * True if every row this query matches is also matched by base, i.e.
+     * each of base's words is implied by one of ours: an indexed word by an
+     * indexed word it starts, a LIKE word by any word containing it. Indexed
+     * words that are not a single plain token are never treated as implied.
+     */
+    public boolean narrows(SongSearchQuery base) {
+        for (String b : base.indexedWords) {
+            if (!isPlainToken(b) || indexedWords.stream().noneMatch(w -> isPlainToken(w) && w.startsWith(b))) {
+                return false;
+            }
+        }
+        for (String b : base.likeWords) {
+            if (indexedWords.stream().noneMatch(w -> isPlainToken(w) && w.contains(b))
+                    && likeWords.stream().noneMatch(w -> w.contains(b))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPlainToken(String word) {
+        List<String> tokens = SongSearchIndex.tokenize(word);
+        return tokens.size() == 1 && tokens.get(0).equals(word);
+    }
+
+    /**
+     * Same words, matched with LIKE only
+     */
+    SongSearchQuery withoutFullText() {
+        List<String> like = new ArrayList<>(indexedWords);
+        like.addAll(likeWords);
+        return new SongSearchQuery(List.of(), like);
+    }
+
+    /**
+     * Remember that the FULLTEXT index is missing so later searches skip it
+     */
+    static void disableFullText(SQLException cause) {
+        if (fullTextAvailable) {
+            fullTextAvailable = false;
+            logger.warning("FULLTEXT index ft_song_search not found, using LIKE search (" + cause.getMessage()
+                    + "). See Database/setup_database.sql.");
+        }
+    }
+
+    /**
+     * Relevance expression for the select list
+     *
+     * @param alias table alias for songs, e.g. "s." or ""
+     */
+    String relevance(String alias) {
+        return usesFullText() ? match(alias) : "0";
+    }
+
+    /**
+     * Search condition for the WHERE clause
+     *
+     * @param alias table alias for songs, e.g. "s." or ""
+     */
+    String condition(String alias) {
+        StringBuilder sql = new StringBuilder();
+        if (usesFullText()) {
+            sql.append(match(alias));
+        }
+        for (int i = 0; i < likeWords.size(); i++) {
+            if (sql.length() > 0) {
+                sql.append(" AND ");
+            }
+            sql.append('(').append(alias).append("song_name LIKE ? OR ")
+                    .append(alias).append("artist LIKE ? OR ")
+                    .append(alias).append("album LIKE ?)");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Bind the parameters of relevance()
+     *
+     * @return next parameter index
+     */
+    int bindRelevance(PreparedStatement stmt, int index) throws SQLException {
+        if (usesFullText()) {
+            stmt.setString(index++, booleanQuery());
+        }
+        return index;
+    }
+
+    /**
+     * Bind the parameters of condition()
+     *
+     * @return next parameter index
+     */
+    int bindCondition(PreparedStatement stmt, int index) throws SQLException {
+        if (usesFullText()) {
+            stmt.setString(index++, booleanQuery());
+        }
+        for (String w : likeWords) {
+            String like = "%" + w.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+            stmt.setString(index++, like);
+            stmt.setString(index++, like);
+            stmt.setString(index++, like);
+        }
+        return index;
+    }
+
+    /**
+     * ORDER BY / LIMIT tail; limit &lt;= 0 means no limit
+     */
+    static String page(String orderBy, int offset, int limit) {
+        String sql = " ORDER BY " + orderBy;
+        if (limit > 0) {
+            sql += " LIMIT " + limit + " OFFSET " + Math.max(0, offset);
+        }
+        return sql;
+    }
+
+    private String match(String alias) {
+        return "MATCH(" + alias + "song_name, " + alias + "artist, " + alias + "album) AGAINST (? IN BOOLEAN MODE)";
+    }
+
+    private String booleanQuery() {
+        StringBuilder q = new StringBuilder();
+        for (String w : indexedWords) {
+            if (q.length() > 0) {
+                q.append(' ');
+            }
+            q.append('+').append(w).append('*');
+        }
+        return q.toString();
+    }
+}
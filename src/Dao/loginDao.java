@@ -4,7 +4,8 @@
  */
 package Dao;
 
-import Database.MySqlConnection;
+import Database.ConnectionPool;
+import Database.Database;
 import Model.UserData;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -17,7 +18,7 @@ import java.sql.SQLException;
  * @author Asus
  */
 public class loginDao {
-    MySqlConnection mysql = new MySqlConnection();    
+    Database mysql = ConnectionPool.getInstance();    
     public UserData Login(UserData user) {
         Connection conn = mysql.openconnection();
         String sql = "Select * from users where (username = ? OR email = ?)";
@@ -4,7 +4,8 @@
  */
 package Dao;
 
-import Database.MySqlConnection;
+import Database.ConnectionPool;
+import Database.Database;
 import Model.UserData;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -19,8 +20,7 @@ import java.util.List;
  * @author Asus
  */
 public class userDao {
-    MySqlConnection mysql = new MySqlConnection() {
-    };
+    Database mysql = ConnectionPool.getInstance();
 
     public void signUp(UserData user) {
         Connection conn = mysql.openconnection();
@@ -0,0 +1,469 @@
+package Database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * ConnectionPool - Singleton pooled implementation of Database
+ *
+ * Keeps physical MySQL connections open between DAO calls so a like toggle
+ * or playlist open no longer pays a full TCP + auth handshake.
+ * Physical connections are still created by MySqlConnection.
+ *
+ * Key Features:
+ * - Bounded pool: callers wait up to borrowTimeout when all connections are in use
+ * - Idle eviction: connections idle longer than idleTimeout are closed (minIdle kept)
+ * - Validation on borrow: stale connections are discarded and replaced
+ * - Leak detection: borrows held longer than leakThreshold are logged with the
+ *   stack trace captured at the borrow site
+ * - Metrics: active/idle counts, borrow count, waits and total wait time
+ *
+ * Borrowed connections are proxies; close() (or closeConnection) returns them
+ * to the pool instead of closing the socket, so existing try-with-resources
+ * DAO code keeps working unchanged.
+ */
+public class ConnectionPool implements Database {
+    private static final Logger logger = Logger.getLogger(ConnectionPool.class.getName());
+    private static ConnectionPool instance;
+
+    private static final int MAX_SIZE = Integer.getInteger("mellow.db.pool.maxSize", 8);
+    private static final int MIN_IDLE = Integer.getInteger("mellow.db.pool.minIdle", 1);
+    private static final long BORROW_TIMEOUT_MS = Long.getLong("mellow.db.pool.borrowTimeoutMs", 10_000L);
+    private static final long IDLE_TIMEOUT_MS = Long.getLong("mellow.db.pool.idleTimeoutMs", 5 * 60_000L);
+    private static final long LEAK_THRESHOLD_MS = Long.getLong("mellow.db.pool.leakThresholdMs", 30_000L);
+    private static final long MAINTENANCE_INTERVAL_MS = 15_000L;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final MySqlConnection factory = new MySqlConnection();
+    private final Deque<PooledEntry> idle = new ArrayDeque<>();
+    private final Map<Connection, PooledEntry> borrowed = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService maintenance;
+    private int totalConnections = 0;
+    private boolean shutdown = false;
+
+    // Metrics
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong waitCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized ConnectionPool getInstance() {
+        if (instance == null) {
+            instance = new ConnectionPool();
+        }
+        return instance;
+    }
+
+    /**
+     * Private constructor - use getInstance()
+     */
+    private ConnectionPool() {
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        maintenance.scheduleWithFixedDelay(this::runMaintenance,
+                MAINTENANCE_INTERVAL_MS, MAINTENANCE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrow a connection from the pool.
+     * Returns null (like MySqlConnection) if no connection could be obtained.
+     */
+    @Override
+    public Connection openconnection() {
+        long start = System.nanoTime();
+        boolean waited = false;
+        try {
+            while (true) {
+                PooledEntry entry = null;
+                boolean create = false;
+                synchronized (this) {
+                    if (shutdown) {
+                        logger.warning("Connection requested after pool shutdown");
+                        return null;
+                    }
+                    if (!idle.isEmpty()) {
+                        entry = idle.pollFirst();
+                    } else if (totalConnections < MAX_SIZE) {
+                        totalConnections++;
+                        create = true;
+                    } else {
+                        long remaining = BORROW_TIMEOUT_MS - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                        if (remaining <= 0) {
+                            logger.warning("Timed out waiting for a pooled connection (" + describe() + ")");
+                            return null;
+                        }
+                        waited = true;
+                        wait(remaining);
+                        continue;
+                    }
+                }
+
+                if (create) {
+                    entry = createEntry();
+                    if (entry == null) {
+                        return null;
+                    }
+                } else if (!validate(entry)) {
+                    discard(entry);
+                    continue;
+                }
+                return lend(entry);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            if (waited) {
+                waitCount.incrementAndGet();
+                totalWaitNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Return a borrowed connection to the pool.
+     */
+    @Override
+    public void closeConnection(Connection conn) {
+        if (conn == null) {
+            return;
+        }
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Could not return connection to the pool", e);
+        }
+    }
+
+    @Override
+    public ResultSet runQuery(Connection conn, String Query) {
+        return factory.runQuery(conn, Query);
+    }
+
+    @Override
+    public int executeUpdate(Connection conn, String Query) {
+        return factory.executeUpdate(conn, Query);
+    }
+
+    /**
+     * Close every idle connection and refuse further borrows.
+     * Connections still borrowed are closed when they are returned.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            shutdown = true;
+            for (PooledEntry entry : idle) {
+                closeQuietly(entry.physical);
+                totalConnections--;
+            }
+            idle.clear();
+            notifyAll();
+        }
+        maintenance.shutdownNow();
+        logger.info("Connection pool shut down: " + getMetrics());
+    }
+
+    /**
+     * Get number of connections currently borrowed
+     */
+    public int getActiveCount() {
+        return borrowed.size();
+    }
+
+    /**
+     * Get number of connections currently idle in the pool
+     */
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Get a point-in-time snapshot of pool metrics
+     */
+    public synchronized PoolMetrics getMetrics() {
+        return new PoolMetrics(borrowed.size(), idle.size(), totalConnections,
+                borrowCount.get(), waitCount.get(), TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get()),
+                createdCount.get(), evictedCount.get(), leakCount.get());
+    }
+
+    private PooledEntry createEntry() {
+        Connection physical = factory.openconnection();
+        if (physical == null) {
+            synchronized (this) {
+                totalConnections--;
+                notifyAll();
+            }
+            return null;
+        }
+        createdCount.incrementAndGet();
+        return new PooledEntry(physical);
+    }
+
+    private boolean validate(PooledEntry entry) {
+        try {
+            return !entry.physical.isClosed() && entry.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection lend(PooledEntry entry) {
+        entry.borrowedAt = System.currentTimeMillis();
+        entry.borrowSite = new Throwable("Connection borrowed by thread " + Thread.currentThread().getName());
+        entry.leakReported = false;
+        Connection proxy = (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new Handler(entry));
+        borrowed.put(proxy, entry);
+        borrowCount.incrementAndGet();
+        return proxy;
+    }
+
+    private void release(Connection proxy, PooledEntry entry) {
+        borrowed.remove(proxy);
+        entry.borrowSite = null;
+        boolean healthy = resetState(entry.physical);
+        synchronized (this) {
+            if (healthy && !shutdown) {
+                entry.lastUsed = System.currentTimeMillis();
+                idle.addFirst(entry);
+            } else {
+                closeQuietly(entry.physical);
+                totalConnections--;
+            }
+            notifyAll();
+        }
+    }
+
+    /**
+     * Undo per-borrow changes so the next borrower gets a clean connection
+     */
+    private boolean resetState(Connection physical) {
+        try {
+            if (physical.isClosed()) {
+                return false;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (physical.isReadOnly()) {
+                physical.setReadOnly(false);
+            }
+            physical.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(PooledEntry entry) {
+        closeQuietly(entry.physical);
+        synchronized (this) {
+            totalConnections--;
+            notifyAll();
+        }
+        evictedCount.incrementAndGet();
+    }
+
+    /**
+     * Evict idle connections and report leaked borrows
+     */
+    private void runMaintenance() {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Iterator<PooledEntry> it = idle.descendingIterator();
+            while (it.hasNext() && idle.size() > MIN_IDLE) {
+                PooledEntry entry = it.next();
+                if (now - entry.lastUsed > IDLE_TIMEOUT_MS) {
+                    it.remove();
+                    closeQuietly(entry.physical);
+                    totalConnections--;
+                    evictedCount.incrementAndGet();
+                }
+            }
+        }
+
+        for (PooledEntry entry : borrowed.values()) {
+            Throwable site = entry.borrowSite;
+            if (!entry.leakReported && site != null && now - entry.borrowedAt > LEAK_THRESHOLD_MS) {
+                entry.leakReported = true;
+                leakCount.incrementAndGet();
+                logger.log(Level.WARNING, "Possible connection leak: held for "
+                        + (now - entry.borrowedAt) + " ms", site);
+            }
+        }
+    }
+
+    private String describe() {
+        return "active=" + borrowed.size() + ", idle=" + idle.size() + ", max=" + MAX_SIZE;
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    /**
+     * Pool bookkeeping for one physical connection
+     */
+    private static class PooledEntry {
+        private final Connection physical;
+        private volatile long lastUsed = System.currentTimeMillis();
+        private volatile long borrowedAt;
+        private volatile Throwable borrowSite;
+        private volatile boolean leakReported;
+
+        PooledEntry(Connection physical) {
+            this.physical = physical;
+        }
+    }
+
+    /**
+     * Routes calls to the physical connection; close() returns it to the pool
+     */
+    private class Handler implements InvocationHandler {
+        private final PooledEntry entry;
+        private boolean closed = false;
+
+        Handler(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    synchronized (this) {
+                        if (!closed) {
+                            closed = true;
+                            release((Connection) proxy, entry);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || entry.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + entry.physical + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            try {
+                return method.invoke(entry.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Immutable snapshot of pool metrics
+     */
+    public static class PoolMetrics {
+        private final int active;
+        private final int idle;
+        private final int total;
+        private final long borrows;
+        private final long waits;
+        private final long totalWaitMillis;
+        private final long created;
+        private final long evicted;
+        private final long leaks;
+
+        PoolMetrics(int active, int idle, int total, long borrows, long waits, long totalWaitMillis,
+                long created, long evicted, long leaks) {
+            this.active = active;
+            this.idle = idle;
+            this.total = total;
+            this.borrows = borrows;
+            this.waits = waits;
+            this.totalWaitMillis = totalWaitMillis;
+            this.created = created;
+            this.evicted = evicted;
+            this.leaks = leaks;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getIdle() {
+            return idle;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public long getBorrows() {
+            return borrows;
+        }
+
+        public long getWaits() {
+            return waits;
+        }
+
+        public long getTotalWaitMillis() {
+            return totalWaitMillis;
+        }
+
+        public double getAverageWaitMillis() {
+            return waits == 0 ? 0.0 : (double) totalWaitMillis / waits;
+        }
+
+        public long getCreated() {
+            return created;
+        }
+
+        public long getEvicted() {
+            return evicted;
+        }
+
+        public long getLeaks() {
+            return leaks;
+        }
+
+        @Override
+        public String toString() {
+            return "active=" + active + ", idle=" + idle + ", total=" + total
+                    + ", borrows=" + borrows + ", waits=" + waits
+                    + ", avgWaitMs=" + String.format("%.1f", getAverageWaitMillis())
+                    + ", created=" + created + ", evicted=" + evicted + ", leaks=" + leaks;
+        }
+    }
+}
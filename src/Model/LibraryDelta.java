@@ -0,0 +1,43 @@
+package Model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Model class describing how the local library changed between two scans
+ * - added: files that were not in the library before
+ * - changed: files whose size or modification time changed (re-extracted)
+ * - removed: absolute paths of files that no longer exist
+ */
+public class LibraryDelta {
+    private final List<Song> added;
+    private final List<Song> changed;
+    private final List<String> removedPaths;
+
+    public LibraryDelta(List<Song> added, List<Song> changed, List<String> removedPaths) {
+        this.added = added == null ? List.of() : Collections.unmodifiableList(added);
+        this.changed = changed == null ? List.of() : Collections.unmodifiableList(changed);
+        this.removedPaths = removedPaths == null ? List.of() : Collections.unmodifiableList(removedPaths);
+    }
+
+    public List<Song> getAdded() {
+        return added;
+    }
+
+    public List<Song> getChanged() {
+        return changed;
+    }
+
+    public List<String> getRemovedPaths() {
+        return removedPaths;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && changed.isEmpty() && removedPaths.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "added=" + added.size() + ", changed=" + changed.size() + ", removed=" + removedPaths.size();
+    }
+}
@@ -0,0 +1,101 @@
+package Model;
+
+/**
+ * Immutable playback state: song, playing flag, position, loop mode and
+ * play source, read together from PlaybackStateStore so they always match.
+ * 
+ * The with* methods return a copy with one field changed; the store stamps
+ * the version when it publishes the copy.
+ */
+public final class PlaybackSnapshot {
+    public static final PlaybackSnapshot EMPTY = new PlaybackSnapshot(0, null, false, 0, false, PlaySource.DASHBOARD);
+
+    private final long version;
+    private final Song song;
+    private final boolean playing;
+    private final long positionMillis;
+    private final boolean loop;
+    private final PlaySource source;
+
+    private PlaybackSnapshot(long version, Song song, boolean playing, long positionMillis, boolean loop,
+            PlaySource source) {
+        this.version = version;
+        this.song = song;
+        this.playing = playing;
+        this.positionMillis = positionMillis;
+        this.loop = loop;
+        this.source = source;
+    }
+
+    /**
+     * Increases by one with every published change
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public Song getSong() {
+        return song;
+    }
+
+    public boolean isPlaying() {
+        return playing;
+    }
+
+    /**
+     * Playback position in milliseconds
+     */
+    public long getPositionMillis() {
+        return positionMillis;
+    }
+
+    public boolean isLoop() {
+        return loop;
+    }
+
+    public PlaySource getSource() {
+        return source;
+    }
+
+    public PlaybackSnapshot withSong(Song song, boolean playing) {
+        return new PlaybackSnapshot(version, song, playing, positionMillis, loop, source);
+    }
+
+    public PlaybackSnapshot withSong(Song song) {
+        return new PlaybackSnapshot(version, song, playing, positionMillis, loop, source);
+    }
+
+    public PlaybackSnapshot withPlaying(boolean playing) {
+        return new PlaybackSnapshot(version, song, playing, positionMillis, loop, source);
+    }
+
+    public PlaybackSnapshot withPosition(long positionMillis) {
+        return new PlaybackSnapshot(version, song, playing, positionMillis, loop, source);
+    }
+
+    public PlaybackSnapshot withLoop(boolean loop) {
+        return new PlaybackSnapshot(version, song, playing, positionMillis, loop, source);
+    }
+
+    public PlaybackSnapshot withSource(PlaySource source) {
+        return new PlaybackSnapshot(version, song, playing, positionMillis, loop, source);
+    }
+
+    public PlaybackSnapshot withVersion(long version) {
+        return new PlaybackSnapshot(version, song, playing, positionMillis, loop, source);
+    }
+
+    /**
+     * Check if two snapshots hold the same state, ignoring the version
+     */
+    public boolean sameState(PlaybackSnapshot other) {
+        return other != null && song == other.song && playing == other.playing
+                && positionMillis == other.positionMillis && loop == other.loop && source == other.source;
+    }
+
+    @Override
+    public String toString() {
+        return "PlaybackSnapshot{v" + version + ", song=" + (song == null ? null : song.getTitle()) + ", playing="
+                + playing + ", position=" + positionMillis + ", loop=" + loop + ", source=" + source + "}";
+    }
+}
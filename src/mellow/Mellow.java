@@ -5,8 +5,12 @@
 package mellow;
 
 import Controller.LoginController;
+import Database.ConnectionPool;
 import Database.Database;
-import Database.MySqlConnection;
+import java.sql.Connection;
+import service.LikedSongStore;
+import utils.LoudnessStore;
+import utils.PlayCounts;
 import view.Login;
 
 /**
@@ -19,11 +23,13 @@ public class Mellow {
      * @param args the command line arguments
      */
     public static void main(String[] args) {
-        // Test database connection
-        Database db = new MySqlConnection();
-        if(db.openconnection() != null){
+        // Test database connection (warms the pool with its first connection)
+        Database db = ConnectionPool.getInstance();
+        Connection probe = db.openconnection();
+        if(probe != null){
             System.out.println("connection opened");
-            db.closeConnection(db.openconnection());
+            db.closeConnection(probe);
+            Runtime.getRuntime().addShutdownHook(new Thread(Mellow::shutdown, "mellow-shutdown"));
             
             // Open Login window as app entry
             Login loginView = new Login();
@@ -35,4 +41,15 @@ public class Mellow {
             System.err.println("Please check MySQL service is running and credentials are correct.");
         }
     }
+
+    /**
+     * One ordered shutdown sequence: pending likes still need the database,
+     * so they are flushed before the connection pool closes
+     */
+    private static void shutdown() {
+        LikedSongStore.flushOnExit();
+        PlayCounts.saveOnExit();
+        LoudnessStore.saveOnExit();
+        ConnectionPool.getInstance().shutdown();
+    }
 }
@@ -0,0 +1,158 @@
+package service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import javafx.application.Platform;
+import javafx.scene.media.MediaPlayer;
+
+/**
+ * CrossfadeEngine - Singleton that ramps one player out and the next in
+ *
+ * - Volumes follow an equal-power curve (cos/sin), so the overlap does not
+ *   dip or bulge in loudness
+ * - A dedicated timer thread ticks every TICK_MILLIS; each tick computes the
+ *   ramp position from System.nanoTime(), so a late tick just lands further
+ *   along the curve instead of stretching the fade
+ * - Volumes are applied on the FX thread; ticks are coalesced so a busy FX
+ *   thread never builds a backlog. The EDT is not involved at all.
+ *
+ * Only one fade runs at a time. start(), finishNow() and isFading() must be
+ * called on the FX thread.
+ */
+public class CrossfadeEngine {
+    private static final Logger logger = Logger.getLogger(CrossfadeEngine.class.getName());
+    private static final long TICK_MILLIS = 15;
+    private static CrossfadeEngine instance;
+
+    private final ScheduledExecutorService timer;
+    private final AtomicBoolean applyQueued = new AtomicBoolean(false);
+    private volatile Fade fade;
+    private ScheduledFuture<?> ticker;
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized CrossfadeEngine getInstance() {
+        if (instance == null) {
+            instance = new CrossfadeEngine();
+        }
+        return instance;
+    }
+
+    /**
+     * Private constructor - use getInstance()
+     */
+    private CrossfadeEngine() {
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "crossfade-timer");
+            t.setDaemon(true);
+            t.setPriority(Thread.MAX_PRIORITY);
+            return t;
+        });
+    }
+
+    /**
+     * Fade from one player to another over the given time. Any fade still
+     * running is finished first. The incoming player should already be
+     * playing (at volume 0).
+     *
+     * @param volume     volume the incoming player ends at
+     * @param onFinished called on the FX thread with the outgoing player once
+     *                   it is silent (or the fade was cut short)
+     */
+    public void start(MediaPlayer out, MediaPlayer in, double seconds, double volume,
+            Consumer<MediaPlayer> onFinished) {
+        finishNow();
+        Fade f = new Fade(out, in, out.getVolume(), volume, (long) (seconds * 1e9), onFinished);
+        in.setVolume(0);
+        fade = f;
+        ticker = timer.scheduleAtFixedRate(this::tick, 0, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        logger.fine(() -> "Crossfade started (" + seconds + " s)");
+    }
+
+    /**
+     * Jump to the end of the running fade, if any (skip, pause, stop)
+     */
+    public void finishNow() {
+        Fade f = fade;
+        if (f != null) {
+            complete(f);
+        }
+    }
+
+    public boolean isFading() {
+        return fade != null;
+    }
+
+    /**
+     * Set the volume the incoming player is heading for
+     */
+    public void setTargetVolume(double volume) {
+        Fade f = fade;
+        if (f != null) {
+            f.inVolume = volume;
+        }
+    }
+
+    private void tick() {
+        Fade f = fade;
+        if (f == null || !applyQueued.compareAndSet(false, true)) {
+            return;
+        }
+        Platform.runLater(() -> {
+            applyQueued.set(false);
+            if (fade != f) {
+                return;
+            }
+            double t = f.progress();
+            if (t >= 1) {
+                complete(f);
+                return;
+            }
+            // Equal-power curve
+            f.out.setVolume(f.outVolume * Math.cos(t * Math.PI / 2));
+            f.in.setVolume(f.inVolume * Math.sin(t * Math.PI / 2));
+        });
+    }
+
+    private void complete(Fade f) {
+        fade = null;
+        if (ticker != null) {
+            ticker.cancel(false);
+            ticker = null;
+        }
+        f.in.setVolume(f.inVolume);
+        f.out.setVolume(0);
+        f.onFinished.accept(f.out);
+        logger.fine("Crossfade finished");
+    }
+
+    private static final class Fade {
+        final MediaPlayer out;
+        final MediaPlayer in;
+        final double outVolume;
+        volatile double inVolume;
+        final long startNanos = System.nanoTime();
+        final long durationNanos;
+        final Consumer<MediaPlayer> onFinished;
+
+        Fade(MediaPlayer out, MediaPlayer in, double outVolume, double inVolume, long durationNanos,
+                Consumer<MediaPlayer> onFinished) {
+            this.out = out;
+            this.in = in;
+            this.outVolume = outVolume;
+            this.inVolume = inVolume;
+            this.durationNanos = Math.max(1, durationNanos);
+            this.onFinished = onFinished;
+        }
+
+        double progress() {
+            return Math.min(1.0, (double) (System.nanoTime() - startNanos) / durationNanos);
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package service;
+
+import Controller.SongController;
+import Dao.SongDAO;
+import Model.Song;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+import utils.SongCache;
+
+/**
+ * LibraryBootstrap - Singleton that loads the local library off the EDT
+ *
+ * - start() runs SongController.loadLocalSongsOnce() on a "library-bootstrap"
+ *   thread, so the dashboard shows up at once instead of after the scan
+ * - Songs known before the scan finishes (the indexed library, then new
+ *   files as they are extracted) reach listeners in pages of PAGE_SIZE, or
+ *   whatever arrived within PROGRESS_MILLIS
+ * - Every PROGRESS_MILLIS listeners get the scan's progress: files found,
+ *   files read and, once the walk is complete, an ETA
+ * - Views call whenReady() instead of reading SongCache when they open; the
+ *   callback runs as soon as SongCache holds the library (at once if it
+ *   already does)
+ *
+ * Listener methods and ready callbacks always run on the EDT. Later changes
+ * to the library still arrive through LibraryChangeNotifier.
+ */
+public class LibraryBootstrap {
+    private static final Logger logger = Logger.getLogger(LibraryBootstrap.class.getName());
+    private static final int PAGE_SIZE = Integer.getInteger("mellow.bootstrap.pageSize", 200);
+    private static final long PROGRESS_MILLIS = 250;
+    private static LibraryBootstrap instance;
+
+    /**
+     * Receives the library as it loads (on the EDT)
+     */
+    public interface Listener {
+        /**
+         * A page of songs found so far, in scan order
+         */
+        default void onSongs(List<Song> page) {
+        }
+
+        default void onProgress(Progress progress) {
+        }
+
+        /**
+         * SongCache now holds the whole library
+         */
+        default void onReady(List<Song> library) {
+        }
+    }
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<List<Song>>> readyCallbacks = new ArrayList<>();
+    private final List<Song> pending = new ArrayList<>();
+    private final ScheduledExecutorService progressTimer;
+    private volatile LibraryScanPipeline pipeline;
+    private volatile boolean ready = false;
+    private boolean started = false;
+    private long found = 0;
+    private long lastFlushAt;
+    private ScheduledFuture<?> progressTicks;
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized LibraryBootstrap getInstance() {
+        if (instance == null) {
+            instance = new LibraryBootstrap();
+        }
+        return instance;
+    }
+
+    /**
+     * Private constructor - use getInstance()
+     */
+    private LibraryBootstrap() {
+        progressTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "library-bootstrap-progress");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Load the library from rootPath in the background. Only the first call
+     * does anything.
+     */
+    public synchronized void start(String rootPath) {
+        if (started) {
+            return;
+        }
+        started = true;
+        lastFlushAt = System.nanoTime();
+        progressTicks = progressTimer.scheduleAtFixedRate(this::tick, PROGRESS_MILLIS, PROGRESS_MILLIS,
+                TimeUnit.MILLISECONDS);
+
+        Thread loader = new Thread(() -> load(rootPath), "library-bootstrap");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void addListener(Listener listener) {
+        if (listener != null) {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Run callback on the EDT with the library once it is loaded
+     */
+    public void whenReady(Consumer<List<Song>> callback) {
+        synchronized (readyCallbacks) {
+            if (!ready) {
+                readyCallbacks.add(callback);
+                return;
+            }
+        }
+        SwingUtilities.invokeLater(() -> callback.accept(SongCache.getAllSongs()));
+    }
+
+    private void load(String rootPath) {
+        long start = System.nanoTime();
+        try {
+            new SongController().loadLocalSongsOnce(rootPath, new SongDAO.RescanListener() {
+                @Override
+                public void scanStarted(LibraryScanPipeline p) {
+                    pipeline = p;
+                }
+
+                @Override
+                public void songFound(Song song) {
+                    add(song);
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Library loading failed", e);
+        } finally {
+            finish();
+        }
+        logger.info("Library ready with " + SongCache.getSize() + " songs in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+    }
+
+    private void add(Song song) {
+        List<Song> page = null;
+        synchronized (pending) {
+            pending.add(song);
+            found++;
+            if (pending.size() >= PAGE_SIZE) {
+                page = takePage();
+            }
+        }
+        deliver(page);
+    }
+
+    /**
+     * Timer: flush a partial page that has waited long enough, then report
+     * progress
+     */
+    private void tick() {
+        List<Song> page = null;
+        long count;
+        synchronized (pending) {
+            if (!pending.isEmpty()
+                    && System.nanoTime() - lastFlushAt >= TimeUnit.MILLISECONDS.toNanos(PROGRESS_MILLIS)) {
+                page = takePage();
+            }
+            count = found;
+        }
+        deliver(page);
+        Progress progress = progress(count);
+        if (!listeners.isEmpty()) {
+            SwingUtilities.invokeLater(() -> listeners.forEach(l -> l.onProgress(progress)));
+        }
+    }
+
+    /**
+     * Caller holds the pending lock
+     */
+    private List<Song> takePage() {
+        List<Song> page = new ArrayList<>(pending);
+        pending.clear();
+        lastFlushAt = System.nanoTime();
+        return page;
+    }
+
+    private void deliver(List<Song> page) {
+        if (page != null && !listeners.isEmpty()) {
+            SwingUtilities.invokeLater(() -> listeners.forEach(l -> l.onSongs(page)));
+        }
+    }
+
+    private void finish() {
+        synchronized (this) {
+            progressTicks.cancel(false);
+        }
+        List<Song> page;
+        synchronized (pending) {
+            page = pending.isEmpty() ? null : takePage();
+        }
+        deliver(page);
+
+        List<Consumer<List<Song>>> callbacks;
+        synchronized (readyCallbacks) {
+            ready = true;
+            callbacks = new ArrayList<>(readyCallbacks);
+            readyCallbacks.clear();
+        }
+        pipeline = null;
+        SwingUtilities.invokeLater(() -> {
+            List<Song> library = SongCache.getAllSongs();
+            listeners.forEach(l -> l.onReady(library));
+            callbacks.forEach(c -> c.accept(library));
+        });
+    }
+
+    private Progress progress(long songsFound) {
+        LibraryScanPipeline p = pipeline;
+        if (p == null) {
+            return new Progress(songsFound, 0, 0, false, -1);
+        }
+        LibraryScanPipeline.ScanStats stats = p.getStats();
+        long processed = stats.getExtracted() + stats.getFailed();
+        long total = stats.getWalked();
+        boolean counted = p.isWalkComplete();
+        long eta = -1;
+        double rate = stats.getExtractThroughput();
+        if (counted && rate > 0) {
+            eta = (long) (Math.max(0, total - processed) * 1000 / rate);
+        }
+        return new Progress(songsFound, processed, total, counted, eta);
+    }
+
+    /**
+     * Snapshot of the loading progress
+     */
+    public static final class Progress {
+        private final long songsFound;
+        private final long filesRead;
+        private final long filesToRead;
+        private final boolean counted;
+        private final long etaMillis;
+
+        Progress(long songsFound, long filesRead, long filesToRead, boolean counted, long etaMillis) {
+            this.songsFound = songsFound;
+            this.filesRead = filesRead;
+            this.filesToRead = filesToRead;
+            this.counted = counted;
+            this.etaMillis = etaMillis;
+        }
+
+        /**
+         * Songs handed to listeners so far
+         */
+        public long getSongsFound() {
+            return songsFound;
+        }
+
+        /**
+         * New or modified files read by the scan so far
+         */
+        public long getFilesRead() {
+            return filesRead;
+        }
+
+        /**
+         * New or modified files found by the scan so far (final once
+         * isCounted())
+         */
+        public long getFilesToRead() {
+            return filesToRead;
+        }
+
+        /**
+         * Check if the scan has walked the whole music folder
+         */
+        public boolean isCounted() {
+            return counted;
+        }
+
+        /**
+         * Estimated time left in milliseconds, or -1 while unknown
+         */
+        public long getEtaMillis() {
+            return etaMillis;
+        }
+
+        @Override
+        public String toString() {
+            if (filesToRead == 0) {
+                return "Loading library... " + songsFound + " songs";
+            }
+            if (counted && filesRead >= filesToRead) {
+                return "Updating library... " + filesToRead + " new or changed files";
+            }
+            String text = "Scanning music folder: " + filesRead + " of " + filesToRead + (counted ? "" : "+")
+                    + " files";
+            if (etaMillis >= 0) {
+                long seconds = (etaMillis + 999) / 1000;
+                text += String.format(", about %d:%02d left", seconds / 60, seconds % 60);
+            }
+            return text;
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package service;
+
+import Model.Song;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import utils.MetadataReader;
+
+/**
+ * LibraryScanPipeline - staged, parallel metadata extraction
+ *
+ * Stages:
+ * - Walker: one thread walks the directory tree and feeds a bounded path queue
+ * - Extractors: a pool of workers (platform or virtual threads) call MetadataReader
+ * - Sink: the calling thread drains a bounded result queue into a Consumer,
+ *   either in walk order (ORDERED) or as soon as each file is done (UNORDERED)
+ *
+ * Both queues are bounded, so a slow sink throttles the extractors and slow
+ * extractors throttle the walker. In ORDERED mode the walker also holds one
+ * permit per path until the sink has passed it, so results parked behind a
+ * slow file never exceed queueCapacity + workerCount and the walk stalls
+ * behind the head of the line instead of extracting the rest of the library
+ * into memory. Files that fail to parse are counted and
+ * skipped without failing the scan. A pipeline runs one scan at a time and
+ * can be cancelled from any thread.
+ */
+public class LibraryScanPipeline {
+    private static final Logger logger = Logger.getLogger(LibraryScanPipeline.class.getName());
+
+    private static final int DEFAULT_WORKERS = Integer.getInteger("mellow.scan.workers",
+            Math.max(2, Runtime.getRuntime().availableProcessors()));
+    private static final boolean DEFAULT_VIRTUAL = Boolean.getBoolean("mellow.scan.virtualThreads");
+    private static final int DEFAULT_QUEUE_CAPACITY = 256;
+    private static final long POLL_INTERVAL_MS = 100;
+
+    /**
+     * Order in which extracted songs reach the sink
+     */
+    public enum SinkOrder {
+        ORDERED,
+        UNORDERED
+    }
+
+    private final MetadataReader reader;
+    private final Predicate<Path> filter;
+    private final int workerCount;
+    private final boolean virtualThreads;
+    private final int queueCapacity;
+    private final SinkOrder order;
+
+    private volatile boolean cancelled = false;
+    private volatile boolean walkComplete = false;
+    private volatile Thread walkerThread;
+    private volatile ExecutorService workers;
+
+    // Per-stage counters (live while a scan is running)
+    private final AtomicLong walked = new AtomicLong();
+    private final AtomicLong extracted = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private volatile long startNanos;
+    private volatile long walkNanos;
+    private volatile long extractNanos;
+    private volatile long endNanos;
+
+    /**
+     * Create a pipeline with default worker count, platform threads and walk
+     * order delivery
+     */
+    public LibraryScanPipeline(MetadataReader reader, Predicate<Path> filter) {
+        this(reader, filter, DEFAULT_WORKERS, DEFAULT_VIRTUAL, DEFAULT_QUEUE_CAPACITY, SinkOrder.ORDERED);
+    }
+
+    /**
+     * @param reader         metadata reader shared by all extractor workers
+     * @param filter         which regular files to extract (e.g. supported
+     *                       extensions)
+     * @param workerCount    number of extractor workers
+     * @param virtualThreads run extractors on virtual threads instead of a
+     *                       fixed platform pool
+     * @param queueCapacity  capacity of each inter-stage queue
+     * @param order          delivery order of the sink
+     */
+    public LibraryScanPipeline(MetadataReader reader, Predicate<Path> filter, int workerCount,
+            boolean virtualThreads, int queueCapacity, SinkOrder order) {
+        this.reader = reader;
+        this.filter = filter;
+        this.workerCount = Math.max(1, workerCount);
+        this.virtualThreads = virtualThreads;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.order = order == null ? SinkOrder.ORDERED : order;
+    }
+
+    /**
+     * Scan root and deliver every extracted song to sink on the calling
+     * thread. Blocks until the walk is complete, the scan is cancelled or the
+     * calling thread is interrupted.
+     *
+     * @return final counters for the scan
+     */
+    public ScanStats run(Path root, Consumer<Song> sink) {
+        resetCounters();
+        if (root == null) {
+            return getStats();
+        }
+
+        BlockingQueue<WorkItem> paths = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<WorkItem> results = new ArrayBlockingQueue<>(queueCapacity);
+        // Paths walked but not yet passed to the sink (ORDERED only)
+        Semaphore window = order == SinkOrder.ORDERED ? new Semaphore(queueCapacity + workerCount) : null;
+
+        workers = virtualThreads
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(workerCount, daemonFactory("scan-extractor-"));
+        walkerThread = new Thread(() -> walk(root, paths, window), "scan-walker");
+        walkerThread.setDaemon(true);
+        walkerThread.start();
+
+        AtomicInteger liveWorkers = new AtomicInteger(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(() -> extractLoop(paths, results, liveWorkers));
+        }
+
+        try {
+            drain(results, sink, window);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+        } finally {
+            workers.shutdownNow();
+            walkerThread.interrupt();
+            endNanos = System.nanoTime();
+        }
+
+        ScanStats stats = getStats();
+        logger.info("Library scan " + (cancelled ? "cancelled" : "finished") + ": " + stats);
+        logger.fine(() -> "Metadata: " + reader.getStats());
+        return stats;
+    }
+
+    /**
+     * Stop the running scan. Songs already delivered are kept by the caller.
+     */
+    public void cancel() {
+        cancelled = true;
+        Thread walker = walkerThread;
+        if (walker != null) {
+            walker.interrupt();
+        }
+        ExecutorService pool = workers;
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Check if the current or last scan was cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Check if the last walk visited the whole tree (not cancelled and no
+     * I/O error cut it short)
+     */
+    public boolean isWalkComplete() {
+        return walkComplete;
+    }
+
+    /**
+     * Get a snapshot of the per-stage counters (safe to call mid-scan)
+     */
+    public ScanStats getStats() {
+        long now = endNanos == 0 ? System.nanoTime() : endNanos;
+        long elapsed = startNanos == 0 ? 0 : now - startNanos;
+        return new ScanStats(walked.get(), extracted.get(), failed.get(), delivered.get(),
+                walkNanos == 0 ? elapsed : walkNanos,
+                extractNanos == 0 ? elapsed : extractNanos,
+                elapsed);
+    }
+
+    private void resetCounters() {
+        cancelled = false;
+        walkComplete = false;
+        walked.set(0);
+        extracted.set(0);
+        failed.set(0);
+        delivered.set(0);
+        walkNanos = 0;
+        extractNanos = 0;
+        endNanos = 0;
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Stage 1: walk the tree, filter and enqueue paths in walk order
+     */
+    private void walk(Path root, BlockingQueue<WorkItem> paths, Semaphore window) {
+        long seq = 0;
+        try (Stream<Path> stream = Files.walk(root)) {
+            Iterator<Path> it = stream.iterator();
+            while (!cancelled && it.hasNext()) {
+                Path p = it.next();
+                if (!Files.isRegularFile(p) || !filter.test(p)) {
+                    continue;
+                }
+                if (window != null) {
+                    window.acquire();
+                }
+                paths.put(new WorkItem(seq++, p, null));
+                walked.incrementAndGet();
+            }
+            walkComplete = !cancelled;
+        } catch (IOException | UncheckedIOException e) {
+            // Keep what was walked so far, same as the old sequential scan
+            logger.fine(() -> "Walk stopped early: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } finally {
+            walkNanos = System.nanoTime() - startNanos;
+        }
+
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                paths.put(WorkItem.END);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stage 2: extract metadata until the walker signals the end
+     */
+    private void extractLoop(BlockingQueue<WorkItem> paths, BlockingQueue<WorkItem> results,
+            AtomicInteger liveWorkers) {
+        try {
+            while (!cancelled) {
+                WorkItem item = paths.take();
+                if (item == WorkItem.END) {
+                    break;
+                }
+                Song song = null;
+                try {
+                    song = reader.extract(item.path);
+                    extracted.incrementAndGet();
+                } catch (Exception e) {
+                    // Skip problematic files without failing the entire scan
+                    failed.incrementAndGet();
+                }
+                // Failures still flow downstream so the ordered sink can advance
+                results.put(new WorkItem(item.seq, item.path, song));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Last worker out closes the result stream, even if a worker died
+            if (liveWorkers.decrementAndGet() == 0) {
+                extractNanos = System.nanoTime() - startNanos;
+                try {
+                    results.put(WorkItem.END);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Stage 3: deliver results to the sink on the calling thread
+     */
+    private void drain(BlockingQueue<WorkItem> results, Consumer<Song> sink, Semaphore window)
+            throws InterruptedException {
+        Map<Long, WorkItem> pending = new HashMap<>();
+        long nextSeq = 0;
+
+        while (!cancelled) {
+            WorkItem item = results.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            if (item == null) {
+                continue;
+            }
+            if (item == WorkItem.END) {
+                return;
+            }
+            if (order == SinkOrder.UNORDERED) {
+                deliver(item, sink);
+                continue;
+            }
+            pending.put(item.seq, item);
+            WorkItem ready;
+            while ((ready = pending.remove(nextSeq)) != null) {
+                deliver(ready, sink);
+                window.release();
+                nextSeq++;
+            }
+        }
+    }
+
+    private void deliver(WorkItem item, Consumer<Song> sink) {
+        if (item.song != null) {
+            sink.accept(item.song);
+            delivered.incrementAndGet();
+        }
+    }
+
+    private static java.util.concurrent.ThreadFactory daemonFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * A path travelling through the pipeline, tagged with its walk order
+     */
+    private static final class WorkItem {
+        static final WorkItem END = new WorkItem(-1, null, null);
+
+        final long seq;
+        final Path path;
+        final Song song;
+
+        WorkItem(long seq, Path path, Song song) {
+            this.seq = seq;
+            this.path = path;
+            this.song = song;
+        }
+    }
+
+    /**
+     * Immutable per-stage counters and throughput for one scan
+     */
+    public static class ScanStats {
+        private final long walked;
+        private final long extracted;
+        private final long failed;
+        private final long delivered;
+        private final long walkNanos;
+        private final long extractNanos;
+        private final long totalNanos;
+
+        ScanStats(long walked, long extracted, long failed, long delivered,
+                long walkNanos, long extractNanos, long totalNanos) {
+            this.walked = walked;
+            this.extracted = extracted;
+            this.failed = failed;
+            this.delivered = delivered;
+            this.walkNanos = walkNanos;
+            this.extractNanos = extractNanos;
+            this.totalNanos = totalNanos;
+        }
+
+        public long getWalked() {
+            return walked;
+        }
+
+        public long getExtracted() {
+            return extracted;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getDelivered() {
+            return delivered;
+        }
+
+        public long getTotalMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(totalNanos);
+        }
+
+        /**
+         * Files discovered per second by the walker
+         */
+        public double getWalkThroughput() {
+            return perSecond(walked, walkNanos);
+        }
+
+        /**
+         * Files parsed (or skipped) per second by the extractor pool
+         */
+        public double getExtractThroughput() {
+            return perSecond(extracted + failed, extractNanos);
+        }
+
+        /**
+         * Songs per second delivered to the sink
+         */
+        public double getSinkThroughput() {
+            return perSecond(delivered, totalNanos);
+        }
+
+        private static double perSecond(long count, long nanos) {
+            return nanos <= 0 ? 0.0 : count * 1_000_000_000.0 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("walked=%d (%.0f/s), extracted=%d failed=%d (%.0f/s), delivered=%d (%.0f/s), %d ms",
+                    walked, getWalkThroughput(), extracted, failed, getExtractThroughput(),
+                    delivered, getSinkThroughput(), getTotalMillis());
+        }
+    }
+}
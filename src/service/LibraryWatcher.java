@@ -0,0 +1,371 @@
+package service;
+
+import Dao.SongDAO;
+import Model.LibraryDelta;
+import Model.Song;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import javax.swing.SwingUtilities;
+import utils.LibraryChangeNotifier;
+import utils.MetadataReader;
+import utils.ScanIndex;
+import utils.SongCache;
+
+/**
+ * LibraryWatcher - Singleton that keeps SongCache in sync with the music folder
+ *
+ * Registers every directory under the library root with a WatchService
+ * (new sub-directories are registered as they appear). File events are not
+ * handled one by one: changed paths are collected and flushed as a single
+ * batch once the folder has been quiet for QUIET_PERIOD_MS, or at the latest
+ * after MAX_BATCH_DELAY_MS during a long copy.
+ *
+ * Each batch only touches the paths that changed: new or modified audio
+ * files go through MetadataReader, missing ones are removed. The resulting
+ * LibraryDelta is applied to SongCache on the EDT, recorded in the ScanIndex
+ * and broadcast through LibraryChangeNotifier. If the WatchService overflows
+ * (events were dropped), an incremental rescan against the ScanIndex is run
+ * instead.
+ */
+public class LibraryWatcher {
+    private static final Logger logger = Logger.getLogger(LibraryWatcher.class.getName());
+    private static LibraryWatcher instance;
+
+    private static final long QUIET_PERIOD_MS = 750;
+    private static final long MAX_BATCH_DELAY_MS = 5_000;
+
+    private final SongDAO songDAO = new SongDAO();
+    private final Map<WatchKey, Path> watchedDirs = new HashMap<>();
+    private final Set<Path> pending = new LinkedHashSet<>();
+    private final ScheduledExecutorService batcher;
+
+    private WatchService watchService;
+    private Thread watchThread;
+    private Path root;
+    private MetadataReader reader;
+    private ScanIndex index;
+    private ScheduledFuture<?> scheduledFlush;
+    private long firstPendingAt = 0;
+    private boolean overflowed = false;
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized LibraryWatcher getInstance() {
+        if (instance == null) {
+            instance = new LibraryWatcher();
+        }
+        return instance;
+    }
+
+    /**
+     * Private constructor - use getInstance()
+     */
+    private LibraryWatcher() {
+        this.batcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "library-watch-batcher");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    /**
+     * Start watching root. Does nothing if root is already being watched.
+     *
+     * @param root   library root folder
+     * @param reader metadata reader used for changed files
+     * @param index  scan index kept up to date with every batch (may be null)
+     */
+    public synchronized void start(Path root, MetadataReader reader, ScanIndex index) {
+        if (root == null || !Files.isDirectory(root)) {
+            logger.warning("Library watcher not started, folder missing: " + root);
+            return;
+        }
+        Path absRoot = root.toAbsolutePath();
+        if (watchThread != null && absRoot.equals(this.root)) {
+            return;
+        }
+        stop();
+
+        this.root = absRoot;
+        this.reader = reader;
+        this.index = index;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            registerTree(absRoot);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not start library watcher", e);
+            return;
+        }
+
+        watchThread = new Thread(this::watchLoop, "library-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+        logger.info("Watching " + watchedDirs.size() + " folders under " + absRoot);
+    }
+
+    /**
+     * Stop watching. Pending events are discarded.
+     */
+    public synchronized void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+            }
+        }
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        watchService = null;
+        watchThread = null;
+        watchedDirs.clear();
+        pending.clear();
+        firstPendingAt = 0;
+        overflowed = false;
+    }
+
+    /**
+     * Check if the watcher is running
+     */
+    public synchronized boolean isRunning() {
+        return watchThread != null;
+    }
+
+    /**
+     * Register dir and every directory below it
+     */
+    private void registerTree(Path dir) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) throws IOException {
+                WatchKey key = d.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+                watchedDirs.put(key, d);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void watchLoop() {
+        WatchService ws;
+        synchronized (this) {
+            ws = watchService;
+        }
+        while (ws != null) {
+            WatchKey key;
+            try {
+                key = ws.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            synchronized (this) {
+                if (ws != watchService) {
+                    return;
+                }
+                Path dir = watchedDirs.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        overflowed = true;
+                        continue;
+                    }
+                    if (dir == null) {
+                        continue;
+                    }
+                    Path child = dir.resolve((Path) event.context());
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(child)) {
+                        onDirectoryCreated(child);
+                    } else {
+                        pending.add(child);
+                    }
+                }
+                if (!key.reset()) {
+                    // Directory deleted or inaccessible; its songs are removed in the batch
+                    Path gone = watchedDirs.remove(key);
+                    if (gone != null) {
+                        pending.add(gone);
+                    }
+                }
+                scheduleFlush();
+            }
+        }
+    }
+
+    /**
+     * A folder was created or moved in: watch it and queue the files it
+     * already contains (they produce no events of their own)
+     */
+    private void onDirectoryCreated(Path dir) {
+        try {
+            registerTree(dir);
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.filter(Files::isRegularFile).forEach(pending::add);
+            }
+        } catch (IOException e) {
+            logger.fine(() -> "Could not register new folder " + dir + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Debounce: push the flush back while events keep coming, but never
+     * beyond MAX_BATCH_DELAY_MS from the first pending event
+     */
+    private void scheduleFlush() {
+        if (pending.isEmpty() && !overflowed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (firstPendingAt == 0) {
+            firstPendingAt = now;
+        }
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+        }
+        long delay = Math.min(QUIET_PERIOD_MS, Math.max(0, firstPendingAt + MAX_BATCH_DELAY_MS - now));
+        scheduledFlush = batcher.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Process everything collected since the last flush as one batch
+     */
+    private void flush() {
+        List<Path> batch;
+        boolean rescan;
+        Path batchRoot;
+        MetadataReader batchReader;
+        ScanIndex batchIndex;
+        synchronized (this) {
+            batch = new ArrayList<>(pending);
+            rescan = overflowed;
+            pending.clear();
+            overflowed = false;
+            firstPendingAt = 0;
+            scheduledFlush = null;
+            batchRoot = root;
+            batchReader = reader;
+            batchIndex = index;
+        }
+        if (batchRoot == null) {
+            return;
+        }
+
+        try {
+            LibraryDelta delta;
+            if (rescan && batchIndex != null) {
+                logger.info("Watch events overflowed, running incremental rescan");
+                delta = songDAO.rescanSongs(batchRoot, batchReader, batchIndex);
+            } else {
+                delta = processBatch(batch, batchReader, batchIndex);
+            }
+            publish(delta);
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Library watch batch failed", e);
+        }
+    }
+
+    private LibraryDelta processBatch(List<Path> batch, MetadataReader batchReader, ScanIndex batchIndex) {
+        Set<String> known;
+        if (batchIndex != null) {
+            known = batchIndex.paths();
+        } else {
+            known = new HashSet<>();
+            for (Song s : SongCache.getAllSongs()) {
+                known.add(s.getFilePath());
+            }
+        }
+
+        // Sorted copy for deleted folders, built on the first deletion
+        NavigableSet<String> sortedKnown = null;
+
+        List<Song> added = new ArrayList<>();
+        List<Song> changed = new ArrayList<>();
+        Set<String> removed = new LinkedHashSet<>();
+        for (Path p : batch) {
+            String key = p.toAbsolutePath().toString();
+            if (Files.isRegularFile(p)) {
+                if (!songDAO.isSupportedAudio(p)) {
+                    continue;
+                }
+                try {
+                    BasicFileAttributes attrs = Files.readAttributes(p, BasicFileAttributes.class);
+                    long mtime = attrs.lastModifiedTime().toMillis();
+                    if (batchIndex != null && batchIndex.isUnchanged(key, attrs.size(), mtime) && known.contains(key)) {
+                        continue;
+                    }
+                    Song song = songDAO.readSong(p, batchReader);
+                    (known.contains(key) ? changed : added).add(song);
+                    if (batchIndex != null) {
+                        batchIndex.put(song, attrs.size(), mtime);
+                    }
+                } catch (Exception e) {
+                    // Skip problematic files (often still being copied; a later MODIFY retries)
+                }
+            } else if (!Files.exists(p)) {
+                // A deleted file, or a deleted folder: drop everything under it
+                if (sortedKnown == null) {
+                    sortedKnown = new TreeSet<>(known);
+                }
+                List<String> gone = new ArrayList<>();
+                if (known.contains(key)) {
+                    gone.add(key);
+                }
+                String prefix = key + p.getFileSystem().getSeparator();
+                gone.addAll(sortedKnown.subSet(prefix, prefix + Character.MAX_VALUE));
+                for (String path : gone) {
+                    removed.add(path);
+                    if (batchIndex != null) {
+                        batchIndex.remove(path);
+                    }
+                }
+            }
+        }
+        if (batchIndex != null && !(added.isEmpty() && changed.isEmpty() && removed.isEmpty())) {
+            batchIndex.save();
+        }
+        return new LibraryDelta(added, changed, new ArrayList<>(removed));
+    }
+
+    private void publish(LibraryDelta delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        logger.info("Library changed on disk: " + delta);
+        SwingUtilities.invokeLater(() -> SongCache.applyDelta(delta));
+        LibraryChangeNotifier.notifyChanged(delta);
+    }
+}
@@ -0,0 +1,315 @@
+package service;
+
+import Dao.LikedSongDao;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * LikedSongStore - Singleton holding the logged-in user's liked song IDs
+ *
+ * - Loaded once per user (at login, or on first use) into a primitive int
+ *   hash set; isLiked() is O(1) and never touches the database
+ * - setLiked() updates memory at once and queues the change; the queue is
+ *   written behind in one transaction FLUSH_DELAY_MILLIS after the first
+ *   queued change. Repeated toggles of a song collapse into its last state
+ * - A failed flush keeps its changes queued (newer toggles win) and is
+ *   retried with backoff, up to MAX_RETRY_DELAY_MILLIS apart
+ * - logout() and flushOnExit() flush synchronously; Mellow's shutdown
+ *   sequence calls flushOnExit() while the connection pool is still open
+ *
+ * Queued changes are keyed by user and song, so a logout flush that fails
+ * is still retried for the right user.
+ */
+public class LikedSongStore {
+    private static final Logger logger = Logger.getLogger(LikedSongStore.class.getName());
+    private static final long FLUSH_DELAY_MILLIS = 2000;
+    private static final long MAX_RETRY_DELAY_MILLIS = 60_000;
+    private static LikedSongStore instance;
+
+    private final LikedSongDao likedSongDao = new LikedSongDao();
+    private final ScheduledExecutorService writer;
+    private final Object flushLock = new Object();
+
+    private int userId = 0;
+    private IntHashSet liked = new IntHashSet();
+    // (userId << 32 | songId) -> true to like, false to unlike; insertion order
+    private final LinkedHashMap<Long, Boolean> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private long retryDelay = FLUSH_DELAY_MILLIS;
+    private boolean exiting = false;
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized LikedSongStore getInstance() {
+        if (instance == null) {
+            instance = new LikedSongStore();
+        }
+        return instance;
+    }
+
+    /**
+     * Private constructor - use getInstance()
+     */
+    private LikedSongStore() {
+        writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "liked-songs-writer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Final synchronous flush on exit, before the connection pool shuts
+     * down. Does nothing if the store was never used.
+     *
+     * @return true if nothing was left unsaved
+     */
+    public static boolean flushOnExit() {
+        LikedSongStore store;
+        synchronized (LikedSongStore.class) {
+            store = instance;
+        }
+        if (store == null) {
+            return true;
+        }
+        synchronized (store) {
+            store.exiting = true;
+        }
+        return store.flush();
+    }
+
+    /**
+     * Load a user's liked songs, replacing whatever was held for the
+     * previous user. Changes still queued for this user are kept on top.
+     *
+     * @return false if the database could not be read
+     */
+    public boolean load(int userId) {
+        int[] ids;
+        // Wait for an in-flight flush so the read sees its changes
+        synchronized (flushLock) {
+            ids = likedSongDao.getLikedSongIds(userId);
+        }
+        if (ids == null) {
+            return false;
+        }
+        IntHashSet set = new IntHashSet();
+        for (int id : ids) {
+            set.add(id);
+        }
+        synchronized (this) {
+            for (Map.Entry<Long, Boolean> change : pending.entrySet()) {
+                if ((int) (change.getKey() >>> 32) == userId) {
+                    int songId = (int) (long) change.getKey();
+                    if (change.getValue()) {
+                        set.add(songId);
+                    } else {
+                        set.remove(songId);
+                    }
+                }
+            }
+            this.userId = userId;
+            this.liked = set;
+        }
+        logger.info("Loaded " + set.size() + " liked songs for user " + userId);
+        return true;
+    }
+
+    /**
+     * Check if the user liked a song. Loads the user's likes first if they
+     * are not held yet (e.g. a login path that did not call load()).
+     */
+    public boolean isLiked(int userId, int songId) {
+        if (userId <= 0 || songId <= 0) {
+            return false;
+        }
+        synchronized (this) {
+            if (this.userId == userId) {
+                return liked.contains(songId);
+            }
+        }
+        return load(userId) && isLiked(userId, songId);
+    }
+
+    /**
+     * Like or unlike a song; memory changes now, the database shortly after
+     */
+    public void setLiked(int userId, int songId, boolean like) {
+        if (userId <= 0 || songId <= 0) {
+            return;
+        }
+        if (!isLoaded(userId)) {
+            load(userId);
+        }
+        synchronized (this) {
+            if (this.userId == userId) {
+                if (like) {
+                    liked.add(songId);
+                } else {
+                    liked.remove(songId);
+                }
+            }
+            Long key = ((long) userId << 32) | (songId & 0xFFFFFFFFL);
+            pending.remove(key);
+            pending.put(key, like);
+            scheduleFlush(FLUSH_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * Write all queued changes now. Safe to call from any thread; returns
+     * once the queue has been attempted.
+     *
+     * @return true if nothing is left queued
+     */
+    public boolean flush() {
+        synchronized (flushLock) {
+            Map<Integer, Map<Integer, Boolean>> byUser = new LinkedHashMap<>();
+            synchronized (this) {
+                if (scheduledFlush != null) {
+                    scheduledFlush.cancel(false);
+                    scheduledFlush = null;
+                }
+                if (pending.isEmpty()) {
+                    return true;
+                }
+                for (Map.Entry<Long, Boolean> change : pending.entrySet()) {
+                    byUser.computeIfAbsent((int) (change.getKey() >>> 32), u -> new LinkedHashMap<>())
+                            .put((int) (long) change.getKey(), change.getValue());
+                }
+                pending.clear();
+            }
+
+            Map<Long, Boolean> failed = new HashMap<>();
+            for (Map.Entry<Integer, Map<Integer, Boolean>> batch : byUser.entrySet()) {
+                if (!likedSongDao.applyLikeChanges(batch.getKey(), batch.getValue())) {
+                    for (Map.Entry<Integer, Boolean> change : batch.getValue().entrySet()) {
+                        failed.put(((long) batch.getKey() << 32) | (change.getKey() & 0xFFFFFFFFL),
+                                change.getValue());
+                    }
+                }
+            }
+
+            synchronized (this) {
+                // Changes queued while writing are newer; keep them
+                for (Map.Entry<Long, Boolean> change : failed.entrySet()) {
+                    pending.putIfAbsent(change.getKey(), change.getValue());
+                }
+                if (failed.isEmpty()) {
+                    retryDelay = FLUSH_DELAY_MILLIS;
+                } else if (exiting) {
+                    // The writer dies with the JVM; a retry would never run
+                    logger.warning("Could not save " + failed.size() + " liked song changes before exit");
+                } else {
+                    logger.warning("Could not save " + failed.size() + " liked song changes; retrying in "
+                            + retryDelay + " ms");
+                    scheduleFlush(retryDelay);
+                    retryDelay = Math.min(MAX_RETRY_DELAY_MILLIS, retryDelay * 2);
+                }
+                return pending.isEmpty();
+            }
+        }
+    }
+
+    /**
+     * Flush queued changes and forget the user's likes (call on logout)
+     */
+    public void logout() {
+        flush();
+        synchronized (this) {
+            userId = 0;
+            liked = new IntHashSet();
+        }
+    }
+
+    private synchronized boolean isLoaded(int userId) {
+        return this.userId == userId;
+    }
+
+    private void scheduleFlush(long delayMillis) {
+        if (scheduledFlush == null || scheduledFlush.isDone()) {
+            scheduledFlush = writer.schedule(this::flush, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Open-addressing set of positive ints (0 marks an empty slot)
+     */
+    static final class IntHashSet {
+        private int[] slots = new int[16];
+        private int size = 0;
+
+        boolean contains(int value) {
+            int mask = slots.length - 1;
+            for (int i = mix(value) & mask;; i = (i + 1) & mask) {
+                if (slots[i] == value) {
+                    return true;
+                }
+                if (slots[i] == 0) {
+                    return false;
+                }
+            }
+        }
+
+        void add(int value) {
+            if (value <= 0 || contains(value)) {
+                return;
+            }
+            if ((size + 1) * 2 > slots.length) {
+                int[] old = slots;
+                slots = new int[old.length * 2];
+                for (int v : old) {
+                    if (v != 0) {
+                        insert(v);
+                    }
+                }
+            }
+            insert(value);
+            size++;
+        }
+
+        void remove(int value) {
+            int mask = slots.length - 1;
+            int i = mix(value) & mask;
+            while (slots[i] != value) {
+                if (slots[i] == 0) {
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            slots[i] = 0;
+            size--;
+            // Re-place the rest of the cluster so lookups do not stop early
+            for (int j = (i + 1) & mask; slots[j] != 0; j = (j + 1) & mask) {
+                int v = slots[j];
+                slots[j] = 0;
+                insert(v);
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void insert(int value) {
+            int mask = slots.length - 1;
+            int i = mix(value) & mask;
+            while (slots[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            slots[i] = value;
+        }
+
+        private static int mix(int value) {
+            int h = value * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
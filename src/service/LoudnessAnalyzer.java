@@ -0,0 +1,394 @@
+package service;
+
+import Model.Song;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.tag.Tag;
+import org.jaudiotagger.tag.TagField;
+import org.jaudiotagger.tag.TagTextField;
+import org.jaudiotagger.tag.id3.AbstractTagFrame;
+import org.jaudiotagger.tag.id3.framebody.FrameBodyTXXX;
+import utils.LoudnessMeter;
+import utils.LoudnessStore;
+import utils.NowPlayingState;
+
+/**
+ * LoudnessAnalyzer - Singleton that measures track loudness in the background
+ *
+ * - Each queued file is decoded to PCM through javax.sound (WAV, AIFF, AU,
+ *   plus whatever decoder SPIs are on the classpath) and run through a
+ *   LoudnessMeter. Formats without a decoder (MP3 and FLAC in a plain JRE)
+ *   use their REPLAYGAIN_TRACK_GAIN/PEAK tags instead, if present
+ * - WORKERS low-priority daemon threads share one queue; files are read
+ *   through a shared byte budget, lower while a song is playing, so the
+ *   analysis never competes with playback for disk
+ * - Results go to LoudnessStore, which saves them behind; files that already
+ *   have a result for their current size and mtime are skipped, so a
+ *   restarted analysis picks up where it stopped
+ *
+ * getTrackGain() gives PlayerController the linear gain that brings a song
+ * to TARGET_LUFS (ReplayGain 2 reference level). A song without a result
+ * plays at full volume and is moved to the front of the queue.
+ */
+public class LoudnessAnalyzer {
+    private static final Logger logger = Logger.getLogger(LoudnessAnalyzer.class.getName());
+    private static final double TARGET_LUFS = Double.parseDouble(
+            System.getProperty("mellow.loudness.targetLufs", "-18"));
+    private static final boolean NORMALIZE = Boolean.parseBoolean(
+            System.getProperty("mellow.loudness.normalize", "true"));
+    private static final int WORKERS = Integer.getInteger("mellow.loudness.workers",
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    private static final long IDLE_BYTES_PER_SECOND = Long.getLong("mellow.loudness.idleBytesPerSecond",
+            16L << 20);
+    private static final long PLAYING_BYTES_PER_SECOND = Long.getLong("mellow.loudness.playingBytesPerSecond",
+            2L << 20);
+    private static final int CHUNK_BYTES = 64 * 1024;
+    private static LoudnessAnalyzer instance;
+
+    private final LoudnessStore store = LoudnessStore.getInstance();
+    private final BlockingDeque<String> queue = new LinkedBlockingDeque<>();
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private final IoBudget budget = new IoBudget();
+    private final AtomicLong measured = new AtomicLong();
+    private final AtomicLong tagged = new AtomicLong();
+    private final AtomicLong unsupported = new AtomicLong();
+    private boolean started = false;
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized LoudnessAnalyzer getInstance() {
+        if (instance == null) {
+            instance = new LoudnessAnalyzer();
+        }
+        return instance;
+    }
+
+    /**
+     * Private constructor - use getInstance()
+     */
+    private LoudnessAnalyzer() {
+    }
+
+    /**
+     * Queue songs for analysis. Cheap enough for the EDT: the workers skip
+     * files that already have a result for their current version.
+     */
+    public void analyze(Collection<Song> songs) {
+        int added = 0;
+        for (Song song : songs) {
+            String path = song.getFilePath();
+            if (path != null && queued.add(path)) {
+                queue.offerLast(path);
+                added++;
+            }
+        }
+        if (added > 0) {
+            logger.fine("Queued " + added + " songs for loudness analysis");
+            startWorkers();
+        }
+    }
+
+    /**
+     * Move a song to the front of the queue (e.g. it is about to play)
+     */
+    public void prioritize(Song song) {
+        String path = song == null ? null : song.getFilePath();
+        if (path == null || !needsAnalysis(path)) {
+            return;
+        }
+        queue.remove(path);
+        queued.add(path);
+        queue.offerFirst(path);
+        startWorkers();
+    }
+
+    /**
+     * Linear volume factor (0 to 1) for a song; 1.0 if normalization is off
+     * or the song has not been analyzed yet
+     */
+    public double getTrackGain(Song song) {
+        if (!NORMALIZE || song == null || song.getFilePath() == null) {
+            return 1.0;
+        }
+        LoudnessStore.Entry entry = store.get(song.getFilePath());
+        if (entry == null) {
+            prioritize(song);
+            return 1.0;
+        }
+        return entry.gainFor(TARGET_LUFS);
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    public String getStats() {
+        return String.format("queued=%d measured=%d tagged=%d unsupported=%d stored=%d", queue.size(),
+                measured.get(), tagged.get(), unsupported.get(), store.size());
+    }
+
+    private boolean needsAnalysis(String path) {
+        File file = new File(path);
+        return file.isFile() && store.getCurrent(path, file.length(), file.lastModified()) == null;
+    }
+
+    private synchronized void startWorkers() {
+        if (started) {
+            return;
+        }
+        started = true;
+        for (int i = 1; i <= WORKERS; i++) {
+            Thread t = new Thread(this::workLoop, "loudness-analyzer-" + i);
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            t.start();
+        }
+    }
+
+    private void workLoop() {
+        while (true) {
+            String path;
+            try {
+                path = queue.takeFirst();
+            } catch (InterruptedException e) {
+                return;
+            }
+            queued.remove(path);
+            if (!needsAnalysis(path)) {
+                continue;
+            }
+            try {
+                store.put(path, analyzeFile(new File(path)));
+            } catch (RuntimeException e) {
+                logger.warning("Loudness analysis failed for " + path + ": " + e.getMessage());
+            }
+            if (queue.isEmpty()) {
+                logger.info("Loudness analysis idle: " + getStats());
+            }
+        }
+    }
+
+    /**
+     * Measure one file, falling back to its ReplayGain tags
+     */
+    private LoudnessStore.Entry analyzeFile(File file) {
+        long size = file.length();
+        long mtime = file.lastModified();
+        try (AudioInputStream in = openPcm(file)) {
+            if (in != null) {
+                AudioFormat format = in.getFormat();
+                LoudnessMeter meter = new LoudnessMeter(format.getSampleRate(), format.getChannels());
+                decode(in, meter);
+                measured.incrementAndGet();
+                return new LoudnessStore.Entry(size, mtime, LoudnessStore.Source.MEASURED,
+                        (float) meter.getIntegratedLufs(), (float) meter.getPeak());
+            }
+        } catch (IOException e) {
+            logger.fine(() -> "Could not decode " + file + ": " + e.getMessage());
+        }
+        LoudnessStore.Entry fromTags = readReplayGainTags(file, size, mtime);
+        if (fromTags != null) {
+            tagged.incrementAndGet();
+            return fromTags;
+        }
+        unsupported.incrementAndGet();
+        return new LoudnessStore.Entry(size, mtime, LoudnessStore.Source.NONE, Float.NaN, 0);
+    }
+
+    /**
+     * Open a file as 16-bit signed little-endian PCM, or null if javax.sound
+     * has no decoder for it
+     */
+    private AudioInputStream openPcm(File file) throws IOException {
+        InputStream raw = new BufferedInputStream(new ThrottledInputStream(Files.newInputStream(file.toPath())),
+                CHUNK_BYTES);
+        try {
+            AudioInputStream source = AudioSystem.getAudioInputStream(raw);
+            AudioFormat f = source.getFormat();
+            if (f.getEncoding() == AudioFormat.Encoding.PCM_SIGNED && f.getSampleSizeInBits() == 16
+                    && !f.isBigEndian()) {
+                return source;
+            }
+            AudioFormat pcm = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, f.getSampleRate(), 16,
+                    f.getChannels(), f.getChannels() * 2, f.getSampleRate(), false);
+            if (!AudioSystem.isConversionSupported(pcm, f)) {
+                source.close();
+                return null;
+            }
+            return AudioSystem.getAudioInputStream(pcm, source);
+        } catch (UnsupportedAudioFileException | IllegalArgumentException e) {
+            raw.close();
+            return null;
+        } catch (IOException | RuntimeException e) {
+            // e.g. a truncated header; an open stream would keep the file locked on Windows
+            try {
+                raw.close();
+            } catch (IOException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
+    }
+
+    private static void decode(AudioInputStream in, LoudnessMeter meter) throws IOException {
+        int channels = in.getFormat().getChannels();
+        int frameBytes = channels * 2;
+        byte[] bytes = new byte[(CHUNK_BYTES / frameBytes) * frameBytes];
+        float[] samples = new float[bytes.length / 2];
+        int carry = 0;
+        int n;
+        while ((n = in.read(bytes, carry, bytes.length - carry)) > 0) {
+            int total = carry + n;
+            int frames = total / frameBytes;
+            for (int i = 0, b = 0; i < frames * channels; i++, b += 2) {
+                samples[i] = (short) ((bytes[b] & 0xFF) | (bytes[b + 1] << 8)) / 32768f;
+            }
+            meter.process(samples, frames);
+            carry = total - frames * frameBytes;
+            System.arraycopy(bytes, frames * frameBytes, bytes, 0, carry);
+        }
+    }
+
+    /**
+     * REPLAYGAIN_TRACK_GAIN / _PEAK from Vorbis comments or ID3 TXXX frames.
+     * A ReplayGain gain is relative to -18 LUFS, so loudness = -18 - gain.
+     */
+    private static LoudnessStore.Entry readReplayGainTags(File file, long size, long mtime) {
+        String gain = null;
+        String peak = null;
+        try {
+            AudioFile audioFile = AudioFileIO.read(file);
+            Tag tag = audioFile.getTag();
+            if (tag == null) {
+                return null;
+            }
+            for (Iterator<TagField> it = tag.getFields(); it.hasNext();) {
+                TagField field = it.next();
+                String id = field.getId();
+                String value = null;
+                if (field instanceof AbstractTagFrame
+                        && ((AbstractTagFrame) field).getBody() instanceof FrameBodyTXXX) {
+                    FrameBodyTXXX body = (FrameBodyTXXX) ((AbstractTagFrame) field).getBody();
+                    id = body.getDescription();
+                    value = body.getFirstTextValue();
+                } else if (field instanceof TagTextField) {
+                    value = ((TagTextField) field).getContent();
+                }
+                if (id == null || value == null) {
+                    continue;
+                }
+                if (id.equalsIgnoreCase("REPLAYGAIN_TRACK_GAIN")) {
+                    gain = value;
+                } else if (id.equalsIgnoreCase("REPLAYGAIN_TRACK_PEAK")) {
+                    peak = value;
+                }
+            }
+        } catch (Exception e) {
+            return null;
+        }
+        double gainDb = parseNumber(gain);
+        if (Double.isNaN(gainDb)) {
+            return null;
+        }
+        double peakValue = parseNumber(peak);
+        return new LoudnessStore.Entry(size, mtime, LoudnessStore.Source.TAGGED, (float) (-18 - gainDb),
+                Double.isNaN(peakValue) ? 0 : (float) peakValue);
+    }
+
+    /**
+     * Leading number of a tag value such as "-6.48 dB"
+     */
+    private static double parseNumber(String value) {
+        if (value == null) {
+            return Double.NaN;
+        }
+        String s = value.trim();
+        int end = 0;
+        while (end < s.length() && "+-.0123456789".indexOf(s.charAt(end)) >= 0) {
+            end++;
+        }
+        try {
+            return Double.parseDouble(s.substring(0, end));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Byte budget shared by all workers, refilled every second at a rate that
+     * drops while a song is playing
+     */
+    private static final class IoBudget {
+        private long windowStart = System.nanoTime();
+        private long used = 0;
+
+        void acquire(int bytes) throws IOException {
+            while (true) {
+                long waitNanos;
+                synchronized (this) {
+                    long rate = NowPlayingState.getInstance().isPlaying()
+                            ? PLAYING_BYTES_PER_SECOND : IDLE_BYTES_PER_SECOND;
+                    long now = System.nanoTime();
+                    if (now - windowStart >= 1_000_000_000L) {
+                        windowStart = now;
+                        used = 0;
+                    }
+                    if (used < rate) {
+                        used += bytes;
+                        return;
+                    }
+                    waitNanos = windowStart + 1_000_000_000L - now;
+                }
+                try {
+                    Thread.sleep(Math.max(1, waitNanos / 1_000_000));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while throttled");
+                }
+            }
+        }
+    }
+
+    /**
+     * Charges every read against the shared IoBudget
+     */
+    private final class ThrottledInputStream extends FilterInputStream {
+        ThrottledInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            budget.acquire(1);
+            return super.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, Math.min(len, CHUNK_BYTES));
+            if (n > 0) {
+                budget.acquire(n);
+            }
+            return n;
+        }
+    }
+}
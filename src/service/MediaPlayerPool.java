@@ -0,0 +1,112 @@
+package service;
+
+import java.util.List;
+import javafx.scene.media.Media;
+import javafx.scene.media.MediaPlayer;
+
+/**
+ * MediaPlayerPool - Singleton that owns every native JavaFX MediaPlayer
+ *
+ * A MediaPlayer holds a native pipeline and decoder buffers until dispose()
+ * is called; stop() alone frees nothing. All players are created and
+ * released here so none can be forgotten:
+ * - create() builds a player and registers it
+ * - release() stops, disposes and unregisters it
+ * - at most MAX_LIVE players exist at once (the current one, a preloaded
+ *   next one, one fading out); creating another disposes the oldest player
+ *   that is not playing
+ *
+ * A player cannot be pointed at new Media, so reuse happens one level up:
+ * PlayerController restarts the loaded player for a replay of the same song.
+ *
+ * The bookkeeping lives in PlayerPool; this class supplies the JavaFX
+ * players. create() and release() must run on the FX thread.
+ * getDiagnostics() and getStats() can be called from anywhere (the
+ * PlayerDiagnostics window shows them).
+ */
+public class MediaPlayerPool {
+    private static final int MAX_LIVE = Integer.getInteger("mellow.maxMediaPlayers", 3);
+    private static MediaPlayerPool instance;
+
+    private final PlayerPool<MediaPlayer> players = new PlayerPool<>(MAX_LIVE, new PlayerPool.Driver<MediaPlayer>() {
+        @Override
+        public MediaPlayer open(String uri) {
+            return new MediaPlayer(new Media(uri));
+        }
+
+        @Override
+        public Object status(MediaPlayer player) {
+            return player.getStatus();
+        }
+
+        @Override
+        public boolean isPlaying(MediaPlayer player) {
+            return player.getStatus() == MediaPlayer.Status.PLAYING;
+        }
+
+        @Override
+        public void close(MediaPlayer player) {
+            try {
+                player.stop();
+            } finally {
+                player.dispose();
+            }
+        }
+    });
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized MediaPlayerPool getInstance() {
+        if (instance == null) {
+            instance = new MediaPlayerPool();
+        }
+        return instance;
+    }
+
+    /**
+     * Private constructor - use getInstance()
+     */
+    private MediaPlayerPool() {
+    }
+
+    /**
+     * Build a player for a media URI (FX thread)
+     *
+     * @param role shown in diagnostics, e.g. "current" or "preload"
+     */
+    public MediaPlayer create(String uri, String role) {
+        return players.open(uri, role);
+    }
+
+    /**
+     * Change the role shown for a live player (e.g. a preload becoming
+     * current)
+     */
+    public void setRole(MediaPlayer player, String role) {
+        players.setRole(player, role);
+    }
+
+    /**
+     * Stop and dispose a player (FX thread). Null and already released
+     * players are ignored.
+     */
+    public void release(MediaPlayer player) {
+        players.close(player);
+    }
+
+    public int getLiveCount() {
+        return players.getLiveCount();
+    }
+
+    /**
+     * One line per live player: role, status, age and media
+     */
+    public List<String> getDiagnostics() {
+        return players.getDiagnostics();
+    }
+
+    public String getStats() {
+        return players.getStats();
+    }
+}
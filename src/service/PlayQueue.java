@@ -0,0 +1,313 @@
+package service;
+
+import Model.Song;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * PlayQueue - int-indexed play queue used by PlaybackManager
+ *
+ * The queue never copies Song lists. Every entry is a slot number: slots
+ * below the size of the list passed to reset() index into that list (held by
+ * reference), later slots index the songs added with insertNext()/append().
+ * - A fresh queue is the identity order over the list and allocates nothing;
+ *   the slot array is only built on the first insert or shuffle, and its
+ *   buffers are reused by later queues
+ * - next(), previous() and peekNext() are O(1) and wrap around
+ * - Shuffle stores a permutation of the slots next to the linear order, so
+ *   previous() walks back through what was actually played and turning
+ *   shuffle off continues in list order from the current song
+ * - insertNext() and append() shift ints in place; no songs are copied
+ * - The last HISTORY_SIZE songs played are kept in a ring buffer
+ *
+ * The list passed to reset() must not be modified afterwards; views replace
+ * their lists instead, and library lists are immutable. Not thread safe;
+ * PlaybackManager guards it with its own lock.
+ */
+public class PlayQueue {
+    private static final int HISTORY_SIZE = 100;
+
+    private final Random random = new Random();
+    private List<Song> source = Collections.emptyList();
+    private final List<Song> added = new ArrayList<>();
+
+    // Linear (unshuffled) order; only filled in once identity is false
+    private int[] linear = new int[0];
+    private boolean identity = true;
+    private int size = 0;
+    // Play order while shuffled
+    private int[] shuffled = new int[0];
+    private boolean shuffle = false;
+    private int position = -1;
+
+    private final Song[] history = new Song[HISTORY_SIZE];
+    private int historyCount = 0;
+    private int historyHead = 0;
+
+    /**
+     * Replace the queue with a list, positioned at start. With shuffle on,
+     * the start song plays first and the rest follow in a new random order.
+     */
+    public void reset(List<Song> songs, int start) {
+        source = songs;
+        added.clear();
+        identity = true;
+        size = songs.size();
+        position = start;
+        if (shuffle) {
+            reshuffle();
+        }
+        record(current());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Index of the current song in play order, or -1
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    public Song current() {
+        return position < 0 || position >= size ? null : song(slotAt(position));
+    }
+
+    /**
+     * Song after the current one in play order (wrapping), or null
+     */
+    public Song peekNext() {
+        return position < 0 || size == 0 ? null : song(slotAt((position + 1) % size));
+    }
+
+    /**
+     * Advance to the next song (wrapping) and return it
+     */
+    public Song next() {
+        if (position < 0 || size == 0) {
+            return null;
+        }
+        position = (position + 1) % size;
+        Song song = current();
+        record(song);
+        return song;
+    }
+
+    /**
+     * Step back to the previous song in play order (wrapping) and return it
+     */
+    public Song previous() {
+        if (position < 0 || size == 0) {
+            return null;
+        }
+        position = (position - 1 + size) % size;
+        Song song = current();
+        record(song);
+        return song;
+    }
+
+    /**
+     * Queue a song to play right after the current one
+     */
+    public void insertNext(Song song) {
+        int slot = addSlot(song);
+        if (position < 0) {
+            appendSlot(slot);
+            position = 0;
+            record(song);
+            return;
+        }
+        materialize();
+        if (shuffle) {
+            linear = insert(linear, size, indexOf(linear, size, shuffled[position]) + 1, slot);
+            shuffled = insert(shuffled, size, position + 1, slot);
+        } else {
+            linear = insert(linear, size, position + 1, slot);
+        }
+        size++;
+    }
+
+    /**
+     * Queue a song at the end
+     */
+    public void append(Song song) {
+        appendSlot(addSlot(song));
+        if (position < 0) {
+            position = 0;
+            record(song);
+        }
+    }
+
+    public boolean isShuffled() {
+        return shuffle;
+    }
+
+    /**
+     * Turn shuffle on (the songs after the current one are shuffled) or off
+     * (play continues in list order from the current song)
+     */
+    public void setShuffle(boolean on) {
+        if (on == shuffle) {
+            return;
+        }
+        if (on) {
+            shuffle = true;
+            reshuffle();
+        } else {
+            if (position >= 0) {
+                position = identity ? shuffled[position] : indexOf(linear, size, shuffled[position]);
+            }
+            shuffle = false;
+        }
+    }
+
+    /**
+     * Recently played songs, newest first
+     */
+    public List<Song> getHistory() {
+        List<Song> songs = new ArrayList<>(historyCount);
+        for (int i = 1; i <= historyCount; i++) {
+            songs.add(history[(historyHead - i + HISTORY_SIZE) % HISTORY_SIZE]);
+        }
+        return songs;
+    }
+
+    /**
+     * Unmodifiable snapshot of the queue in play order. Copies the slot
+     * numbers, not the songs.
+     */
+    public List<Song> snapshot() {
+        int[] slots = new int[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = slotAt(i);
+        }
+        List<Song> base = source;
+        List<Song> extra = new ArrayList<>(added);
+        return new AbstractList<Song>() {
+            @Override
+            public Song get(int index) {
+                int slot = slots[index];
+                return slot < base.size() ? base.get(slot) : extra.get(slot - base.size());
+            }
+
+            @Override
+            public int size() {
+                return slots.length;
+            }
+        };
+    }
+
+    private int slotAt(int index) {
+        if (shuffle) {
+            return shuffled[index];
+        }
+        return identity ? index : linear[index];
+    }
+
+    private Song song(int slot) {
+        return slot < source.size() ? source.get(slot) : added.get(slot - source.size());
+    }
+
+    private int addSlot(Song song) {
+        added.add(song);
+        return source.size() + added.size() - 1;
+    }
+
+    private void appendSlot(int slot) {
+        materialize();
+        linear = insert(linear, size, size, slot);
+        if (shuffle) {
+            shuffled = insert(shuffled, size, size, slot);
+        }
+        size++;
+    }
+
+    /**
+     * Build the linear slot array from the identity order (reusing the
+     * buffer when it is big enough)
+     */
+    private void materialize() {
+        if (!identity) {
+            return;
+        }
+        if (linear.length < size) {
+            linear = new int[grow(size)];
+        }
+        for (int i = 0; i < size; i++) {
+            linear[i] = i;
+        }
+        identity = false;
+    }
+
+    /**
+     * New permutation: the current song first, then the rest at random
+     */
+    private void reshuffle() {
+        if (shuffled.length < size) {
+            shuffled = new int[grow(size)];
+        }
+        for (int i = 0; i < size; i++) {
+            shuffled[i] = identity ? i : linear[i];
+        }
+        if (size == 0) {
+            position = -1;
+            return;
+        }
+        int first = Math.max(0, position);
+        int t = shuffled[0];
+        shuffled[0] = shuffled[first];
+        shuffled[first] = t;
+        // Fisher-Yates over the rest
+        for (int i = size - 1; i > 1; i--) {
+            int j = 1 + random.nextInt(i);
+            t = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = t;
+        }
+        position = position < 0 ? -1 : 0;
+    }
+
+    private void record(Song song) {
+        if (song == null) {
+            return;
+        }
+        history[historyHead] = song;
+        historyHead = (historyHead + 1) % HISTORY_SIZE;
+        historyCount = Math.min(HISTORY_SIZE, historyCount + 1);
+    }
+
+    /**
+     * Insert value at index of the first count entries, growing if needed
+     */
+    private static int[] insert(int[] array, int count, int index, int value) {
+        if (count == array.length) {
+            array = Arrays.copyOf(array, grow(count + 1));
+        }
+        System.arraycopy(array, index, array, index + 1, count - index);
+        array[index] = value;
+        return array;
+    }
+
+    private static int indexOf(int[] array, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int grow(int needed) {
+        return Math.max(16, needed + (needed >> 1));
+    }
+}
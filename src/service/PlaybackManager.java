@@ -2,36 +2,35 @@ package service;
 
 import Controller.PlayerController;
 import Model.PlaySource;
+import Model.PlaybackSnapshot;
 import Model.Song;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
-import utils.NowPlayingState;
-import utils.PlayerState;
+import utils.PlaybackStateStore;
 
 /**
  * Global Playback Manager - Singleton pattern
  * 
  * Centralized management of audio playback with:
  * - Current song tracking
- * - Playlist management
+ * - Play queue (PlayQueue): shuffle, play next, add to queue, history
  * - Playback controls (play, pause, next, previous)
  * - Loop mode toggle
  * - Navigation context (PlaySource) for back button
  * 
  * Persists across UI changes - music continues in background
  * Works with PlayerController for actual audio playback
+ * 
+ * Current song, loop mode and play source live only in PlaybackStateStore;
+ * song changes are written there before PlayerController starts the song.
  */
 public class PlaybackManager {
     private static final Logger logger = Logger.getLogger(PlaybackManager.class.getName());
     private static PlaybackManager instance;
 
     private final PlayerController playerController;
-    private Song currentSong;
-    private List<Song> playlist = new ArrayList<>();
-    private int currentIndex = -1;
-    private boolean isLooping = false;
-    private PlaySource playSource = PlaySource.DASHBOARD;
+    private final PlaybackStateStore stateStore = PlaybackStateStore.getInstance();
+    private final PlayQueue queue = new PlayQueue();
 
     /**
      * Get singleton instance
@@ -52,7 +51,10 @@ public class PlaybackManager {
 
     /**
      * Set playlist and start playing song at given index
-     * Updates NowPlayingState and PlayerState
+     * Updates PlaybackStateStore (read by NowPlayingState and PlayerState)
+     * 
+     * The list is queued by reference, not copied, so callers must not
+     * modify it afterwards.
      * 
      * @param songs         Full list of songs (playlist)
      * @param selectedIndex Index of song to start playing
@@ -65,23 +67,17 @@ public class PlaybackManager {
             return;
         }
 
-        this.playlist = new ArrayList<>(songs);
-        this.currentIndex = selectedIndex;
-        this.playSource = source;
-        this.currentSong = playlist.get(currentIndex);
+        queue.reset(songs, selectedIndex);
+        Song song = queue.current();
 
-        // Start playback
-        playerController.playSong(currentSong);
+        // One atomic state change for every view
+        stateStore.update(s -> s.withSong(song, true).withPosition(0).withSource(source));
 
-        // Update both NowPlayingState (for UI listeners) and PlayerState (for direct
-        // access)
-        NowPlayingState.getInstance().setCurrentSong(currentSong, true);
-        PlayerState.getInstance().setCurrentSong(currentSong);
-        PlayerState.getInstance().setPlaying(true);
-        PlayerState.getInstance().setCurrentPosition(0);
+        // Start playback
+        playerController.playSong(song);
 
         System.out.println(
-                "[PlaybackManager] Song set to play: " + currentSong.getTitle() + " (index " + selectedIndex + ")");
+                "[PlaybackManager] Song set to play: " + song.getTitle() + " (index " + selectedIndex + ")");
         logger.info("Playlist set: " + songs.size() + " songs, starting at index " + selectedIndex +
                 " from source: " + source.name());
     }
@@ -91,24 +87,26 @@ public class PlaybackManager {
      * Only restarts if song changed - otherwise resumes from pause position
      */
     public synchronized void play() {
-        if (currentSong == null) {
+        // After a stop the store has no song; the queue still knows it
+        Song song = getCurrentSong() != null ? getCurrentSong() : queue.current();
+        if (song == null) {
             logger.warning("No song set for playback");
             return;
         }
 
         // If already playing this song, just resume
         if (playerController.getCurrentSong() != null &&
-                playerController.getCurrentSong().equals(currentSong)) {
+                playerController.getCurrentSong().equals(song)) {
             playerController.resumeSong();
+            stateStore.update(s -> s.withPlaying(true));
         } else {
             // New song - start from beginning
-            playerController.playSong(currentSong);
+            stateStore.update(s -> s.withSong(song, true).withPosition(0));
+            playerController.playSong(song);
         }
 
-        NowPlayingState.getInstance().setPlaying(true);
-        PlayerState.getInstance().setPlaying(true);
-        System.out.println("[PlaybackManager] Playing: " + currentSong.getTitle());
-        logger.info("Playing: " + currentSong.getTitle());
+        System.out.println("[PlaybackManager] Playing: " + song.getTitle());
+        logger.info("Playing: " + song.getTitle());
     }
 
     /**
@@ -116,8 +114,7 @@ public class PlaybackManager {
      */
     public synchronized void pause() {
         playerController.pauseSong();
-        NowPlayingState.getInstance().setPlaying(false);
-        PlayerState.getInstance().setPlaying(false);
+        stateStore.update(s -> s.withPlaying(false));
         System.out.println("[PlaybackManager] Paused");
         logger.info("Paused");
     }
@@ -126,7 +123,7 @@ public class PlaybackManager {
      * Toggle between play and pause
      */
     public synchronized void togglePlayPause() {
-        if (NowPlayingState.getInstance().isPlaying()) {
+        if (stateStore.current().isPlaying()) {
             pause();
         } else {
             play();
@@ -137,85 +134,192 @@ public class PlaybackManager {
      * Play next song in playlist
      */
     public synchronized void playNext() {
-        if (playlist.isEmpty() || currentIndex < 0) {
+        if (queue.isEmpty() || queue.getPosition() < 0) {
             logger.warning("Playlist empty or no current index");
             return;
         }
 
         // Move to next, or loop to start if at end
-        currentIndex = (currentIndex + 1) % playlist.size();
-        currentSong = playlist.get(currentIndex);
+        Song song = queue.next();
+        stateStore.update(s -> s.withSong(song));
 
         play();
-        logger.info("Playing next: " + currentSong.getTitle() + " (index " + currentIndex + ")");
+        logger.info("Playing next: " + song.getTitle() + " (index " + queue.getPosition() + ")");
     }
 
     /**
      * Play previous song in playlist
      */
     public synchronized void playPrevious() {
-        if (playlist.isEmpty() || currentIndex < 0) {
+        if (queue.isEmpty() || queue.getPosition() < 0) {
             logger.warning("Playlist empty or no current index");
             return;
         }
 
-        // Move to previous, or loop to end if at start
-        currentIndex = (currentIndex - 1 + playlist.size()) % playlist.size();
-        currentSong = playlist.get(currentIndex);
+        // Move to previous (in play order, so this also works shuffled), or
+        // loop to end if at start
+        Song song = queue.previous();
+        stateStore.update(s -> s.withSong(song));
 
         play();
-        logger.info("Playing previous: " + currentSong.getTitle() + " (index " + currentIndex + ")");
+        logger.info("Playing previous: " + song.getTitle() + " (index " + queue.getPosition() + ")");
+    }
+
+    /**
+     * Jump to a position in the current song and show it at once
+     */
+    public synchronized void seek(long positionMillis) {
+        if (getCurrentSong() == null) {
+            return;
+        }
+        long target = Math.max(0, positionMillis);
+        playerController.seek(target);
+        stateStore.update(s -> s.withPosition(target));
+        PositionTicker.getInstance().onSeek(target);
     }
 
     /**
      * Toggle loop mode on/off
      */
     public synchronized void toggleLoop() {
-        isLooping = !isLooping;
-        logger.info("Loop mode: " + (isLooping ? "ON" : "OFF"));
+        boolean loop = stateStore.update(s -> s.withLoop(!s.isLoop())).isLoop();
+        // The preloaded next song depends on loop mode
+        playerController.invalidatePreload();
+        logger.info("Loop mode: " + (loop ? "ON" : "OFF"));
+    }
+
+    /**
+     * Turn shuffle on or off. The current song keeps playing; the songs
+     * after it are reordered.
+     */
+    public synchronized void setShuffle(boolean on) {
+        queue.setShuffle(on);
+        playerController.invalidatePreload();
+        logger.info("Shuffle: " + (on ? "ON" : "OFF"));
+    }
+
+    /**
+     * Toggle shuffle on/off
+     */
+    public synchronized void toggleShuffle() {
+        setShuffle(!queue.isShuffled());
+    }
+
+    public synchronized boolean isShuffled() {
+        return queue.isShuffled();
+    }
+
+    /**
+     * Queue a song to play right after the current one ("play next").
+     * Starts it if nothing is playing.
+     */
+    public synchronized void playAfterCurrent(Song song) {
+        if (song == null) {
+            return;
+        }
+        boolean idle = getCurrentSong() == null;
+        queue.insertNext(song);
+        playerController.invalidatePreload();
+        if (idle) {
+            Song first = queue.current();
+            stateStore.update(s -> s.withSong(first));
+            play();
+        }
+        logger.info("Play next: " + song.getTitle());
+    }
+
+    /**
+     * Add a song to the end of the queue. Starts it if nothing is playing.
+     */
+    public synchronized void addToQueue(Song song) {
+        if (song == null) {
+            return;
+        }
+        boolean idle = getCurrentSong() == null;
+        queue.append(song);
+        playerController.invalidatePreload();
+        if (idle) {
+            Song first = queue.current();
+            stateStore.update(s -> s.withSong(first));
+            play();
+        }
+        logger.info("Added to queue: " + song.getTitle());
+    }
+
+    /**
+     * Get recently played songs, newest first
+     */
+    public synchronized List<Song> getHistory() {
+        return queue.getHistory();
+    }
+
+    /**
+     * Set the crossfade between consecutive songs (0 = hard cut, up to
+     * PlayerController.MAX_CROSSFADE_SECONDS)
+     */
+    public void setCrossfadeSeconds(double seconds) {
+        playerController.setCrossfadeSeconds(seconds);
+    }
+
+    public double getCrossfadeSeconds() {
+        return playerController.getCrossfadeSeconds();
     }
 
     /**
      * Get current song
      */
-    public synchronized Song getCurrentSong() {
-        return currentSong;
+    public Song getCurrentSong() {
+        return stateStore.current().getSong();
+    }
+
+    /**
+     * Get the song that will play when the current one ends: the same song
+     * in loop mode, otherwise the next one (wrapping around)
+     * 
+     * @return next song, or null if nothing is queued
+     */
+    public synchronized Song peekNext() {
+        PlaybackSnapshot state = stateStore.current();
+        if (state.isLoop()) {
+            return state.getSong();
+        }
+        return queue.peekNext();
     }
 
     /**
-     * Get current playlist
+     * Get the queue in play order (an unmodifiable snapshot)
      */
     public synchronized List<Song> getPlaylist() {
-        return new ArrayList<>(playlist);
+        return queue.snapshot();
     }
 
     /**
-     * Get current index in playlist
+     * Get current index in the queue's play order
      */
     public synchronized int getCurrentIndex() {
-        return currentIndex;
+        return queue.getPosition();
     }
 
     /**
      * Check if loop is enabled
      */
-    public synchronized boolean isLooping() {
-        return isLooping;
+    public boolean isLooping() {
+        return stateStore.current().isLoop();
     }
 
     /**
      * Get the source/origin of current playback (for back button navigation)
      */
-    public synchronized PlaySource getPlaySource() {
-        return playSource;
+    public PlaySource getPlaySource() {
+        return stateStore.current().getSource();
     }
 
     /**
      * Check if given song is currently playing
      */
-    public synchronized boolean isPlaying(Song song) {
-        return currentSong != null && currentSong.equals(song) &&
-                NowPlayingState.getInstance().isPlaying();
+    public boolean isPlaying(Song song) {
+        PlaybackSnapshot state = stateStore.current();
+        return state.getSong() != null && state.getSong().equals(song) && state.isPlaying();
     }
 
     /**
@@ -223,12 +327,13 @@ public class PlaybackManager {
      * Handles loop or auto-play next song
      */
     public synchronized void onSongEnded() {
-        if (isLooping && currentSong != null) {
+        PlaybackSnapshot state = stateStore.current();
+        if (state.isLoop() && state.getSong() != null) {
             // Loop mode: replay the same song
-            logger.info("Looping song: " + currentSong.getTitle());
-            playerController.playSong(currentSong);
-            NowPlayingState.getInstance().setPlaying(true);
-        } else if (!playlist.isEmpty() && currentIndex >= 0) {
+            logger.info("Looping song: " + state.getSong().getTitle());
+            stateStore.update(s -> s.withPlaying(true).withPosition(0));
+            playerController.playSong(state.getSong());
+        } else if (!queue.isEmpty() && queue.getPosition() >= 0) {
             // Auto-play next song in playlist
             playNext();
         }
@@ -0,0 +1,165 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * PlayerPool - Player bookkeeping behind MediaPlayerPool
+ *
+ * - open() builds a player through the Driver and registers it
+ * - close() unregisters a player and has the Driver free it, once
+ * - at most maxLive players exist at once; opening another closes the
+ *   oldest one that is not playing
+ *
+ * Knows nothing about JavaFX, so the lifecycle can be driven with stand-in
+ * players. Thread rules are MediaPlayerPool's.
+ *
+ * @param <P> player type
+ */
+final class PlayerPool<P> {
+    private static final Logger logger = Logger.getLogger(PlayerPool.class.getName());
+
+    /**
+     * Creates, inspects and frees the actual players
+     */
+    interface Driver<P> {
+        P open(String uri);
+
+        Object status(P player);
+
+        boolean isPlaying(P player);
+
+        /**
+         * Stop the player and free everything it holds
+         */
+        void close(P player);
+    }
+
+    private final int maxLive;
+    private final Driver<P> driver;
+    // Live players in creation order
+    private final Map<P, PlayerInfo> live = new LinkedHashMap<>();
+    private long created = 0;
+    private long disposed = 0;
+    private long evicted = 0;
+    private int peak = 0;
+
+    PlayerPool(int maxLive, Driver<P> driver) {
+        this.maxLive = maxLive;
+        this.driver = driver;
+    }
+
+    P open(String uri, String role) {
+        evictIfFull();
+        P player = driver.open(uri);
+        synchronized (this) {
+            live.put(player, new PlayerInfo(uri, role, System.currentTimeMillis()));
+            created++;
+            peak = Math.max(peak, live.size());
+        }
+        logger.fine(() -> "Created " + role + " player for " + uri + " (" + getLiveCount() + " live)");
+        return player;
+    }
+
+    synchronized void setRole(P player, String role) {
+        PlayerInfo info = live.get(player);
+        if (info != null) {
+            live.put(player, new PlayerInfo(info.uri, role, info.createdMillis));
+        }
+    }
+
+    void close(P player) {
+        if (player == null) {
+            return;
+        }
+        PlayerInfo info;
+        synchronized (this) {
+            info = live.remove(player);
+            if (info == null) {
+                return;
+            }
+            disposed++;
+        }
+        driver.close(player);
+        logger.fine(() -> "Disposed " + info.role + " player for " + info.uri + " (" + getLiveCount() + " live)");
+    }
+
+    synchronized int getLiveCount() {
+        return live.size();
+    }
+
+    synchronized int getPeak() {
+        return peak;
+    }
+
+    synchronized long getCreated() {
+        return created;
+    }
+
+    synchronized long getDisposed() {
+        return disposed;
+    }
+
+    synchronized long getEvicted() {
+        return evicted;
+    }
+
+    List<String> getDiagnostics() {
+        List<Map.Entry<P, PlayerInfo>> entries;
+        synchronized (this) {
+            entries = new ArrayList<>(live.entrySet());
+        }
+        long now = System.currentTimeMillis();
+        List<String> lines = new ArrayList<>(entries.size());
+        for (Map.Entry<P, PlayerInfo> e : entries) {
+            PlayerInfo info = e.getValue();
+            lines.add(String.format("%-8s %-8s %5ds  %s", info.role, driver.status(e.getKey()),
+                    (now - info.createdMillis) / 1000, info.uri));
+        }
+        return lines;
+    }
+
+    synchronized String getStats() {
+        return String.format("live=%d peak=%d created=%d disposed=%d evicted=%d", live.size(), peak, created,
+                disposed, evicted);
+    }
+
+    private void evictIfFull() {
+        List<P> victims = new ArrayList<>();
+        synchronized (this) {
+            int excess = live.size() - maxLive + 1;
+            Iterator<P> it = live.keySet().iterator();
+            while (excess > 0 && it.hasNext()) {
+                P p = it.next();
+                if (!driver.isPlaying(p)) {
+                    logger.warning("Evicting media player that was never released: " + live.get(p).uri);
+                    victims.add(p);
+                    excess--;
+                }
+            }
+            if (excess > 0) {
+                logger.warning("More than " + maxLive + " media players are playing: " + getStats());
+            }
+            evicted += victims.size();
+        }
+        for (P p : victims) {
+            close(p);
+        }
+    }
+
+    private static final class PlayerInfo {
+        final String uri;
+        final String role;
+        final long createdMillis;
+
+        PlayerInfo(String uri, String role, long createdMillis) {
+            this.uri = uri;
+            this.role = role;
+            this.createdMillis = createdMillis;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package service;
+
+import Controller.PlayerController;
+import Model.PlaybackSnapshot;
+import java.awt.Component;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+import javafx.application.Platform;
+import javax.swing.SwingUtilities;
+import utils.PlaybackEventBus;
+import utils.PlaybackStateStore;
+
+/**
+ * PositionTicker - Singleton that tracks the playback position
+ *
+ * - A "position-ticker" timer asks the FX thread to sample the player's
+ *   current time every SAMPLE_MILLIS (as CrossfadeEngine does, one reused
+ *   Runnable, never more than one queued)
+ * - Listeners get the position on the EDT at most every PUBLISH_MILLIS, and
+ *   PlaybackStateStore (PlayerState.getCurrentPosition()) is updated at the
+ *   same rate, and only when the position moved. Samples only write
+ *   primitive fields; the EDT delivery reuses one Runnable and is coalesced,
+ *   so a busy EDT never queues up ticks
+ * - The timer only runs while a song is playing and at least one
+ *   registered view is showing; a pause or a hidden window stops it
+ *
+ * sample() runs on the FX thread and onSeek() on the EDT, so the throttling
+ * fields they share are volatile. sample() takes the time from the clock
+ * given to the constructor, so the throttling can be driven from a
+ * synthetic clock.
+ */
+public class PositionTicker {
+    private static final Logger logger = Logger.getLogger(PositionTicker.class.getName());
+    private static final long SAMPLE_MILLIS = Long.getLong("mellow.position.sampleMillis", 50);
+    private static final long PUBLISH_MILLIS = Long.getLong("mellow.position.publishMillis", 250);
+    private static PositionTicker instance;
+
+    /**
+     * Receives position updates on the EDT
+     */
+    public interface PositionListener {
+        void onPositionChanged(long positionMillis, long durationMillis);
+    }
+
+    /**
+     * Where samples come from (called on the sampling thread)
+     */
+    public interface PositionSource {
+        long getPositionMillis();
+
+        long getDurationMillis();
+    }
+
+    private final PositionSource source;
+    private final LongSupplier clockMillis;
+    private final long publishMillis;
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean fxQueued = new AtomicBoolean(false);
+    private final AtomicBoolean edtQueued = new AtomicBoolean(false);
+    private final Runnable sampleOnFx = () -> {
+        fxQueued.set(false);
+        sample(false);
+    };
+    private final Runnable deliver = this::deliverOnEdt;
+    private final HierarchyListener visibilityListener = e -> {
+        if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+            refresh();
+        }
+    };
+
+    private volatile long position = 0;
+    private volatile long duration = 0;
+    private volatile long lastPublishAt = 0;
+    private volatile boolean published = false;
+    private volatile long lastPublishedPosition = -1;
+    private volatile long lastPublishedDuration = -1;
+    private volatile boolean playing = false;
+    private ScheduledExecutorService timer;
+    private ScheduledFuture<?> ticks;
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized PositionTicker getInstance() {
+        if (instance == null) {
+            PlayerController player = PlayerController.getInstance();
+            instance = new PositionTicker(new PositionSource() {
+                @Override
+                public long getPositionMillis() {
+                    return player.getPositionMillis();
+                }
+
+                @Override
+                public long getDurationMillis() {
+                    return player.getDurationMillis();
+                }
+            }, () -> System.nanoTime() / 1_000_000, PUBLISH_MILLIS);
+            instance.followPlayState();
+        }
+        return instance;
+    }
+
+    /**
+     * @param source        sampled on every tick
+     * @param clockMillis   monotonic clock used for throttling
+     * @param publishMillis minimum time between two published positions
+     */
+    PositionTicker(PositionSource source, LongSupplier clockMillis, long publishMillis) {
+        this.source = source;
+        this.clockMillis = clockMillis;
+        this.publishMillis = publishMillis;
+    }
+
+    /**
+     * Deliver positions to a listener while view is showing
+     */
+    public void register(Component view, PositionListener listener) {
+        registrations.add(new Registration(view, listener));
+        view.addHierarchyListener(visibilityListener);
+        refresh();
+    }
+
+    public void unregister(PositionListener listener) {
+        for (Registration r : registrations) {
+            if (r.listener == listener) {
+                registrations.remove(r);
+                r.view.removeHierarchyListener(visibilityListener);
+            }
+        }
+        refresh();
+    }
+
+    /**
+     * Take one sample and publish it if PUBLISH_MILLIS have passed since the
+     * last publish (or force is set). Runs on the FX thread in the app.
+     */
+    public void sample(boolean force) {
+        position = source.getPositionMillis();
+        duration = source.getDurationMillis();
+        long now = clockMillis.getAsLong();
+        if (!force && published && now - lastPublishAt < publishMillis) {
+            return;
+        }
+        if (position == lastPublishedPosition && duration == lastPublishedDuration) {
+            return;
+        }
+        published = true;
+        lastPublishAt = now;
+        lastPublishedPosition = position;
+        lastPublishedDuration = duration;
+        publish(position, duration);
+    }
+
+    /**
+     * Show a seek target right away, before the player reports it
+     */
+    public void onSeek(long positionMillis) {
+        position = positionMillis;
+        published = true;
+        lastPublishAt = clockMillis.getAsLong();
+        lastPublishedPosition = positionMillis;
+        publish(positionMillis, duration);
+    }
+
+    public long getPositionMillis() {
+        return position;
+    }
+
+    public long getDurationMillis() {
+        return duration;
+    }
+
+    public synchronized boolean isRunning() {
+        return ticks != null;
+    }
+
+    /**
+     * Publish a position to the state store and (coalesced) to listeners
+     */
+    private void publish(long positionMillis, long durationMillis) {
+        PlaybackStateStore store = PlaybackStateStore.getInstance();
+        if (store.current().getPositionMillis() != positionMillis) {
+            store.update(s -> s.withPosition(positionMillis));
+        }
+        if (!registrations.isEmpty() && edtQueued.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(deliver);
+        }
+    }
+
+    private void deliverOnEdt() {
+        edtQueued.set(false);
+        long p = position;
+        long d = duration;
+        for (Registration r : registrations) {
+            if (r.view.isShowing()) {
+                r.listener.onPositionChanged(p, d);
+            }
+        }
+    }
+
+    /**
+     * Start or stop the timer for the current play state and visibility
+     */
+    private synchronized void refresh() {
+        boolean anyShowing = false;
+        for (Registration r : registrations) {
+            anyShowing |= r.view.isShowing();
+        }
+        boolean run = playing && anyShowing;
+        if (run && ticks == null) {
+            if (timer == null) {
+                timer = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "position-ticker");
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+            ticks = timer.scheduleAtFixedRate(this::tick, 0, SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+            logger.fine("Position ticker started");
+        } else if (!run && ticks != null) {
+            ticks.cancel(false);
+            ticks = null;
+            logger.fine("Position ticker stopped");
+        }
+        // Paused or just shown: one exact sample so views are current
+        if (anyShowing) {
+            Platform.runLater(() -> sample(true));
+        }
+    }
+
+    private void tick() {
+        if (fxQueued.compareAndSet(false, true)) {
+            Platform.runLater(sampleOnFx);
+        }
+    }
+
+    private void followPlayState() {
+        playing = PlaybackStateStore.getInstance().current().isPlaying();
+        PlaybackStateStore.getInstance().subscribe(this, PlaybackEventBus.Delivery.BACKGROUND,
+                PlaybackSnapshot::isPlaying, (PositionTicker t, PlaybackSnapshot s) -> {
+                    t.playing = s.isPlaying();
+                    t.refresh();
+                });
+    }
+
+    private static final class Registration {
+        final Component view;
+        final PositionListener listener;
+
+        Registration(Component view, PositionListener listener) {
+            this.view = view;
+            this.listener = listener;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package service;
+
+import Dao.SongSearchQuery;
+import Model.Song;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import utils.SongSearchIndex;
+
+/**
+ * SearchCache - bounded cache of database search results for SearchService
+ *
+ * - Keyed by normalized term plus page (offset, limit)
+ * - LRU eviction, bounded both by entry count and by weight (number of
+ *   cached songs), so a few huge result lists cannot pin the heap
+ * - Entries expire after a TTL and are invalid once SongDAO's write
+ *   generation has moved past the generation they were fetched under
+ * - Prefix reuse: if a first page for a shorter prefix of the term is cached
+ *   and was complete (fewer rows than its limit), the answer is computed by
+ *   filtering those rows with SongSearchQuery.matches(). This is only done
+ *   when the longer query narrows the shorter one (it cannot match a row
+ *   the shorter one missed, e.g. "abou" via FULLTEXT does not cover the
+ *   stopword "about" via LIKE), and not when the longer query ranks by
+ *   FULLTEXT relevance while the shorter one was ordered by name. The
+ *   filtered rows keep the shorter query's order
+ *
+ * All methods are synchronized; lists handed out are unmodifiable.
+ */
+public final class SearchCache {
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Complete first pages by normalized term, for prefix reuse
+    private final Map<String, Entry> completeByTerm = new HashMap<>();
+    private long weight = 0;
+
+    private long hits = 0;
+    private long prefixHits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long expirations = 0;
+    private long invalidations = 0;
+
+    SearchCache(int maxEntries, long maxWeight, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+    }
+
+    /**
+     * Look up a page, directly or by filtering a cached shorter prefix
+     *
+     * @return the cached rows, or null on a miss
+     */
+    synchronized List<Song> get(String term, int offset, int limit, long generation) {
+        String norm = normalize(term);
+        long now = System.nanoTime();
+        Entry direct = entries.get(key(norm, offset, limit));
+        if (direct != null && isUsable(direct, generation, now)) {
+            hits++;
+            return direct.songs;
+        }
+
+        SongSearchQuery query = SongSearchQuery.parse(norm);
+        for (int len = norm.length() - 1; query != null && len > 0; len--) {
+            Entry base = completeByTerm.get(norm.substring(0, len));
+            if (base == null || base.query == null || !isUsable(base, generation, now)) {
+                continue;
+            }
+            if (!query.narrows(base.query) || (query.usesFullText() && !base.query.usesFullText())) {
+                continue;
+            }
+            List<Song> filtered = new ArrayList<>();
+            for (Song song : base.songs) {
+                if (query.matches(song)) {
+                    filtered.add(song);
+                }
+            }
+            int from = Math.min(Math.max(0, offset), filtered.size());
+            int to = limit > 0 ? Math.min(filtered.size(), from + limit) : filtered.size();
+            List<Song> page = Collections.unmodifiableList(new ArrayList<>(filtered.subList(from, to)));
+            // Derived from a complete result, so it is complete too
+            store(norm, offset, limit, page, base.generation, true, base.createdNanos);
+            prefixHits++;
+            return page;
+        }
+
+        misses++;
+        return null;
+    }
+
+    /**
+     * Cache a page fetched from the database
+     *
+     * @param generation SongDAO write generation read before the query ran
+     * @return the unmodifiable list that was cached
+     */
+    synchronized List<Song> put(String term, int offset, int limit, List<Song> songs, long generation) {
+        List<Song> frozen = Collections.unmodifiableList(new ArrayList<>(songs));
+        boolean complete = offset <= 0 && (limit <= 0 || songs.size() < limit);
+        store(normalize(term), offset, limit, frozen, generation, complete, System.nanoTime());
+        return frozen;
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        completeByTerm.clear();
+        weight = 0;
+    }
+
+    synchronized Stats getStats() {
+        return new Stats(hits, prefixHits, misses, evictions, expirations, invalidations, entries.size(), weight);
+    }
+
+    private void store(String norm, int offset, int limit, List<Song> songs, long generation, boolean complete,
+            long createdNanos) {
+        String key = key(norm, offset, limit);
+        Entry old = entries.remove(key);
+        if (old != null) {
+            forget(old);
+        }
+        Entry e = new Entry(key, norm, songs, generation, complete && offset <= 0, createdNanos);
+        if (e.weight > maxWeight) {
+            return;
+        }
+        entries.put(key, e);
+        weight += e.weight;
+        if (e.complete) {
+            completeByTerm.put(norm, e);
+        }
+        // Evict least recently used until within both bounds
+        Iterator<Entry> it = entries.values().iterator();
+        while ((entries.size() > maxEntries || weight > maxWeight) && it.hasNext()) {
+            Entry lru = it.next();
+            if (lru == e) {
+                continue;
+            }
+            it.remove();
+            forgetIndex(lru);
+            weight -= lru.weight;
+            evictions++;
+        }
+    }
+
+    private boolean isUsable(Entry e, long generation, long now) {
+        if (e.generation != generation) {
+            invalidations++;
+        } else if (now - e.createdNanos > ttlNanos) {
+            expirations++;
+        } else {
+            return true;
+        }
+        entries.remove(e.key);
+        forget(e);
+        return false;
+    }
+
+    private void forget(Entry e) {
+        weight -= e.weight;
+        forgetIndex(e);
+    }
+
+    private void forgetIndex(Entry e) {
+        if (e.complete) {
+            completeByTerm.remove(e.term, e);
+        }
+    }
+
+    private static String normalize(String term) {
+        return term == null ? "" : SongSearchIndex.normalize(term).toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    private static String key(String norm, int offset, int limit) {
+        return norm + '@' + offset + ':' + limit;
+    }
+
+    private static final class Entry {
+        final String key;
+        final String term;
+        // How the database matched and ordered term when it was stored
+        final SongSearchQuery query;
+        final List<Song> songs;
+        final long generation;
+        final boolean complete;
+        final long createdNanos;
+        final int weight;
+
+        Entry(String key, String term, List<Song> songs, long generation, boolean complete, long createdNanos) {
+            this.key = key;
+            this.term = term;
+            this.query = SongSearchQuery.parse(term);
+            this.songs = songs;
+            this.generation = generation;
+            this.complete = complete;
+            this.createdNanos = createdNanos;
+            this.weight = songs.size() + 1;
+        }
+    }
+
+    /**
+     * Counters since startup plus current size
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long prefixHits;
+        private final long misses;
+        private final long evictions;
+        private final long expirations;
+        private final long invalidations;
+        private final int entries;
+        private final long weight;
+
+        Stats(long hits, long prefixHits, long misses, long evictions, long expirations, long invalidations,
+                int entries, long weight) {
+            this.hits = hits;
+            this.prefixHits = prefixHits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.expirations = expirations;
+            this.invalidations = invalidations;
+            this.entries = entries;
+            this.weight = weight;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getPrefixHits() {
+            return prefixHits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getExpirations() {
+            return expirations;
+        }
+
+        public long getInvalidations() {
+            return invalidations;
+        }
+
+        public int getEntries() {
+            return entries;
+        }
+
+        public long getWeight() {
+            return weight;
+        }
+
+        public double getHitRate() {
+            long total = hits + prefixHits + misses;
+            return total == 0 ? 0 : (double) (hits + prefixHits) / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d prefixHits=%d misses=%d (%.0f%%) evictions=%d expired=%d "
+                    + "invalidated=%d entries=%d weight=%d", hits, prefixHits, misses, getHitRate() * 100,
+                    evictions, expirations, invalidations, entries, weight);
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package service;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+
+/**
+ * SearchScheduler - Singleton that runs searches debounced and latest-wins
+ *
+ * Each view opens its own Channel. Submitting to a channel:
+ * - waits the channel's debounce delay before anything runs, so a burst of
+ *   keystrokes becomes one query
+ * - supersedes the channel's previous search: a pending one never starts,
+ *   a running one is flagged and its JDBC statement (if attached to the
+ *   Ticket) is cancelled with Statement.cancel()
+ * - tags the search with a sequence number; results are only delivered on
+ *   the EDT if no newer search was submitted to the channel meanwhile
+ *
+ * Searches run on a small worker pool so a fresh query does not queue behind
+ * a superseded one that is still unwinding. Queue-wait (debounce elapsed to
+ * start) and execution times are collected in Stats.
+ */
+public class SearchScheduler {
+    private static final Logger logger = Logger.getLogger(SearchScheduler.class.getName());
+    private static final int WORKERS = 2;
+    private static SearchScheduler instance;
+
+    private final ScheduledExecutorService timer;
+    private final ExecutorService workers;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong superseded = new AtomicLong();
+    private final AtomicLong statementsCancelled = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong queueWaitNanos = new AtomicLong();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+    private final AtomicLong executionNanos = new AtomicLong();
+    private final AtomicLong maxExecutionNanos = new AtomicLong();
+
+    /**
+     * A search body. Long-running work should attach its statement to the
+     * ticket and check isCancelled() between steps.
+     */
+    @FunctionalInterface
+    public interface Task<T> {
+        T run(Ticket ticket) throws Exception;
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized SearchScheduler getInstance() {
+        if (instance == null) {
+            instance = new SearchScheduler();
+        }
+        return instance;
+    }
+
+    /**
+     * Private constructor - use getInstance()
+     */
+    private SearchScheduler() {
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "search-debounce");
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicInteger n = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(WORKERS, r -> {
+            Thread t = new Thread(r, "search-worker-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Open a channel; searches on one channel supersede each other only
+     *
+     * @param name           used in log messages
+     * @param debounceMillis delay between the last submit and the search
+     */
+    public Channel openChannel(String name, long debounceMillis) {
+        return new Channel(name, debounceMillis);
+    }
+
+    public Stats getStats() {
+        return new Stats(submitted.get(), superseded.get(), statementsCancelled.get(), delivered.get(), failed.get(),
+                executed.get(), queueWaitNanos.get(), maxQueueWaitNanos.get(), executionNanos.get(),
+                maxExecutionNanos.get());
+    }
+
+    private static void recordMax(AtomicLong max, long value) {
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * One view's stream of searches
+     */
+    public final class Channel {
+        private final String name;
+        private final long debounceMillis;
+        private final AtomicLong sequence = new AtomicLong();
+        private Ticket current;
+
+        private Channel(String name, long debounceMillis) {
+            this.name = name;
+            this.debounceMillis = debounceMillis;
+        }
+
+        /**
+         * Schedule a search after the debounce delay, superseding the
+         * previous one
+         *
+         * @param onSuccess run on the EDT with the result, if still the latest
+         * @param onError   run on the EDT if the latest search failed (may be
+         *                  null)
+         */
+        public <T> void submit(Task<T> task, Consumer<T> onSuccess, Consumer<Exception> onError) {
+            Ticket ticket = supersede();
+            submitted.incrementAndGet();
+            ScheduledFuture<?> timerFuture = timer.schedule(() -> {
+                long ready = System.nanoTime();
+                ticket.setWork(workers.submit(() -> execute(ticket, ready, task, onSuccess, onError)));
+            }, debounceMillis, TimeUnit.MILLISECONDS);
+            ticket.setTimer(timerFuture);
+        }
+
+        /**
+         * Deliver an already known result (e.g. a cache hit) immediately,
+         * superseding any pending or running search
+         */
+        public <T> void deliver(T result, Consumer<T> onSuccess) {
+            Ticket ticket = supersede();
+            submitted.incrementAndGet();
+            publish(ticket, () -> onSuccess.accept(result));
+        }
+
+        /**
+         * Cancel the pending or running search without starting a new one
+         */
+        public void cancel() {
+            supersede();
+        }
+
+        /**
+         * Check if a ticket is still this channel's newest search
+         */
+        public boolean isLatest(Ticket ticket) {
+            return ticket.sequence == sequence.get();
+        }
+
+        private synchronized Ticket supersede() {
+            if (current != null && current.cancel()) {
+                superseded.incrementAndGet();
+            }
+            current = new Ticket(this, sequence.incrementAndGet());
+            return current;
+        }
+
+        private <T> void execute(Ticket ticket, long ready, Task<T> task, Consumer<T> onSuccess,
+                Consumer<Exception> onError) {
+            if (ticket.isCancelled()) {
+                return;
+            }
+            long start = System.nanoTime();
+            queueWaitNanos.addAndGet(start - ready);
+            recordMax(maxQueueWaitNanos, start - ready);
+            try {
+                T result = task.run(ticket);
+                finish(ticket, start);
+                publish(ticket, () -> onSuccess.accept(result));
+            } catch (Exception ex) {
+                finish(ticket, start);
+                if (ticket.isCancelled()) {
+                    // Expected when Statement.cancel() aborted the query
+                    return;
+                }
+                failed.incrementAndGet();
+                if (onError != null) {
+                    publish(ticket, () -> onError.accept(ex));
+                } else {
+                    logger.warning("Search on '" + name + "' failed: " + ex.getMessage());
+                }
+            }
+        }
+
+        private void finish(Ticket ticket, long start) {
+            long elapsed = System.nanoTime() - start;
+            executed.incrementAndGet();
+            executionNanos.addAndGet(elapsed);
+            recordMax(maxExecutionNanos, elapsed);
+            logger.fine(() -> "Search on '" + name + "' #" + ticket.sequence + " took "
+                    + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms" + (ticket.isCancelled() ? " (superseded)" : ""));
+        }
+
+        private void publish(Ticket ticket, Runnable callback) {
+            SwingUtilities.invokeLater(() -> {
+                if (ticket.isCancelled() || !isLatest(ticket)) {
+                    return;
+                }
+                delivered.incrementAndGet();
+                callback.run();
+            });
+        }
+    }
+
+    /**
+     * Handle for one submitted search
+     */
+    public final class Ticket {
+        private final Channel channel;
+        private final long sequence;
+        private volatile boolean cancelled = false;
+        private Future<?> timerFuture;
+        private Future<?> workFuture;
+        private Statement statement;
+
+        private Ticket(Channel channel, long sequence) {
+            this.channel = channel;
+            this.sequence = sequence;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public boolean isCancelled() {
+            return cancelled || !channel.isLatest(this);
+        }
+
+        /**
+         * Register the statement about to execute so a newer search can
+         * cancel it. Returns false if this search is already superseded;
+         * the caller should then skip executing.
+         */
+        public synchronized boolean attach(Statement stmt) {
+            if (cancelled) {
+                return false;
+            }
+            statement = stmt;
+            return true;
+        }
+
+        /**
+         * Forget the attached statement (call before closing it)
+         */
+        public synchronized void detach() {
+            statement = null;
+        }
+
+        private synchronized void setTimer(Future<?> f) {
+            timerFuture = f;
+            if (cancelled) {
+                f.cancel(false);
+            }
+        }
+
+        private synchronized void setWork(Future<?> f) {
+            workFuture = f;
+            if (cancelled) {
+                f.cancel(false);
+            }
+        }
+
+        private boolean stop(Future<?> f) {
+            return f != null && f.cancel(false);
+        }
+
+        /**
+         * @return true if the search had not finished yet
+         */
+        private synchronized boolean cancel() {
+            if (cancelled) {
+                return false;
+            }
+            cancelled = true;
+            boolean pending = stop(timerFuture) | stop(workFuture);
+            if (statement != null) {
+                try {
+                    statement.cancel();
+                    statementsCancelled.incrementAndGet();
+                } catch (SQLException e) {
+                    logger.fine(() -> "Statement.cancel failed: " + e.getMessage());
+                }
+                return true;
+            }
+            return pending;
+        }
+    }
+
+    /**
+     * Counters since startup
+     */
+    public static final class Stats {
+        private final long submitted;
+        private final long superseded;
+        private final long statementsCancelled;
+        private final long delivered;
+        private final long failed;
+        private final long executed;
+        private final long queueWaitNanos;
+        private final long maxQueueWaitNanos;
+        private final long executionNanos;
+        private final long maxExecutionNanos;
+
+        Stats(long submitted, long superseded, long statementsCancelled, long delivered, long failed, long executed,
+                long queueWaitNanos, long maxQueueWaitNanos, long executionNanos, long maxExecutionNanos) {
+            this.submitted = submitted;
+            this.superseded = superseded;
+            this.statementsCancelled = statementsCancelled;
+            this.delivered = delivered;
+            this.failed = failed;
+            this.executed = executed;
+            this.queueWaitNanos = queueWaitNanos;
+            this.maxQueueWaitNanos = maxQueueWaitNanos;
+            this.executionNanos = executionNanos;
+            this.maxExecutionNanos = maxExecutionNanos;
+        }
+
+        public long getSubmitted() {
+            return submitted;
+        }
+
+        public long getSuperseded() {
+            return superseded;
+        }
+
+        public long getStatementsCancelled() {
+            return statementsCancelled;
+        }
+
+        public long getDelivered() {
+            return delivered;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getExecuted() {
+            return executed;
+        }
+
+        public double getAverageQueueWaitMillis() {
+            return executed == 0 ? 0 : queueWaitNanos / 1e6 / executed;
+        }
+
+        public double getMaxQueueWaitMillis() {
+            return maxQueueWaitNanos / 1e6;
+        }
+
+        public double getAverageExecutionMillis() {
+            return executed == 0 ? 0 : executionNanos / 1e6 / executed;
+        }
+
+        public double getMaxExecutionMillis() {
+            return maxExecutionNanos / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("submitted=%d superseded=%d cancelledStatements=%d delivered=%d failed=%d "
+                    + "executed=%d queueWait avg=%.1fms max=%.1fms exec avg=%.1fms max=%.1fms", submitted,
+                    superseded, statementsCancelled, delivered, failed, executed, getAverageQueueWaitMillis(),
+                    getMaxQueueWaitMillis(), getAverageExecutionMillis(), getMaxExecutionMillis());
+        }
+    }
+}
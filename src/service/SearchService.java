@@ -4,31 +4,38 @@ import Dao.SongDAO;
 import Model.Song;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.function.Consumer;
-import javax.swing.SwingUtilities;
+import utils.SongCache;
 
 /**
  * Shared search service for song lookups across all views.
- * - Uses a single-threaded executor to avoid hammering the DB with concurrent
- * requests.
- * - Caches recent queries to prevent duplicate calls for the same term.
+ * - Runs queries through SearchScheduler: views that search as the user types
+ * pass their own channel, so bursts are debounced and a newer query cancels
+ * the older one (including its running JDBC statement).
+ * - Caches recent queries (see SearchCache) to prevent duplicate calls for the
+ * same term; cached pages are dropped after a TTL or once SongDAO writes.
  * - Always marshals UI callbacks onto the EDT via SwingUtilities.invokeLater.
+ * - Fetches one page (PAGE_SIZE rows, most relevant first) per call; views
+ * ask for further pages with the offset/limit overload.
+ * - When the first page is empty, falls back to a typo-tolerant search of
+ * the in-memory library (SongCache.searchFuzzy).
  */
 public class SearchService {
 
     private static final SearchService INSTANCE = new SearchService();
 
+    /** Rows fetched by the single-page overloads */
+    public static final int PAGE_SIZE = 200;
+
+    private static final int CACHE_MAX_ENTRIES = 256;
+    private static final long CACHE_MAX_SONGS = 20_000;
+    private static final long CACHE_TTL_MILLIS = 5 * 60 * 1000;
+    /** Debounce delay for channels opened through openChannel() */
+    public static final long DEBOUNCE_MILLIS = 150;
+
     private final SongDAO songDao = new SongDAO();
-    private final Map<String, List<Song>> cache = new ConcurrentHashMap<>();
-    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
-        Thread t = new Thread(r, "song-search-thread");
-        t.setDaemon(true);
-        return t;
-    });
+    private final SearchCache cache = new SearchCache(CACHE_MAX_ENTRIES, CACHE_MAX_SONGS, CACHE_TTL_MILLIS);
+    private final SearchScheduler scheduler = SearchScheduler.getInstance();
 
     private SearchService() {
     }
@@ -38,30 +45,56 @@ public class SearchService {
     }
 
     /**
-     * Perform an async search and deliver results back on the EDT.
-     * Empty or blank terms return all songs from the DB.
+     * Perform an async search for the first page of results and deliver them
+     * back on the EDT. Empty or blank terms return no songs.
      */
     public void searchSongs(String rawTerm, Consumer<List<Song>> onSuccess, Consumer<Exception> onError) {
+        searchSongs(rawTerm, 0, PAGE_SIZE, onSuccess, onError);
+    }
+
+    /**
+     * Perform an async search for one page of results and deliver it back on
+     * the EDT. Runs right away and is never superseded.
+     */
+    public void searchSongs(String rawTerm, int offset, int limit, Consumer<List<Song>> onSuccess,
+            Consumer<Exception> onError) {
+        searchSongs(scheduler.openChannel("search", 0), rawTerm, offset, limit, onSuccess, onError);
+    }
+
+    /**
+     * Open a debounced, latest-wins channel for one view's search bar
+     */
+    public SearchScheduler.Channel openChannel(String name) {
+        return scheduler.openChannel(name, DEBOUNCE_MILLIS);
+    }
+
+    /**
+     * Perform an async search for one page of results on a view's channel.
+     * Supersedes the channel's previous search; only the newest result is
+     * delivered on the EDT.
+     */
+    public void searchSongs(SearchScheduler.Channel channel, String rawTerm, int offset, int limit,
+            Consumer<List<Song>> onSuccess, Consumer<Exception> onError) {
         final String term = rawTerm == null ? "" : rawTerm.trim();
 
         // Serve cached result if available to avoid duplicate DB calls
-        List<Song> cached = cache.get(term.toLowerCase());
-        if (cached != null) {
-            SwingUtilities.invokeLater(() -> onSuccess.accept(cached));
+        List<Song> cached = cache.get(term, offset, limit, SongDAO.getWriteGeneration());
+        if (cached != null && !cached.isEmpty()) {
+            channel.deliver(cached, onSuccess);
             return;
         }
 
-        executor.submit(() -> {
-            try {
-                List<Song> results = songDao.searchSongs(term);
-                cache.put(term.toLowerCase(), results);
-                SwingUtilities.invokeLater(() -> onSuccess.accept(results));
-            } catch (Exception ex) {
-                if (onError != null) {
-                    SwingUtilities.invokeLater(() -> onError.accept(ex));
-                }
-            }
-        });
+        channel.submit(ticket -> {
+            List<Song> results = cached != null ? cached : fetch(term, offset, limit, ticket);
+            return ticket.isCancelled() ? results : orFuzzy(results, term, offset, limit);
+        }, onSuccess, onError);
+    }
+
+    /**
+     * Debounce/cancellation counters and queue-wait/execution times
+     */
+    public SearchScheduler.Stats getSchedulerStats() {
+        return scheduler.getStats();
     }
 
     /**
@@ -72,16 +105,52 @@ public class SearchService {
     }
 
     /**
-     * Synchronous fallback for callers that already run off the EDT.
+     * Cache hit/miss/eviction counters, for diagnostics
+     */
+    public SearchCache.Stats getCacheStats() {
+        return cache.getStats();
+    }
+
+    /**
+     * Synchronous fallback for callers that already run off the EDT. Returns
+     * the first page only; use the offset/limit overload for the rest.
      */
     public List<Song> searchSongsSync(String rawTerm) {
+        return searchSongsSync(rawTerm, 0, PAGE_SIZE);
+    }
+
+    /**
+     * Synchronous search for one page of results
+     */
+    public List<Song> searchSongsSync(String rawTerm, int offset, int limit) {
         final String term = rawTerm == null ? "" : rawTerm.trim();
-        List<Song> cached = cache.get(term.toLowerCase());
-        if (cached != null) {
-            return cached;
+        List<Song> cached = cache.get(term, offset, limit, SongDAO.getWriteGeneration());
+        return orFuzzy(cached != null ? cached : fetch(term, offset, limit, null), term, offset, limit);
+    }
+
+    /**
+     * Exact results, or fuzzy library matches if the first page came back
+     * empty. Fuzzy results are not cached: they are cheap, and caching them
+     * would let prefix reuse hide them from longer terms.
+     */
+    private static List<Song> orFuzzy(List<Song> results, String term, int offset, int limit) {
+        if (!results.isEmpty() || offset > 0 || term.isEmpty()) {
+            return results;
+        }
+        return Collections.unmodifiableList(SongCache.searchFuzzy(term, limit));
+    }
+
+    /**
+     * Query the database and cache the page. The write generation is read
+     * first so a write racing with the query invalidates the cached rows.
+     */
+    private List<Song> fetch(String term, int offset, int limit, SearchScheduler.Ticket ticket) {
+        long generation = SongDAO.getWriteGeneration();
+        List<Song> results = songDao.searchSongs(term, offset, limit, ticket);
+        if (ticket != null && ticket.isCancelled()) {
+            // Possibly cut short by Statement.cancel(); never cache it
+            return results;
         }
-        List<Song> results = songDao.searchSongs(term);
-        cache.put(term.toLowerCase(), results);
-        return Collections.unmodifiableList(results);
+        return cache.put(term, offset, limit, results, generation);
     }
 }
@@ -0,0 +1,555 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Lightweight tag and duration reader for the formats SongDAO scans
+ * (mp3, flac, wav). Only the header region of each file is read, through a
+ * small per-thread direct buffer and positional FileChannel reads; large
+ * blocks we don't need (cover art, audio data) are skipped by offset.
+ *
+ * - MP3: ID3v2.2/2.3/2.4 text frames (ID3v1 as fallback), duration from the
+ *   Xing/Info or VBRI header, or from the first frame's bitrate for CBR
+ * - FLAC: STREAMINFO (sample rate, total samples) and VORBIS_COMMENT
+ * - WAV: RIFF fmt/data chunks and LIST/INFO (INAM, IART, IPRD)
+ *
+ * parse() returns null whenever the file is not understood, so the caller
+ * can fall back to jaudiotagger.
+ */
+public class AudioHeaderParser {
+    private static final int BUFFER_BYTES = 16 * 1024;
+    private static final int MAX_TEXT_BYTES = 4 * 1024;
+
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal
+            .withInitial(() -> ByteBuffer.allocateDirect(BUFFER_BYTES));
+
+    private static final int[][] BITRATES_V1 = {
+            { 0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448 }, // Layer I
+            { 0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384 }, // Layer II
+            { 0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320 } // Layer III
+    };
+    private static final int[][] BITRATES_V2 = {
+            { 0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256 }, // Layer I
+            { 0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160 }, // Layer II
+            { 0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160 } // Layer III
+    };
+    private static final int[][] SAMPLE_RATES = {
+            { 11025, 12000, 8000 }, // MPEG 2.5
+            { 0, 0, 0 }, // reserved
+            { 22050, 24000, 16000 }, // MPEG 2
+            { 44100, 48000, 32000 } // MPEG 1
+    };
+
+    /**
+     * Tags and duration read from a header; any field may be missing
+     */
+    public static class Result {
+        private String title;
+        private String artist;
+        private String album;
+        private int durationSeconds;
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getArtist() {
+            return artist;
+        }
+
+        public String getAlbum() {
+            return album;
+        }
+
+        public int getDurationSeconds() {
+            return durationSeconds;
+        }
+    }
+
+    /**
+     * Parse the header of an audio file
+     *
+     * @return tags and duration, or null if the file could not be parsed
+     */
+    public Result parse(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            Region in = new Region(ch, BUFFER.get());
+            if (name.endsWith(".mp3")) {
+                return parseMp3(in);
+            } else if (name.endsWith(".flac")) {
+                return parseFlac(in);
+            } else if (name.endsWith(".wav")) {
+                return parseWav(in);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not understood - caller falls back to jaudiotagger
+        }
+        return null;
+    }
+
+    // ---------------------------------------------------------------- MP3
+
+    private Result parseMp3(Region in) throws IOException {
+        Result r = new Result();
+        long audioStart = 0;
+
+        ByteBuffer b = in.read(0, 10);
+        if (b.remaining() == 10 && b.get(0) == 'I' && b.get(1) == 'D' && b.get(2) == '3') {
+            int major = b.get(3);
+            int flags = b.get(5) & 0xFF;
+            long tagSize = syncsafe(b, 6);
+            audioStart = 10 + tagSize + ((flags & 0x10) != 0 ? 10 : 0);
+            if ((flags & 0x80) != 0 || major < 2 || major > 4) {
+                return null; // unsynchronised or unknown version
+            }
+            readId3v2Frames(in, r, major, flags, 10 + tagSize);
+        }
+
+        if (r.title == null && r.artist == null && r.album == null) {
+            readId3v1(in, r);
+        }
+
+        double seconds = mp3Duration(in, audioStart);
+        if (seconds <= 0) {
+            return null;
+        }
+        r.durationSeconds = (int) Math.round(seconds);
+        return r;
+    }
+
+    private void readId3v2Frames(Region in, Result r, int major, int flags, long tagEnd) throws IOException {
+        long pos = 10;
+        if ((flags & 0x40) != 0) {
+            ByteBuffer ext = in.read(pos, 4);
+            pos += major == 4 ? syncsafe(ext, 0) : 4 + (ext.getInt(0) & 0xFFFFFFFFL);
+        }
+
+        int headerLen = major == 2 ? 6 : 10;
+        while (pos + headerLen <= tagEnd && (r.title == null || r.artist == null || r.album == null)) {
+            ByteBuffer h = in.read(pos, headerLen);
+            if (h.remaining() < headerLen || h.get(0) == 0) {
+                break; // padding
+            }
+            String id;
+            long size;
+            int formatFlags = 0;
+            if (major == 2) {
+                id = ascii(h, 0, 3);
+                size = ((h.get(3) & 0xFF) << 16) | ((h.get(4) & 0xFF) << 8) | (h.get(5) & 0xFF);
+            } else {
+                id = ascii(h, 0, 4);
+                size = major == 4 ? syncsafe(h, 4) : h.getInt(4) & 0xFFFFFFFFL;
+                formatFlags = h.get(9) & 0xFF;
+            }
+            long dataPos = pos + headerLen;
+            pos = dataPos + size;
+            if (size <= 0 || pos > tagEnd) {
+                break;
+            }
+
+            String field = id3Field(id);
+            if (field == null) {
+                continue;
+            }
+            boolean compressedOrEncrypted = major == 3 ? (formatFlags & 0xC0) != 0 : (formatFlags & 0x0E) != 0;
+            if (compressedOrEncrypted) {
+                continue;
+            }
+            long textPos = dataPos;
+            long textLen = size;
+            if (major == 4 && (formatFlags & 0x01) != 0) {
+                textPos += 4; // data length indicator
+                textLen -= 4;
+            }
+            String value = id3Text(in.read(textPos, (int) Math.min(textLen, MAX_TEXT_BYTES)));
+            if (value == null || value.isBlank()) {
+                continue;
+            }
+            switch (field) {
+                case "title":
+                    r.title = value;
+                    break;
+                case "artist":
+                    r.artist = value;
+                    break;
+                default:
+                    r.album = value;
+                    break;
+            }
+        }
+    }
+
+    private static String id3Field(String id) {
+        switch (id) {
+            case "TIT2":
+            case "TT2":
+                return "title";
+            case "TPE1":
+            case "TP1":
+                return "artist";
+            case "TALB":
+            case "TAL":
+                return "album";
+            default:
+                return null;
+        }
+    }
+
+    private static String id3Text(ByteBuffer b) {
+        if (b.remaining() < 1) {
+            return null;
+        }
+        int encoding = b.get(b.position());
+        Charset cs;
+        switch (encoding) {
+            case 0:
+                cs = StandardCharsets.ISO_8859_1;
+                break;
+            case 1:
+                cs = StandardCharsets.UTF_16;
+                break;
+            case 2:
+                cs = StandardCharsets.UTF_16BE;
+                break;
+            case 3:
+                cs = StandardCharsets.UTF_8;
+                break;
+            default:
+                return null;
+        }
+        byte[] bytes = new byte[b.remaining() - 1];
+        b.get(b.position() + 1, bytes);
+        String s = new String(bytes, cs);
+        int nul = s.indexOf('\0');
+        return (nul >= 0 ? s.substring(0, nul) : s).trim();
+    }
+
+    private void readId3v1(Region in, Result r) throws IOException {
+        if (in.size < 128) {
+            return;
+        }
+        ByteBuffer b = in.read(in.size - 128, 128);
+        if (b.remaining() < 128 || b.get(0) != 'T' || b.get(1) != 'A' || b.get(2) != 'G') {
+            return;
+        }
+        r.title = blankToNull(latin1(b, 3, 30));
+        r.artist = blankToNull(latin1(b, 33, 30));
+        r.album = blankToNull(latin1(b, 63, 30));
+    }
+
+    private boolean hasId3v1(Region in) throws IOException {
+        if (in.size < 128) {
+            return false;
+        }
+        ByteBuffer b = in.read(in.size - 128, 3);
+        return b.remaining() == 3 && b.get(0) == 'T' && b.get(1) == 'A' && b.get(2) == 'G';
+    }
+
+    /**
+     * Find the first MPEG frame after the tag (within one buffer) and derive
+     * the duration
+     */
+    private double mp3Duration(Region in, long audioStart) throws IOException {
+        ByteBuffer b = in.read(audioStart, in.buffer.capacity());
+        int limit = b.remaining();
+        for (int i = 0; i + 4 <= limit; i++) {
+            int header = b.getInt(b.position() + i);
+            Frame f = Frame.decode(header);
+            if (f == null) {
+                continue;
+            }
+            // Confirm with the following frame header when it is in the buffer
+            int next = i + f.length;
+            if (next + 4 <= limit && Frame.decode(b.getInt(b.position() + next)) == null) {
+                continue;
+            }
+            long frameStart = audioStart + i;
+            long frames = vbrFrameCount(in, frameStart, f);
+            if (frames > 0) {
+                return (double) frames * f.samplesPerFrame / f.sampleRate;
+            }
+            long audioBytes = in.size - frameStart - (hasId3v1(in) ? 128 : 0);
+            return audioBytes * 8.0 / (f.bitrateKbps * 1000.0);
+        }
+        return 0;
+    }
+
+    private long vbrFrameCount(Region in, long frameStart, Frame f) throws IOException {
+        ByteBuffer x = in.read(frameStart + f.xingOffset, 12);
+        if (x.remaining() >= 12) {
+            String tag = ascii(x, 0, 4);
+            if (("Xing".equals(tag) || "Info".equals(tag)) && (x.getInt(x.position() + 4) & 0x1) != 0) {
+                return x.getInt(x.position() + 8) & 0xFFFFFFFFL;
+            }
+        }
+        ByteBuffer v = in.read(frameStart + 36, 18);
+        if (v.remaining() >= 18 && "VBRI".equals(ascii(v, 0, 4))) {
+            return v.getInt(v.position() + 14) & 0xFFFFFFFFL;
+        }
+        return 0;
+    }
+
+    /**
+     * Decoded MPEG audio frame header
+     */
+    private static final class Frame {
+        int bitrateKbps;
+        int sampleRate;
+        int samplesPerFrame;
+        int length;
+        int xingOffset;
+
+        static Frame decode(int h) {
+            if ((h & 0xFFE00000) != 0xFFE00000) {
+                return null;
+            }
+            int version = (h >>> 19) & 3; // 0 = 2.5, 2 = 2, 3 = 1
+            int layerBits = (h >>> 17) & 3; // 1 = III, 2 = II, 3 = I
+            int bitrateIdx = (h >>> 12) & 0xF;
+            int rateIdx = (h >>> 10) & 3;
+            int padding = (h >>> 9) & 1;
+            boolean mono = ((h >>> 6) & 3) == 3;
+            if (version == 1 || layerBits == 0 || bitrateIdx == 0 || bitrateIdx == 15 || rateIdx == 3) {
+                return null;
+            }
+            int layer = 4 - layerBits; // 1, 2 or 3
+            boolean v1 = version == 3;
+
+            Frame f = new Frame();
+            f.bitrateKbps = (v1 ? BITRATES_V1 : BITRATES_V2)[layer - 1][bitrateIdx];
+            f.sampleRate = SAMPLE_RATES[version][rateIdx];
+            int bps = f.bitrateKbps * 1000;
+            if (layer == 1) {
+                f.samplesPerFrame = 384;
+                f.length = (12 * bps / f.sampleRate + padding) * 4;
+            } else if (layer == 2 || v1) {
+                f.samplesPerFrame = 1152;
+                f.length = 144 * bps / f.sampleRate + padding;
+            } else {
+                f.samplesPerFrame = 576;
+                f.length = 72 * bps / f.sampleRate + padding;
+            }
+            // 4-byte header + side information
+            f.xingOffset = 4 + (v1 ? (mono ? 17 : 32) : (mono ? 9 : 17));
+            return f.length > 4 ? f : null;
+        }
+    }
+
+    // --------------------------------------------------------------- FLAC
+
+    private Result parseFlac(Region in) throws IOException {
+        long pos = 0;
+        ByteBuffer b = in.read(0, 10);
+        if (b.remaining() >= 10 && b.get(0) == 'I' && b.get(1) == 'D' && b.get(2) == '3') {
+            pos = 10 + syncsafe(b, 6); // stray ID3v2 in front of the stream
+            b = in.read(pos, 4);
+        }
+        if (b.remaining() < 4 || !"fLaC".equals(ascii(b, 0, 4))) {
+            return null;
+        }
+        pos += 4;
+
+        Result r = new Result();
+        boolean streamInfo = false;
+        boolean last = false;
+        while (!last && pos + 4 <= in.size) {
+            ByteBuffer h = in.read(pos, 4);
+            int type = h.get(0) & 0x7F;
+            last = (h.get(0) & 0x80) != 0;
+            int len = ((h.get(1) & 0xFF) << 16) | ((h.get(2) & 0xFF) << 8) | (h.get(3) & 0xFF);
+            long dataPos = pos + 4;
+            pos = dataPos + len;
+
+            if (type == 0 && len >= 34) {
+                ByteBuffer s = in.read(dataPos, 34);
+                int p = s.position();
+                int sampleRate = ((s.get(p + 10) & 0xFF) << 12) | ((s.get(p + 11) & 0xFF) << 4)
+                        | ((s.get(p + 12) & 0xFF) >>> 4);
+                long totalSamples = ((long) (s.get(p + 13) & 0x0F) << 32) | (s.getInt(p + 14) & 0xFFFFFFFFL);
+                if (sampleRate <= 0) {
+                    return null;
+                }
+                r.durationSeconds = (int) Math.round((double) totalSamples / sampleRate);
+                streamInfo = true;
+            } else if (type == 4) {
+                readVorbisComments(in.read(dataPos, Math.min(len, in.buffer.capacity())), r);
+                break; // STREAMINFO always comes first
+            }
+        }
+        return streamInfo ? r : null;
+    }
+
+    private void readVorbisComments(ByteBuffer b, Result r) {
+        b.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            int vendorLen = b.getInt();
+            b.position(b.position() + vendorLen);
+            int count = b.getInt();
+            for (int i = 0; i < count && b.remaining() >= 4; i++) {
+                int len = b.getInt();
+                if (len < 0 || len > b.remaining()) {
+                    break;
+                }
+                byte[] bytes = new byte[len];
+                b.get(bytes);
+                String comment = new String(bytes, StandardCharsets.UTF_8);
+                int eq = comment.indexOf('=');
+                if (eq <= 0) {
+                    continue;
+                }
+                String key = comment.substring(0, eq).toUpperCase(Locale.ROOT);
+                String value = blankToNull(comment.substring(eq + 1).trim());
+                if (value == null) {
+                    continue;
+                }
+                if ("TITLE".equals(key) && r.title == null) {
+                    r.title = value;
+                } else if ("ARTIST".equals(key) && r.artist == null) {
+                    r.artist = value;
+                } else if ("ALBUM".equals(key) && r.album == null) {
+                    r.album = value;
+                }
+            }
+        } finally {
+            b.order(ByteOrder.BIG_ENDIAN);
+        }
+    }
+
+    // ---------------------------------------------------------------- WAV
+
+    private Result parseWav(Region in) throws IOException {
+        ByteBuffer b = in.read(0, 12);
+        if (b.remaining() < 12 || !"RIFF".equals(ascii(b, 0, 4)) || !"WAVE".equals(ascii(b, 8, 4))) {
+            return null;
+        }
+
+        Result r = new Result();
+        long byteRate = 0;
+        long dataSize = -1;
+        long pos = 12;
+        while (pos + 8 <= in.size) {
+            ByteBuffer h = in.read(pos, 8);
+            String id = ascii(h, 0, 4);
+            long size = Integer.reverseBytes(h.getInt(h.position() + 4)) & 0xFFFFFFFFL;
+            long dataPos = pos + 8;
+
+            if ("fmt ".equals(id) && size >= 16) {
+                ByteBuffer f = in.read(dataPos, 16);
+                byteRate = Integer.reverseBytes(f.getInt(f.position() + 8)) & 0xFFFFFFFFL;
+            } else if ("data".equals(id)) {
+                // Streamed files may leave the size unset
+                dataSize = size == 0xFFFFFFFFL || dataPos + size > in.size ? in.size - dataPos : size;
+            } else if ("LIST".equals(id) && size >= 4) {
+                readInfoList(in, dataPos, size, r);
+            }
+            pos = dataPos + size + (size & 1);
+        }
+
+        if (byteRate <= 0 || dataSize < 0) {
+            return null;
+        }
+        r.durationSeconds = (int) Math.round((double) dataSize / byteRate);
+        return r;
+    }
+
+    private void readInfoList(Region in, long listPos, long listSize, Result r) throws IOException {
+        ByteBuffer t = in.read(listPos, 4);
+        if (t.remaining() < 4 || !"INFO".equals(ascii(t, 0, 4))) {
+            return;
+        }
+        long pos = listPos + 4;
+        long end = listPos + listSize;
+        while (pos + 8 <= end) {
+            ByteBuffer h = in.read(pos, 8);
+            String id = ascii(h, 0, 4);
+            long size = Integer.reverseBytes(h.getInt(h.position() + 4)) & 0xFFFFFFFFL;
+            long dataPos = pos + 8;
+            if ("INAM".equals(id) || "IART".equals(id) || "IPRD".equals(id)) {
+                ByteBuffer v = in.read(dataPos, (int) Math.min(size, MAX_TEXT_BYTES));
+                byte[] bytes = new byte[v.remaining()];
+                v.get(v.position(), bytes);
+                String value = new String(bytes, StandardCharsets.UTF_8);
+                int nul = value.indexOf('\0');
+                value = blankToNull((nul >= 0 ? value.substring(0, nul) : value).trim());
+                if ("INAM".equals(id)) {
+                    r.title = value;
+                } else if ("IART".equals(id)) {
+                    r.artist = value;
+                } else {
+                    r.album = value;
+                }
+            }
+            pos = dataPos + size + (size & 1);
+        }
+    }
+
+    // ------------------------------------------------------------ helpers
+
+    private static long syncsafe(ByteBuffer b, int at) {
+        int p = b.position() + at;
+        return ((b.get(p) & 0x7F) << 21) | ((b.get(p + 1) & 0x7F) << 14)
+                | ((b.get(p + 2) & 0x7F) << 7) | (b.get(p + 3) & 0x7F);
+    }
+
+    private static String ascii(ByteBuffer b, int at, int len) {
+        byte[] bytes = new byte[len];
+        b.get(b.position() + at, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private static String latin1(ByteBuffer b, int at, int len) {
+        byte[] bytes = new byte[len];
+        b.get(b.position() + at, bytes);
+        int end = len;
+        while (end > 0 && (bytes[end - 1] == 0 || bytes[end - 1] == ' ')) {
+            end--;
+        }
+        return new String(bytes, 0, end, StandardCharsets.ISO_8859_1);
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s;
+    }
+
+    /**
+     * Positional reads of small regions into the shared per-thread buffer.
+     * Each read() invalidates the buffer returned by the previous one.
+     */
+    private static final class Region {
+        final FileChannel channel;
+        final ByteBuffer buffer;
+        final long size;
+
+        Region(FileChannel channel, ByteBuffer buffer) throws IOException {
+            this.channel = channel;
+            this.buffer = buffer;
+            this.size = channel.size();
+        }
+
+        ByteBuffer read(long pos, int len) throws IOException {
+            buffer.clear();
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if (pos < 0 || pos >= size || len <= 0) {
+                buffer.limit(0);
+                return buffer;
+            }
+            buffer.limit(Math.min(len, buffer.capacity()));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, pos + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+}
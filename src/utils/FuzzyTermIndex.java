@@ -0,0 +1,201 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FuzzyTermIndex - typo-tolerant lookup of indexed search terms
+ *
+ * - Every term is split into trigrams of "^^term$"; a trigram maps to the
+ *   ids of the terms containing it
+ * - A lookup counts shared trigrams per term and only verifies terms that
+ *   share enough of them: one edit (a transposition being the worst case)
+ *   can destroy at most four trigrams, so a term within k edits shares at
+ *   least (query trigrams - 4k)
+ * - Survivors are verified with a bounded Damerau-Levenshtein (optimal
+ *   string alignment) distance that gives up as soon as a row exceeds k
+ *
+ * Prefix lookups leave the "$" trigram out of the query and measure the
+ * distance to the closest prefix of each term, for partially typed words.
+ *
+ * Not thread safe; SongSearchIndex guards it with its own lock. Terms are
+ * never removed (a term whose songs are all gone simply finds no songs).
+ */
+final class FuzzyTermIndex {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private final Map<Long, IntList> trigrams = new HashMap<>();
+
+    /**
+     * A term within the edit budget of a looked-up word
+     */
+    static final class Match {
+        final String term;
+        final int distance;
+
+        Match(String term, int distance) {
+            this.term = term;
+            this.distance = distance;
+        }
+    }
+
+    void add(String term) {
+        if (ids.containsKey(term)) {
+            return;
+        }
+        int id = terms.size();
+        ids.put(term, id);
+        terms.add(term);
+        for (long g : trigramsOf(term, true)) {
+            trigrams.computeIfAbsent(g, k -> new IntList()).add(id);
+        }
+    }
+
+    void clear() {
+        ids.clear();
+        terms.clear();
+        trigrams.clear();
+    }
+
+    int size() {
+        return terms.size();
+    }
+
+    /**
+     * Edits allowed for a word of this length: none for short words, then
+     * one more per 4 characters, capped at maxEdits. Keeps the trigram bound
+     * above zero so no lookup has to scan the whole vocabulary.
+     */
+    static int editBudget(String word, int maxEdits, boolean prefix) {
+        return Math.min(maxEdits, (prefix ? word.length() - 1 : word.length()) / 4);
+    }
+
+    /**
+     * Find indexed terms within maxEdits of word (or of a prefix of them,
+     * when prefix is true)
+     */
+    List<Match> lookup(String word, int maxEdits, boolean prefix) {
+        List<Match> matches = new ArrayList<>();
+        int k = editBudget(word, maxEdits, prefix);
+        if (k == 0 || terms.isEmpty()) {
+            return matches;
+        }
+        long[] query = trigramsOf(word, !prefix);
+        int needed = query.length - 4 * k;
+        int[] shared = new int[terms.size()];
+        IntList touched = new IntList();
+        for (long g : query) {
+            IntList list = trigrams.get(g);
+            if (list == null) {
+                continue;
+            }
+            for (int i = 0; i < list.size; i++) {
+                int id = list.values[i];
+                if (shared[id]++ == 0) {
+                    touched.add(id);
+                }
+            }
+        }
+        for (int i = 0; i < touched.size; i++) {
+            int id = touched.values[i];
+            if (shared[id] < needed) {
+                continue;
+            }
+            String term = terms.get(id);
+            int lengthGap = term.length() - word.length();
+            if (lengthGap < -k || (!prefix && lengthGap > k)) {
+                continue;
+            }
+            int d = distance(word, term, k, prefix);
+            if (d <= k) {
+                matches.add(new Match(term, d));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Optimal string alignment distance between a and b (or the closest
+     * prefix of b), or max + 1 once it is certain to exceed max
+     */
+    static int distance(String a, String b, int max, boolean prefixOfB) {
+        int n = a.length();
+        int m = prefixOfB ? Math.min(b.length(), n + max) : b.length();
+        if (!prefixOfB && Math.abs(n - m) > max) {
+            return max + 1;
+        }
+        int[] prev2 = new int[m + 1];
+        int[] prev = new int[m + 1];
+        int[] cur = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            cur[0] = i;
+            int rowMin = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                char cb = b.charAt(j - 1);
+                int cost = ca == cb ? 0 : 1;
+                int v = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == cb) {
+                    v = Math.min(v, prev2[j - 2] + 1);
+                }
+                cur[j] = v;
+                rowMin = Math.min(rowMin, v);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] t = prev2;
+            prev2 = prev;
+            prev = cur;
+            cur = t;
+        }
+        int d;
+        if (prefixOfB) {
+            d = Integer.MAX_VALUE;
+            for (int j = 0; j <= m; j++) {
+                d = Math.min(d, prev[j]);
+            }
+        } else {
+            d = prev[m];
+        }
+        return Math.min(d, max + 1);
+    }
+
+    /**
+     * Distinct trigrams of "^^word" (plus "$" when closed), packed into longs
+     */
+    private static long[] trigramsOf(String word, boolean closed) {
+        String padded = "^^" + word + (closed ? "$" : "");
+        long[] out = new long[padded.length() - 2];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+        }
+        Arrays.sort(out);
+        int unique = 0;
+        for (int i = 0; i < out.length; i++) {
+            if (i == 0 || out[i] != out[i - 1]) {
+                out[unique++] = out[i];
+            }
+        }
+        return Arrays.copyOf(out, unique);
+    }
+
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int v) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = v;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package utils;
+
+import Model.LibraryDelta;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * Simple observer to notify open views when the local library changes.
+ * Views register a callback that receives the added/changed/removed songs;
+ * callbacks always run on the EDT, after SongCache has been updated.
+ */
+public final class LibraryChangeNotifier {
+
+    private static final List<Consumer<LibraryDelta>> listeners = new CopyOnWriteArrayList<>();
+
+    private LibraryChangeNotifier() {
+    }
+
+    public static void register(Consumer<LibraryDelta> listener) {
+        if (listener != null) {
+            listeners.add(listener);
+        }
+    }
+
+    public static void unregister(Consumer<LibraryDelta> listener) {
+        listeners.remove(listener);
+    }
+
+    public static void notifyChanged(LibraryDelta delta) {
+        if (delta == null || delta.isEmpty()) {
+            return;
+        }
+        SwingUtilities.invokeLater(() -> listeners.forEach(l -> l.accept(delta)));
+    }
+}
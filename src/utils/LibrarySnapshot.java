@@ -0,0 +1,237 @@
+package utils;
+
+import Model.Song;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * LibrarySnapshot - compact binary image of SongCache for fast cold start
+ *
+ * Layout (big-endian):
+ * - Header (32 bytes): magic, version, song count, string count,
+ *   string data length, CRC32 of everything after the header, reserved
+ * - String offsets: one int per string into the string data
+ * - String data: UTF-8 bytes, each prefixed by its int length.
+ *   Every title, artist, album and path is stored once (artists and albums
+ *   repeat across many songs and are interned)
+ * - Song records: fixed 24 bytes each:
+ *   title, artist, album and path string indexes, duration, songId
+ *
+ * The file is read through a memory-mapped FileChannel. On Windows it is
+ * read into a heap buffer instead: a mapping stays until the buffer is
+ * garbage collected, and Windows refuses to replace a mapped file, so the
+ * next write() would fail. A wrong magic, version or checksum makes read()
+ * return null so the caller falls back to a full scan. Stored at ~/.mellow/library.snapshot by default (override with
+ * -Dmellow.snapshot=...).
+ */
+public final class LibrarySnapshot {
+    private static final Logger logger = Logger.getLogger(LibrarySnapshot.class.getName());
+    private static final int MAGIC = 0x4D4C5353; // "MLSS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int RECORD_BYTES = 24;
+    private static final boolean MAP_FILE = !System.getProperty("os.name", "").startsWith("Windows");
+
+    private LibrarySnapshot() {
+    }
+
+    /**
+     * Default snapshot location under the user's home directory
+     */
+    public static Path defaultLocation() {
+        String override = System.getProperty("mellow.snapshot");
+        if (override != null && !override.isBlank()) {
+            return Paths.get(override);
+        }
+        return Paths.get(System.getProperty("user.home"), ".mellow", "library.snapshot");
+    }
+
+    /**
+     * Write songs to file atomically (temp file, then move)
+     *
+     * @return true if the snapshot was written
+     */
+    public static boolean write(Path file, List<Song> songs) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        int[] records = new int[songs.size() * 6];
+        int r = 0;
+        for (Song s : songs) {
+            records[r++] = intern(s.getTitle(), ids, strings);
+            records[r++] = intern(s.getArtist(), ids, strings);
+            records[r++] = intern(s.getAlbum(), ids, strings);
+            records[r++] = intern(s.getFilePath(), ids, strings);
+            records[r++] = s.getDurationSeconds();
+            records[r++] = s.getSongId();
+        }
+
+        try {
+            // Body = offsets + string data + records; checksummed as one block
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            DataOutputStream dataOut = new DataOutputStream(data);
+            int[] offsets = new int[strings.size()];
+            for (int i = 0; i < strings.size(); i++) {
+                offsets[i] = dataOut.size();
+                byte[] bytes = strings.get(i).getBytes(StandardCharsets.UTF_8);
+                dataOut.writeInt(bytes.length);
+                dataOut.write(bytes);
+            }
+            dataOut.flush();
+
+            ByteBuffer body = ByteBuffer.allocate(offsets.length * 4 + data.size() + records.length * 4);
+            for (int offset : offsets) {
+                body.putInt(offset);
+            }
+            body.put(data.toByteArray());
+            for (int value : records) {
+                body.putInt(value);
+            }
+            body.flip();
+
+            CRC32 crc = new CRC32();
+            crc.update(body.duplicate());
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putInt(songs.size());
+            header.putInt(strings.size());
+            header.putInt(data.size());
+            header.putLong(crc.getValue());
+            header.putInt(0);
+
+            Path dir = file.toAbsolutePath().getParent();
+            if (dir != null) {
+                Files.createDirectories(dir);
+            }
+            Path tmp = Files.createTempFile(dir, "library", ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                out.write(header.array());
+                out.write(body.array());
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.deleteIfExists(tmp);
+                throw e;
+            }
+            logger.info("Library snapshot written: " + songs.size() + " songs, " + strings.size() + " strings");
+            return true;
+        } catch (IOException e) {
+            logger.warning("Could not write library snapshot: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Read a snapshot (memory-mapped except on Windows)
+     *
+     * @param imagePath image path to assign to each song
+     * @return the songs, or null if the file is missing, truncated or corrupt
+     */
+    public static List<Song> read(Path file, String imagePath) {
+        if (file == null || !Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                return corrupt(file, "bad size " + size);
+            }
+            ByteBuffer buf = MAP_FILE ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size) : readAll(channel, size);
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+                return corrupt(file, "unknown format");
+            }
+            int songCount = buf.getInt();
+            int stringCount = buf.getInt();
+            int dataBytes = buf.getInt();
+            long checksum = buf.getLong();
+            buf.getInt(); // reserved
+
+            long expected = HEADER_BYTES + 4L * stringCount + dataBytes + (long) RECORD_BYTES * songCount;
+            if (songCount < 0 || stringCount < 0 || dataBytes < 0 || expected != size) {
+                return corrupt(file, "size mismatch");
+            }
+
+            ByteBuffer body = buf.slice();
+            CRC32 crc = new CRC32();
+            crc.update(body.duplicate());
+            if (crc.getValue() != checksum) {
+                return corrupt(file, "checksum mismatch");
+            }
+
+            int dataStart = 4 * stringCount;
+            String[] strings = new String[stringCount];
+            for (int i = 0; i < stringCount; i++) {
+                int pos = dataStart + body.getInt(4 * i);
+                int len = body.getInt(pos);
+                byte[] bytes = new byte[len];
+                body.get(pos + 4, bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            int recordStart = dataStart + dataBytes;
+            List<Song> songs = new ArrayList<>(songCount);
+            for (int i = 0; i < songCount; i++) {
+                int at = recordStart + i * RECORD_BYTES;
+                Song song = new Song(
+                        strings[body.getInt(at)],
+                        strings[body.getInt(at + 4)],
+                        strings[body.getInt(at + 8)],
+                        body.getInt(at + 16),
+                        strings[body.getInt(at + 12)]);
+                song.setSongId(body.getInt(at + 20));
+                song.setImagePath(imagePath);
+                songs.add(song);
+            }
+            logger.info("Library snapshot loaded: " + songCount + " songs");
+            return songs;
+        } catch (IOException | RuntimeException e) {
+            return corrupt(file, e.toString());
+        }
+    }
+
+    private static ByteBuffer readAll(FileChannel channel, long size) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate((int) size);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf) < 0) {
+                throw new IOException("unexpected end of file");
+            }
+        }
+        buf.flip();
+        return buf;
+    }
+
+    private static int intern(String value, Map<String, Integer> ids, List<String> strings) {
+        String key = value == null ? "" : value;
+        Integer id = ids.get(key);
+        if (id == null) {
+            id = strings.size();
+            ids.put(key, id);
+            strings.add(key);
+        }
+        return id;
+    }
+
+    private static List<Song> corrupt(Path file, String reason) {
+        logger.warning("Ignoring library snapshot " + file + " (" + reason + "), falling back to full scan");
+        return null;
+    }
+}
@@ -0,0 +1,175 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * LoudnessMeter - integrated loudness and sample peak of decoded PCM
+ *
+ * Follows ITU-R BS.1770 / EBU R128:
+ * - Every channel is K-weighted (high shelf, then high pass) with biquad
+ *   coefficients derived for the actual sample rate
+ * - Mean square energy is summed per 100 ms step; gating blocks are 400 ms
+ *   long and overlap by 75%
+ * - Integrated loudness averages the blocks above the absolute gate
+ *   (-70 LUFS) and the relative gate (10 LU below the first average)
+ *
+ * The LFE channel of a 5.1 stream is left out and its surrounds weighted by
+ * 1.41, as in the standard. One meter measures one stream and is not thread
+ * safe.
+ */
+public final class LoudnessMeter {
+    private static final double ABSOLUTE_GATE_LUFS = -70;
+    private static final double RELATIVE_GATE_LU = -10;
+
+    private final int channels;
+    private final int stepFrames;
+    private final double[] weights;
+    private final Biquad[] shelf;
+    private final Biquad[] highPass;
+
+    private final double[] steps = new double[4];
+    private int stepCount = 0;
+    private double stepEnergy = 0;
+    private int stepFill = 0;
+    private double[] blocks = new double[256];
+    private int blockCount = 0;
+    private double peak = 0;
+
+    public LoudnessMeter(float sampleRate, int channels) {
+        this.channels = channels;
+        this.stepFrames = Math.max(1, Math.round(sampleRate / 10));
+        this.weights = new double[channels];
+        for (int c = 0; c < channels; c++) {
+            weights[c] = channels == 6 && c == 3 ? 0 : channels == 6 && c >= 4 ? 1.41 : 1.0;
+        }
+
+        // Stage 1: high shelf, about +4 dB above 1.5 kHz
+        double k = Math.tan(Math.PI * 1681.974450955533 / sampleRate);
+        double q = 0.7071752369554196;
+        double vh = Math.pow(10, 3.999843853973347 / 20);
+        double vb = Math.pow(vh, 0.4996667741545416);
+        double a0 = 1 + k / q + k * k;
+        double[] sb = { (vh + vb * k / q + k * k) / a0, 2 * (k * k - vh) / a0, (vh - vb * k / q + k * k) / a0 };
+        double[] sa = { 2 * (k * k - 1) / a0, (1 - k / q + k * k) / a0 };
+
+        // Stage 2: high pass at about 38 Hz
+        k = Math.tan(Math.PI * 38.13547087602444 / sampleRate);
+        q = 0.5003270373238773;
+        a0 = 1 + k / q + k * k;
+        double[] hb = { 1, -2, 1 };
+        double[] ha = { 2 * (k * k - 1) / a0, (1 - k / q + k * k) / a0 };
+
+        shelf = new Biquad[channels];
+        highPass = new Biquad[channels];
+        for (int c = 0; c < channels; c++) {
+            shelf[c] = new Biquad(sb, sa);
+            highPass[c] = new Biquad(hb, ha);
+        }
+    }
+
+    /**
+     * Feed interleaved samples in [-1, 1]
+     *
+     * @param frames number of frames (samples per channel) in the buffer
+     */
+    public void process(float[] interleaved, int frames) {
+        int i = 0;
+        for (int f = 0; f < frames; f++) {
+            double sum = 0;
+            for (int c = 0; c < channels; c++, i++) {
+                double x = interleaved[i];
+                double ax = Math.abs(x);
+                if (ax > peak) {
+                    peak = ax;
+                }
+                double y = highPass[c].filter(shelf[c].filter(x));
+                sum += weights[c] * y * y;
+            }
+            stepEnergy += sum;
+            if (++stepFill == stepFrames) {
+                endStep();
+            }
+        }
+    }
+
+    /**
+     * Integrated loudness in LUFS, or NaN if nothing passed the gates
+     * (silence, or less than 400 ms of audio)
+     */
+    public double getIntegratedLufs() {
+        double threshold = energyOf(ABSOLUTE_GATE_LUFS);
+        double sum = 0;
+        int n = 0;
+        for (int i = 0; i < blockCount; i++) {
+            if (blocks[i] > threshold) {
+                sum += blocks[i];
+                n++;
+            }
+        }
+        if (n == 0) {
+            return Double.NaN;
+        }
+        double relative = Math.max(threshold, energyOf(lufsOf(sum / n) + RELATIVE_GATE_LU));
+        sum = 0;
+        n = 0;
+        for (int i = 0; i < blockCount; i++) {
+            if (blocks[i] > relative) {
+                sum += blocks[i];
+                n++;
+            }
+        }
+        return n == 0 ? Double.NaN : lufsOf(sum / n);
+    }
+
+    /**
+     * Largest absolute sample value seen (1.0 = full scale)
+     */
+    public double getPeak() {
+        return peak;
+    }
+
+    private void endStep() {
+        steps[stepCount++ % 4] = stepEnergy / stepFrames;
+        stepEnergy = 0;
+        stepFill = 0;
+        if (stepCount >= 4) {
+            if (blockCount == blocks.length) {
+                blocks = Arrays.copyOf(blocks, blockCount * 2);
+            }
+            blocks[blockCount++] = (steps[0] + steps[1] + steps[2] + steps[3]) / 4;
+        }
+    }
+
+    private static double lufsOf(double energy) {
+        return -0.691 + 10 * Math.log10(energy);
+    }
+
+    private static double energyOf(double lufs) {
+        return Math.pow(10, (lufs + 0.691) / 10);
+    }
+
+    /**
+     * Direct form I biquad with a0 normalised to 1
+     */
+    private static final class Biquad {
+        private final double b0, b1, b2, a1, a2;
+        private double x1, x2, y1, y2;
+
+        Biquad(double[] b, double[] a) {
+            b0 = b[0];
+            b1 = b[1];
+            b2 = b[2];
+            a1 = a[0];
+            a2 = a[1];
+        }
+
+        double filter(double x) {
+            double y = b0 * x + b1 * x1 + b2 * x2 - a1 * y1 - a2 * y2;
+            x2 = x1;
+            x1 = x;
+            y2 = y1;
+            y1 = y;
+            return y;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * LoudnessStore - Singleton holding the loudness analysis of local files
+ *
+ * Results are keyed by absolute file path together with the file size and
+ * modification time they were measured for; a result for an older version
+ * of the file counts as missing. Files that could not be measured are kept
+ * too (source NONE) so they are not retried until they change.
+ *
+ * Written behind like PlayCounts: a save is scheduled SAVE_DELAY_SECONDS
+ * after the first unsaved result, and once more on exit (saveOnExit()), so an
+ * interrupted analysis resumes where it stopped.
+ *
+ * Stored at ~/.mellow/loudness.bin by default (override with
+ * -Dmellow.loudness=...). A missing or unreadable file starts empty.
+ */
+public class LoudnessStore {
+    private static final Logger logger = Logger.getLogger(LoudnessStore.class.getName());
+    private static final int MAGIC = 0x4D4C4C44; // "MLLD"
+    private static final int VERSION = 1;
+    private static final long SAVE_DELAY_SECONDS = 10;
+    private static LoudnessStore instance;
+
+    /**
+     * Where a result came from
+     */
+    public enum Source {
+        NONE,
+        MEASURED,
+        TAGGED
+    }
+
+    private final Path file;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final ScheduledExecutorService writer;
+    private ScheduledFuture<?> pendingSave;
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized LoudnessStore getInstance() {
+        if (instance == null) {
+            instance = new LoudnessStore(defaultLocation());
+        }
+        return instance;
+    }
+
+    /**
+     * Private constructor - use getInstance()
+     */
+    private LoudnessStore(Path file) {
+        this.file = file;
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "loudness-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        load();
+    }
+
+    /**
+     * Final save on exit (Mellow's shutdown sequence). Does nothing if the
+     * store was never loaded.
+     */
+    public static void saveOnExit() {
+        LoudnessStore store;
+        synchronized (LoudnessStore.class) {
+            store = instance;
+        }
+        if (store != null) {
+            store.save();
+        }
+    }
+
+    /**
+     * Default location under the user's home directory
+     */
+    public static Path defaultLocation() {
+        String override = System.getProperty("mellow.loudness");
+        if (override != null && !override.isBlank()) {
+            return Paths.get(override);
+        }
+        return Paths.get(System.getProperty("user.home"), ".mellow", "loudness.bin");
+    }
+
+    /**
+     * Get the result for a file path, whatever version it was measured for
+     */
+    public synchronized Entry get(String path) {
+        return path == null ? null : entries.get(path);
+    }
+
+    /**
+     * Get the result for a file path if it matches the given size and mtime
+     */
+    public synchronized Entry getCurrent(String path, long size, long mtime) {
+        Entry e = get(path);
+        return e != null && e.size == size && e.mtime == mtime ? e : null;
+    }
+
+    /**
+     * Store a result and schedule a save
+     */
+    public synchronized void put(String path, Entry entry) {
+        if (path == null || entry == null) {
+            return;
+        }
+        entries.put(path, entry);
+        if (pendingSave == null) {
+            pendingSave = writer.schedule(this::save, SAVE_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Write all results to disk now (temp file, then move)
+     */
+    public void save() {
+        Map<String, Entry> copy;
+        synchronized (this) {
+            if (pendingSave != null) {
+                pendingSave.cancel(false);
+                pendingSave = null;
+            }
+            copy = new HashMap<>(entries);
+        }
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            if (dir != null) {
+                Files.createDirectories(dir);
+            }
+            Path tmp = Files.createTempFile(dir, "loudness", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(copy.size());
+                for (Map.Entry<String, Entry> e : copy.entrySet()) {
+                    Entry v = e.getValue();
+                    out.writeUTF(e.getKey());
+                    out.writeLong(v.size);
+                    out.writeLong(v.mtime);
+                    out.writeByte(v.source.ordinal());
+                    out.writeFloat(v.lufs);
+                    out.writeFloat(v.peak);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warning("Could not save loudness results: " + e.getMessage());
+        }
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        Source[] sources = Source.values();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.warning("Ignoring loudness results with unknown format: " + file);
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                long size = in.readLong();
+                long mtime = in.readLong();
+                int source = in.readByte();
+                float lufs = in.readFloat();
+                float peak = in.readFloat();
+                if (source >= 0 && source < sources.length) {
+                    entries.put(path, new Entry(size, mtime, sources[source], lufs, peak));
+                }
+            }
+        } catch (IOException e) {
+            logger.warning("Could not read loudness results: " + e.getMessage());
+            entries.clear();
+        }
+    }
+
+    /**
+     * Integrated loudness and peak of one version of a file
+     */
+    public static final class Entry {
+        private final long size;
+        private final long mtime;
+        private final Source source;
+        private final float lufs;
+        private final float peak;
+
+        public Entry(long size, long mtime, Source source, float lufs, float peak) {
+            this.size = size;
+            this.mtime = mtime;
+            this.source = source;
+            this.lufs = lufs;
+            this.peak = peak;
+        }
+
+        public Source getSource() {
+            return source;
+        }
+
+        /**
+         * Integrated loudness in LUFS (NaN when source is NONE)
+         */
+        public float getLufs() {
+            return lufs;
+        }
+
+        /**
+         * Sample peak, 1.0 = full scale (0 when unknown)
+         */
+        public float getPeak() {
+            return peak;
+        }
+
+        /**
+         * Linear gain that brings the file to targetLufs without clipping.
+         * Capped at 1.0: a MediaPlayer cannot amplify.
+         */
+        public double gainFor(double targetLufs) {
+            if (source == Source.NONE || Float.isNaN(lufs)) {
+                return 1.0;
+            }
+            double gain = Math.pow(10, (targetLufs - lufs) / 20);
+            if (peak > 0) {
+                gain = Math.min(gain, 1.0 / peak);
+            }
+            return Math.min(1.0, gain);
+        }
+    }
+}
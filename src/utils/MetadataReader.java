@@ -3,6 +3,7 @@ package utils;
 import Model.Song;
 import java.io.File;
 import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
 
 // jaudiotagger imports
 import org.jaudiotagger.audio.AudioFile;
@@ -12,10 +13,19 @@ import org.jaudiotagger.tag.FieldKey;
 import org.jaudiotagger.tag.Tag;
 
 /**
- * Utility to read audio metadata using jaudiotagger.
- * Falls back to filename when fields are missing.
+ * Utility to read audio metadata.
+ * mp3, flac and wav headers are read first by AudioHeaderParser; files it
+ * cannot parse go through jaudiotagger. Falls back to filename when fields
+ * are missing. Set -Dmellow.nativeTags=false to always use jaudiotagger.
  */
 public class MetadataReader {
+    private static final boolean NATIVE_TAGS = !"false".equalsIgnoreCase(System.getProperty("mellow.nativeTags"));
+
+    private final AudioHeaderParser headerParser = new AudioHeaderParser();
+    private final AtomicLong nativeFiles = new AtomicLong();
+    private final AtomicLong nativeNanos = new AtomicLong();
+    private final AtomicLong fallbackFiles = new AtomicLong();
+    private final AtomicLong fallbackNanos = new AtomicLong();
 
     /**
      * Extracts metadata and builds a Song instance.
@@ -30,6 +40,20 @@ public class MetadataReader {
         String album = "Unknown";
         int durationSeconds = 0;
 
+        if (NATIVE_TAGS) {
+            long start = System.nanoTime();
+            AudioHeaderParser.Result header = headerParser.parse(path);
+            if (header != null) {
+                if (header.getTitle() != null) title = header.getTitle();
+                if (header.getArtist() != null) artist = header.getArtist();
+                if (header.getAlbum() != null) album = header.getAlbum();
+                nativeNanos.addAndGet(System.nanoTime() - start);
+                nativeFiles.incrementAndGet();
+                return new Song(title, artist, album, header.getDurationSeconds(), path.toAbsolutePath().toString());
+            }
+        }
+
+        long start = System.nanoTime();
         try {
             AudioFile audioFile = AudioFileIO.read(file);
             Tag tag = audioFile.getTag();
@@ -48,10 +72,25 @@ public class MetadataReader {
         } catch (Exception e) {
             // Silent fallback to filename-based title
         }
+        fallbackNanos.addAndGet(System.nanoTime() - start);
+        fallbackFiles.incrementAndGet();
 
         return new Song(title, artist, album, durationSeconds, path.toAbsolutePath().toString());
     }
 
+    /**
+     * Files read by the header parser vs jaudiotagger, with mean time per file
+     */
+    public String getStats() {
+        return String.format("header parser %d files (%s/file), jaudiotagger %d files (%s/file)",
+                nativeFiles.get(), perFile(nativeNanos.get(), nativeFiles.get()),
+                fallbackFiles.get(), perFile(fallbackNanos.get(), fallbackFiles.get()));
+    }
+
+    private static String perFile(long nanos, long files) {
+        return files == 0 ? "-" : String.format("%.2f ms", nanos / 1e6 / files);
+    }
+
     private String stripExtension(String name) {
         int idx = name.lastIndexOf('.')
                 ;
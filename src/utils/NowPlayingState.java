@@ -1,22 +1,27 @@
 package utils;
 
 import Model.PlaySource;
+import Model.PlaybackSnapshot;
 import Model.Song;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * Global observable state for the currently playing song.
  * Uses observer pattern to notify UI components when song changes.
  * Singleton pattern ensures only one instance exists.
  * Tracks PlaySource for navigation context preservation.
+ * 
+ * A view onto PlaybackStateStore: getters read the current snapshot without
+ * locking and each setter is one atomic update, published on
+ * PlaybackEventBus. A burst of changes reaches each listener as one
+ * delivery of the latest state.
  */
 public class NowPlayingState {
     private static NowPlayingState instance;
-    private Song currentSong;
-    private boolean isPlaying = false;
-    private PlaySource playSource = PlaySource.DASHBOARD;
-    private List<NowPlayingListener> listeners = new ArrayList<>();
+    private final PlaybackStateStore store = PlaybackStateStore.getInstance();
+    private final Map<NowPlayingListener, PlaybackEventBus.Subscription> listeners = new WeakHashMap<>();
     
     private NowPlayingState() {
     }
@@ -34,78 +39,79 @@ public class NowPlayingState {
     /**
      * Set the currently playing song and notify all listeners
      */
-    public synchronized void setCurrentSong(Song song, boolean playing) {
-        this.currentSong = song;
-        this.isPlaying = playing;
-        notifyListeners();
+    public void setCurrentSong(Song song, boolean playing) {
+        store.update(s -> s.withSong(song, playing));
     }
     
     /**
      * Get the currently playing song
      */
-    public synchronized Song getCurrentSong() {
-        return currentSong;
+    public Song getCurrentSong() {
+        return store.current().getSong();
     }
     
     /**
      * Convenience method for setting song without changing play state
      */
-    public synchronized void setCurrentSong(Song song) {
-        this.currentSong = song;
-        notifyListeners();
+    public void setCurrentSong(Song song) {
+        store.update(s -> s.withSong(song));
     }
     
     /**
      * Get the current play state
      */
-    public synchronized boolean isPlaying() {
-        return isPlaying;
+    public boolean isPlaying() {
+        return store.current().isPlaying();
     }
     
     /**
      * Set the play state
      */
-    public synchronized void setPlaying(boolean playing) {
-        this.isPlaying = playing;
-        notifyListeners();
+    public void setPlaying(boolean playing) {
+        store.update(s -> s.withPlaying(playing));
     }
     
     /**
      * Get the current PlaySource (navigation context)
      */
-    public synchronized PlaySource getPlaySource() {
-        return playSource;
+    public PlaySource getPlaySource() {
+        return store.current().getSource();
     }
     
     /**
      * Set the PlaySource (where playback was initiated from)
      */
-    public synchronized void setPlaySource(PlaySource playSource) {
-        this.playSource = playSource;
+    public void setPlaySource(PlaySource playSource) {
+        store.update(s -> s.withSource(playSource));
     }
     
     /**
-     * Register a listener for now playing changes
+     * Get the whole playback state at once
      */
-    public synchronized void addListener(NowPlayingListener listener) {
-        if (!listeners.contains(listener)) {
-            listeners.add(listener);
-        }
+    public PlaybackSnapshot snapshot() {
+        return store.current();
     }
     
     /**
-     * Unregister a listener
+     * Register a listener for now playing changes. It is called on the EDT
+     * when the song or play state changes, and held weakly, so it goes away
+     * with the view that registered it.
      */
-    public synchronized void removeListener(NowPlayingListener listener) {
-        listeners.remove(listener);
+    public synchronized void addListener(NowPlayingListener listener) {
+        if (listener != null && !listeners.containsKey(listener)) {
+            listeners.put(listener, store.subscribe(listener, PlaybackEventBus.Delivery.EDT,
+                    s -> Arrays.asList(s.getSong(), s.isPlaying()),
+                    (NowPlayingListener l, PlaybackSnapshot s) -> l.onNowPlayingChanged(s.getSong(), s.isPlaying())));
+        }
     }
     
     /**
-     * Notify all listeners of change
+     * Unregister a listener
      */
-    private void notifyListeners() {
-        for (NowPlayingListener listener : new ArrayList<>(listeners)) {
-            listener.onNowPlayingChanged(currentSong, isPlaying);
+    public synchronized void removeListener(NowPlayingListener listener) {
+        PlaybackEventBus.Subscription subscription = listeners.remove(listener);
+        if (subscription != null) {
+            subscription.cancel();
         }
     }
     
@@ -0,0 +1,164 @@
+package utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * PlayCounts - Singleton holding how often each local file has been played
+ *
+ * Counts are keyed by absolute file path and kept in memory. Changes are
+ * written behind: a save is scheduled SAVE_DELAY_SECONDS after the first
+ * unsaved play, and once more on exit (saveOnExit()).
+ *
+ * Stored at ~/.mellow/play-counts.bin by default (override with
+ * -Dmellow.playCounts=...). A missing or unreadable file starts from zero.
+ */
+public class PlayCounts {
+    private static final Logger logger = Logger.getLogger(PlayCounts.class.getName());
+    private static final int MAGIC = 0x4D4C5043; // "MLPC"
+    private static final int VERSION = 1;
+    private static final long SAVE_DELAY_SECONDS = 10;
+    private static PlayCounts instance;
+
+    private final Path file;
+    private final Map<String, Integer> counts = new HashMap<>();
+    private final ScheduledExecutorService writer;
+    private ScheduledFuture<?> pendingSave;
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized PlayCounts getInstance() {
+        if (instance == null) {
+            instance = new PlayCounts(defaultLocation());
+        }
+        return instance;
+    }
+
+    /**
+     * Private constructor - use getInstance()
+     */
+    private PlayCounts(Path file) {
+        this.file = file;
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "play-counts-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        load();
+    }
+
+    /**
+     * Final save on exit (Mellow's shutdown sequence). Does nothing if the
+     * counts were never loaded.
+     */
+    public static void saveOnExit() {
+        PlayCounts counts;
+        synchronized (PlayCounts.class) {
+            counts = instance;
+        }
+        if (counts != null) {
+            counts.save();
+        }
+    }
+
+    /**
+     * Default location under the user's home directory
+     */
+    public static Path defaultLocation() {
+        String override = System.getProperty("mellow.playCounts");
+        if (override != null && !override.isBlank()) {
+            return Paths.get(override);
+        }
+        return Paths.get(System.getProperty("user.home"), ".mellow", "play-counts.bin");
+    }
+
+    /**
+     * Get the play count for a file path
+     */
+    public synchronized int get(String path) {
+        return path == null ? 0 : counts.getOrDefault(path, 0);
+    }
+
+    /**
+     * Count one play of a file path
+     *
+     * @return the new count
+     */
+    public synchronized int increment(String path) {
+        if (path == null) {
+            return 0;
+        }
+        int count = counts.merge(path, 1, Integer::sum);
+        if (pendingSave == null) {
+            pendingSave = writer.schedule(this::save, SAVE_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+        return count;
+    }
+
+    /**
+     * Write all counts to disk now (temp file, then move)
+     */
+    public void save() {
+        Map<String, Integer> copy;
+        synchronized (this) {
+            if (pendingSave != null) {
+                pendingSave.cancel(false);
+                pendingSave = null;
+            }
+            copy = new HashMap<>(counts);
+        }
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            if (dir != null) {
+                Files.createDirectories(dir);
+            }
+            Path tmp = Files.createTempFile(dir, "play-counts", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(copy.size());
+                for (Map.Entry<String, Integer> e : copy.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    out.writeInt(e.getValue());
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warning("Could not save play counts: " + e.getMessage());
+        }
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.warning("Ignoring play counts with unknown format: " + file);
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                counts.put(in.readUTF(), in.readInt());
+            }
+        } catch (IOException e) {
+            logger.warning("Could not read play counts: " + e.getMessage());
+            counts.clear();
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package utils;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+
+/**
+ * PlaybackEventBus - Singleton, asynchronous bus for playback state events
+ *
+ * - publish() never runs a handler itself; it only hands the event to each
+ *   matching subscriber, so publishers (FX thread, EDT, PlaybackManager)
+ *   never wait on a listener or hold a lock while one runs
+ * - Every subscriber picks its delivery: on the EDT, or on a background
+ *   dispatch thread. Deliveries to one subscriber never overlap
+ * - Events are state, so a burst coalesces: a subscriber that has not been
+ *   served yet only receives the latest event of the burst. A subscriber
+ *   can also name a key (distinctBy) and skip events whose key matches the
+ *   last one it was given
+ * - Events that carry a version (versionOf) are never replaced by, or
+ *   followed by, an older one: publishers racing on different threads may
+ *   publish out of order, but a subscriber never goes back to older state
+ * - The owner of a subscription is held weakly and passed to the handler,
+ *   so a handler written as an unbound method reference (Player::onEvent)
+ *   does not keep a disposed window alive; the subscription is dropped
+ *   once its owner is collected, or with Subscription.cancel()
+ * - Per subscriber: deliveries, coalesced, skipped and stale events,
+ *   publish-to-delivery latency and handler time (getStats())
+ */
+public final class PlaybackEventBus {
+    private static final Logger logger = Logger.getLogger(PlaybackEventBus.class.getName());
+    private static final long SLOW_HANDLER_NANOS = 50_000_000L;
+    private static PlaybackEventBus instance;
+
+    /**
+     * Thread a subscriber's handler runs on
+     */
+    public enum Delivery {
+        EDT,
+        BACKGROUND
+    }
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final ExecutorService dispatcher;
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized PlaybackEventBus getInstance() {
+        if (instance == null) {
+            instance = new PlaybackEventBus();
+        }
+        return instance;
+    }
+
+    /**
+     * Private constructor - use getInstance()
+     */
+    private PlaybackEventBus() {
+        AtomicInteger counter = new AtomicInteger();
+        dispatcher = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "playback-events-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Subscribe to events of a type
+     *
+     * @param owner    held weakly and passed to the handler; the handler
+     *                 itself should not capture it
+     * @param type     event class (subclasses match too)
+     * @param delivery thread the handler runs on
+     * @param handler  called with the owner and the latest event
+     */
+    public <O, E> Subscription subscribe(O owner, Class<E> type, Delivery delivery,
+            BiConsumer<? super O, ? super E> handler) {
+        return subscribe(owner, type, delivery, null, handler);
+    }
+
+    /**
+     * Subscribe to events of a type, skipping events whose key equals the
+     * key of the last event delivered
+     *
+     * @param distinctBy key of an event, or null to deliver every event
+     */
+    public <O, E> Subscription subscribe(O owner, Class<E> type, Delivery delivery,
+            Function<? super E, ?> distinctBy, BiConsumer<? super O, ? super E> handler) {
+        return subscribe(owner, type, delivery, distinctBy, null, handler);
+    }
+
+    /**
+     * Subscribe to versioned events: an event with a version not above the
+     * pending or last delivered one is dropped as stale
+     *
+     * @param versionOf version of an event (increasing with every change),
+     *                  or null if events are not versioned
+     */
+    @SuppressWarnings("unchecked")
+    public <O, E> Subscription subscribe(O owner, Class<E> type, Delivery delivery,
+            Function<? super E, ?> distinctBy, ToLongFunction<? super E> versionOf,
+            BiConsumer<? super O, ? super E> handler) {
+        Subscription s = new Subscription(owner, type, delivery, (Function<Object, Object>) distinctBy,
+                (ToLongFunction<Object>) versionOf, (BiConsumer<Object, Object>) handler);
+        subscriptions.add(s);
+        return s;
+    }
+
+    /**
+     * Hand an event to every subscriber of its type. Returns at once.
+     */
+    public void publish(Object event) {
+        if (event == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (Subscription s : subscriptions) {
+            if (s.owner.get() == null) {
+                s.cancel();
+            } else if (s.type.isInstance(event)) {
+                s.offer(event, now);
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * One line per subscriber: owner, delivery, counts and latencies
+     */
+    public List<String> getStats() {
+        List<String> lines = new ArrayList<>();
+        for (Subscription s : subscriptions) {
+            lines.add(s.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * A live subscription; cancel() stops further deliveries
+     */
+    public final class Subscription {
+        private final WeakReference<Object> owner;
+        private final String ownerName;
+        private final Class<?> type;
+        private final Delivery delivery;
+        private final Function<Object, Object> distinctBy;
+        private final ToLongFunction<Object> versionOf;
+        private final BiConsumer<Object, Object> handler;
+        private final AtomicReference<Pending> latest = new AtomicReference<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private volatile boolean active = true;
+
+        // Only touched by the delivering thread (deliveries never overlap)
+        private Object lastKey;
+        private boolean hasKey = false;
+        private long lastVersion = Long.MIN_VALUE;
+
+        // Guarded by this
+        private long delivered = 0;
+        private long coalesced = 0;
+        private long skipped = 0;
+        private long stale = 0;
+        private long totalLatencyNanos = 0;
+        private long maxLatencyNanos = 0;
+        private long totalHandlerNanos = 0;
+
+        private Subscription(Object owner, Class<?> type, Delivery delivery, Function<Object, Object> distinctBy,
+                ToLongFunction<Object> versionOf, BiConsumer<Object, Object> handler) {
+            this.owner = new WeakReference<>(owner);
+            this.ownerName = owner.getClass().getSimpleName();
+            this.type = type;
+            this.delivery = delivery;
+            this.distinctBy = distinctBy;
+            this.versionOf = versionOf;
+            this.handler = handler;
+        }
+
+        public void cancel() {
+            active = false;
+            latest.set(null);
+            subscriptions.remove(this);
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        private void offer(Object event, long publishNanos) {
+            Pending next = new Pending(event, publishNanos,
+                    versionOf == null ? 0 : versionOf.applyAsLong(event));
+            while (true) {
+                Pending pending = latest.get();
+                if (pending != null && versionOf != null && pending.version >= next.version) {
+                    // A newer event is already waiting; keep it
+                    synchronized (this) {
+                        stale++;
+                    }
+                    return;
+                }
+                if (latest.compareAndSet(pending, next)) {
+                    if (pending != null) {
+                        synchronized (this) {
+                            coalesced++;
+                        }
+                    }
+                    break;
+                }
+            }
+            if (scheduled.compareAndSet(false, true)) {
+                if (delivery == Delivery.EDT) {
+                    SwingUtilities.invokeLater(this::drain);
+                } else {
+                    dispatcher.execute(this::drain);
+                }
+            }
+        }
+
+        /**
+         * Deliver the latest pending event; loops while newer events arrive
+         * so only one delivery per subscriber is ever running
+         */
+        private void drain() {
+            while (true) {
+                Pending p = latest.getAndSet(null);
+                Object o = owner.get();
+                if (p != null && o != null && active) {
+                    deliver(o, p);
+                } else if (o == null) {
+                    cancel();
+                }
+                scheduled.set(false);
+                if (latest.get() == null || !scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+
+        private void deliver(Object o, Pending p) {
+            if (versionOf != null) {
+                if (p.version <= lastVersion) {
+                    synchronized (this) {
+                        stale++;
+                    }
+                    return;
+                }
+                lastVersion = p.version;
+            }
+            if (distinctBy != null) {
+                Object key = distinctBy.apply(p.event);
+                if (hasKey && Objects.equals(key, lastKey)) {
+                    synchronized (this) {
+                        skipped++;
+                    }
+                    return;
+                }
+                lastKey = key;
+                hasKey = true;
+            }
+            long start = System.nanoTime();
+            try {
+                handler.accept(o, p.event);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Playback event handler failed in " + ownerName, e);
+            }
+            long end = System.nanoTime();
+            synchronized (this) {
+                long latency = start - p.publishNanos;
+                delivered++;
+                totalLatencyNanos += latency;
+                maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+                totalHandlerNanos += end - start;
+            }
+            if (end - start > SLOW_HANDLER_NANOS) {
+                logger.fine(() -> "Slow playback event handler in " + ownerName + ": "
+                        + (end - start) / 1_000_000 + " ms");
+            }
+        }
+
+        @Override
+        public synchronized String toString() {
+            double n = Math.max(1, delivered);
+            return String.format(
+                    "%s %s %s delivered=%d coalesced=%d skipped=%d stale=%d latency avg=%.2fms max=%.2fms handler avg=%.2fms",
+                    ownerName, type.getSimpleName(), delivery, delivered, coalesced, skipped, stale,
+                    totalLatencyNanos / n / 1e6,
+                    maxLatencyNanos / 1e6, totalHandlerNanos / n / 1e6);
+        }
+    }
+
+    private static final class Pending {
+        final Object event;
+        final long publishNanos;
+        final long version;
+
+        Pending(Object event, long publishNanos, long version) {
+            this.event = event;
+            this.publishNanos = publishNanos;
+            this.version = version;
+        }
+    }
+}
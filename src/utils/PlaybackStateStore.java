@@ -0,0 +1,107 @@
+package utils;
+
+import Model.PlaybackSnapshot;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * PlaybackStateStore - Singleton holding the one PlaybackSnapshot
+ *
+ * - Reads are a single volatile load: current() never blocks and always
+ *   returns a consistent song/playing/position/loop/source tuple
+ * - Writes build a new snapshot and install it with compare-and-set; each
+ *   installed snapshot gets the next version. update() retries on a lost
+ *   race, compareAndSet() lets a caller detect one
+ * - Every change is published on PlaybackEventBus; subscribe() wraps that
+ *   with the bus's delivery, coalescing and weak-owner rules. Writers on
+ *   different threads may publish out of version order, so subscriptions
+ *   are versioned: a subscriber never receives an older snapshot after a
+ *   newer one
+ *
+ * NowPlayingState and PlayerState are views onto this store.
+ */
+public final class PlaybackStateStore {
+    private static PlaybackStateStore instance;
+
+    private final AtomicReference<PlaybackSnapshot> state = new AtomicReference<>(PlaybackSnapshot.EMPTY);
+    private final PlaybackEventBus bus = PlaybackEventBus.getInstance();
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized PlaybackStateStore getInstance() {
+        if (instance == null) {
+            instance = new PlaybackStateStore();
+        }
+        return instance;
+    }
+
+    /**
+     * Private constructor - use getInstance()
+     */
+    private PlaybackStateStore() {
+    }
+
+    /**
+     * Get the current snapshot (lock-free)
+     */
+    public PlaybackSnapshot current() {
+        return state.get();
+    }
+
+    /**
+     * Apply a change, retrying if another writer got in first. A change
+     * that leaves the state as it was is not published.
+     *
+     * @return the snapshot now installed
+     */
+    public PlaybackSnapshot update(UnaryOperator<PlaybackSnapshot> change) {
+        while (true) {
+            PlaybackSnapshot current = state.get();
+            PlaybackSnapshot next = change.apply(current);
+            if (next == null || next.sameState(current)) {
+                return current;
+            }
+            next = next.withVersion(current.getVersion() + 1);
+            if (state.compareAndSet(current, next)) {
+                bus.publish(next);
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Install next only if expected is still the current snapshot
+     *
+     * @return false if the state changed since expected was read
+     */
+    public boolean compareAndSet(PlaybackSnapshot expected, PlaybackSnapshot next) {
+        if (expected == null || next == null) {
+            return false;
+        }
+        if (next.sameState(expected)) {
+            return state.get() == expected;
+        }
+        PlaybackSnapshot stamped = next.withVersion(expected.getVersion() + 1);
+        if (!state.compareAndSet(expected, stamped)) {
+            return false;
+        }
+        bus.publish(stamped);
+        return true;
+    }
+
+    /**
+     * Subscribe to state changes
+     *
+     * @param distinctBy the handler is skipped when this key of the latest
+     *                   snapshot equals the key last delivered (null to get
+     *                   every change, e.g. position too)
+     */
+    public <O> PlaybackEventBus.Subscription subscribe(O owner, PlaybackEventBus.Delivery delivery,
+            Function<? super PlaybackSnapshot, ?> distinctBy, BiConsumer<? super O, ? super PlaybackSnapshot> handler) {
+        return bus.subscribe(owner, PlaybackSnapshot.class, delivery, distinctBy, PlaybackSnapshot::getVersion,
+                handler);
+    }
+}
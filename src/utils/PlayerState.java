@@ -1,6 +1,7 @@
 package utils;
 
 import Model.PlaySource;
+import Model.PlaybackSnapshot;
 import Model.Song;
 
 /**
@@ -16,15 +17,15 @@ import Model.Song;
  * - isPlaying: Current playback state
  * - isLoop: Loop mode flag
  * - source: Where playback was initiated (DASHBOARD/PLAYLIST/LIKED/SEARCH)
+ * 
+ * A view onto PlaybackStateStore, shared with NowPlayingState: getters read
+ * the current snapshot without locking, setters are atomic updates. Use
+ * snapshot() to read several fields consistently.
  */
 public class PlayerState {
     private static PlayerState instance;
 
-    private Song currentSong;
-    private long currentPosition = 0; // milliseconds
-    private boolean isPlaying = false;
-    private boolean isLoop = false;
-    private PlaySource source = PlaySource.DASHBOARD;
+    private final PlaybackStateStore store = PlaybackStateStore.getInstance();
 
     private PlayerState() {
     }
@@ -42,80 +43,85 @@ public class PlayerState {
     /**
      * Get current song
      */
-    public synchronized Song getCurrentSong() {
-        return currentSong;
+    public Song getCurrentSong() {
+        return store.current().getSong();
     }
 
     /**
      * Set current song
      */
-    public synchronized void setCurrentSong(Song song) {
-        this.currentSong = song;
+    public void setCurrentSong(Song song) {
+        store.update(s -> s.withSong(song));
     }
 
     /**
      * Get current playback position in milliseconds
      */
-    public synchronized long getCurrentPosition() {
-        return currentPosition;
+    public long getCurrentPosition() {
+        return store.current().getPositionMillis();
     }
 
     /**
      * Set current playback position in milliseconds
      */
-    public synchronized void setCurrentPosition(long position) {
-        this.currentPosition = position;
+    public void setCurrentPosition(long position) {
+        store.update(s -> s.withPosition(position));
     }
 
     /**
      * Check if currently playing
      */
-    public synchronized boolean isPlaying() {
-        return isPlaying;
+    public boolean isPlaying() {
+        return store.current().isPlaying();
     }
 
     /**
      * Set playing state
      */
-    public synchronized void setPlaying(boolean playing) {
-        this.isPlaying = playing;
+    public void setPlaying(boolean playing) {
+        store.update(s -> s.withPlaying(playing));
     }
 
     /**
      * Check if loop mode is enabled
      */
-    public synchronized boolean isLoop() {
-        return isLoop;
+    public boolean isLoop() {
+        return store.current().isLoop();
     }
 
     /**
      * Set loop mode
      */
-    public synchronized void setLoop(boolean loop) {
-        this.isLoop = loop;
+    public void setLoop(boolean loop) {
+        store.update(s -> s.withLoop(loop));
     }
 
     /**
      * Get playback source
      */
-    public synchronized PlaySource getSource() {
-        return source;
+    public PlaySource getSource() {
+        return store.current().getSource();
     }
 
     /**
      * Set playback source
      */
-    public synchronized void setSource(PlaySource source) {
-        this.source = source;
+    public void setSource(PlaySource source) {
+        store.update(s -> s.withSource(source));
+    }
+
+    /**
+     * Get song, position, play state, loop and source in one consistent read
+     */
+    public PlaybackSnapshot snapshot() {
+        return store.current();
     }
 
     /**
      * Reset state (use when stopping playback completely)
      */
-    public synchronized void reset() {
-        this.currentSong = null;
-        this.currentPosition = 0;
-        this.isPlaying = false;
+    public void reset() {
         // Keep loop and source as they are user preferences
+        store.update(s -> s.withSong(null, false).withPosition(0));
     }
 }
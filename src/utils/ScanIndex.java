@@ -0,0 +1,215 @@
+package utils;
+
+import Model.Song;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * ScanIndex - persisted file-state index for incremental library rescans
+ *
+ * Remembers, per absolute path, the file size and modification time seen at
+ * the last scan together with the tags MetadataReader extracted. A rescan only
+ * needs to re-extract files whose size or mtime differ from the index.
+ *
+ * Stored as a small binary file (default ~/.mellow/scan-index.bin, override
+ * with -Dmellow.scanIndex=...). A missing or unreadable file simply yields an
+ * empty index, which makes the next rescan a full scan.
+ */
+public class ScanIndex {
+    private static final Logger logger = Logger.getLogger(ScanIndex.class.getName());
+    private static final int MAGIC = 0x4D4C5349; // "MLSI"
+    private static final int VERSION = 1;
+
+    private final Path file;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    private ScanIndex(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Default index location under the user's home directory
+     */
+    public static Path defaultLocation() {
+        String override = System.getProperty("mellow.scanIndex");
+        if (override != null && !override.isBlank()) {
+            return Paths.get(override);
+        }
+        return Paths.get(System.getProperty("user.home"), ".mellow", "scan-index.bin");
+    }
+
+    /**
+     * Load an index from disk; returns an empty index if the file is missing
+     * or cannot be read
+     */
+    public static ScanIndex load(Path file) {
+        ScanIndex index = new ScanIndex(file);
+        if (file == null || !Files.isRegularFile(file)) {
+            return index;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.warning("Ignoring scan index with unknown format: " + file);
+                return index;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                long size = in.readLong();
+                long mtime = in.readLong();
+                String title = in.readUTF();
+                String artist = in.readUTF();
+                String album = in.readUTF();
+                int duration = in.readInt();
+                index.entries.put(path, new Entry(size, mtime, title, artist, album, duration));
+            }
+            logger.info("Loaded scan index with " + count + " entries");
+        } catch (IOException e) {
+            logger.warning("Could not read scan index, falling back to full scan: " + e.getMessage());
+            index.entries.clear();
+        }
+        return index;
+    }
+
+    /**
+     * Persist the index atomically (write to a temp file, then move)
+     */
+    public synchronized void save() {
+        if (file == null) {
+            return;
+        }
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            if (dir != null) {
+                Files.createDirectories(dir);
+            }
+            Path tmp = Files.createTempFile(dir, "scan-index", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                    Entry v = e.getValue();
+                    out.writeUTF(e.getKey());
+                    out.writeLong(v.size);
+                    out.writeLong(v.mtime);
+                    out.writeUTF(v.title);
+                    out.writeUTF(v.artist);
+                    out.writeUTF(v.album);
+                    out.writeInt(v.durationSeconds);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warning("Could not save scan index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Check if the file at path is unchanged since it was indexed
+     */
+    public synchronized boolean isUnchanged(String path, long size, long mtime) {
+        Entry e = entries.get(path);
+        return e != null && e.size == size && e.mtime == mtime;
+    }
+
+    /**
+     * Check if path is present in the index
+     */
+    public synchronized boolean contains(String path) {
+        return entries.containsKey(path);
+    }
+
+    /**
+     * Record the extracted tags and file state for a song
+     */
+    public synchronized void put(Song song, long size, long mtime) {
+        entries.put(song.getFilePath(), new Entry(size, mtime,
+                nonNull(song.getTitle()), nonNull(song.getArtist()), nonNull(song.getAlbum()),
+                song.getDurationSeconds()));
+    }
+
+    /**
+     * Forget a path
+     */
+    public synchronized void remove(String path) {
+        entries.remove(path);
+    }
+
+    /**
+     * Get all indexed paths
+     */
+    public synchronized Set<String> paths() {
+        return new HashSet<>(entries.keySet());
+    }
+
+    /**
+     * Get the number of indexed files
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Rebuild Song objects for every indexed file without touching the files
+     *
+     * @param imagePath image path to assign to each song
+     */
+    public synchronized List<Song> toSongs(String imagePath) {
+        List<Song> songs = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            Entry v = e.getValue();
+            Song s = new Song(v.title, v.artist, v.album, v.durationSeconds, e.getKey());
+            s.setImagePath(imagePath);
+            songs.add(s);
+        }
+        return songs;
+    }
+
+    /**
+     * Get the backing file of this index
+     */
+    public File getFile() {
+        return file == null ? null : file.toFile();
+    }
+
+    private static String nonNull(String s) {
+        return s == null ? "" : s;
+    }
+
+    /**
+     * File state and tags for one indexed path
+     */
+    private static final class Entry {
+        final long size;
+        final long mtime;
+        final String title;
+        final String artist;
+        final String album;
+        final int durationSeconds;
+
+        Entry(long size, long mtime, String title, String artist, String album, int durationSeconds) {
+            this.size = size;
+            this.mtime = mtime;
+            this.title = title;
+            this.artist = artist;
+            this.album = album;
+            this.durationSeconds = durationSeconds;
+        }
+    }
+}
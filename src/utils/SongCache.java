@@ -1,23 +1,48 @@
 package utils;
 
+import Model.LibraryDelta;
 import Model.Song;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * SongCache - Utility class to store all scanned local songs in memory
  * Acts as a shared in-memory model for all views
  * This class does not scan files or touch UI
+ *
+ * The songs are held in an immutable, indexed SongLibrary that is swapped
+ * atomically on every write. Reads never lock or copy; writers (scanner,
+ * watcher, EDT) are serialized on a single lock. Membership is by file path.
+ * Every write also updates the SongSearchIndex used by search() and the
+ * SuggestionIndex used by suggest().
  */
 public class SongCache {
-    private static List<Song> songs = new ArrayList<>();
+    private static final Object writeLock = new Object();
+    private static volatile SongLibrary library = SongLibrary.EMPTY;
+    // Database IDs are assigned after scanning, so this index is kept separately
+    private static final Map<Integer, Song> byId = new ConcurrentHashMap<>();
+    private static final SongSearchIndex searchIndex = new SongSearchIndex();
+    private static final SuggestionIndex suggestions = new SuggestionIndex();
+    // Edit budget for searchFuzzy(); -Dmellow.fuzzyEdits=0 turns it off
+    private static final int FUZZY_MAX_EDITS = Integer.getInteger("mellow.fuzzyEdits", 2);
 
     /**
      * Get all songs currently stored in cache
-     * @return List of all songs in cache
+     * @return Immutable list of all songs in cache (shared, not a copy)
      */
     public static List<Song> getAllSongs() {
-        return new ArrayList<>(songs);
+        return library.getSongs();
+    }
+
+    /**
+     * Get the current immutable library (songs plus indexes)
+     * @return Consistent snapshot of the cache
+     */
+    public static SongLibrary getLibrary() {
+        return library;
     }
 
     /**
@@ -25,10 +50,14 @@ public class SongCache {
      * @param songList List of songs to store
      */
     public static void setSongs(List<Song> songList) {
-        if (songList != null) {
-            songs = new ArrayList<>(songList);
-        } else {
-            songs.clear();
+        synchronized (writeLock) {
+            publish(SongLibrary.of(songList));
+            searchIndex.rebuild(library.getSongs());
+            suggestions.rebuild(library.getSongs(), PlayCounts.getInstance());
+            byId.clear();
+            for (Song song : library.getSongs()) {
+                indexId(song);
+            }
         }
     }
 
@@ -37,8 +66,19 @@ public class SongCache {
      * @param song Song to add
      */
     public static void addSong(Song song) {
-        if (song != null && !songs.contains(song)) {
-            songs.add(song);
+        if (song == null) {
+            return;
+        }
+        synchronized (writeLock) {
+            if (library.containsPath(song.getFilePath())) {
+                return;
+            }
+            SongLibrary.Editor editor = library.edit();
+            editor.add(song);
+            publish(editor.build());
+            searchIndex.add(song);
+            suggestions.add(song, PlayCounts.getInstance().get(song.getFilePath()));
+            indexId(song);
         }
     }
 
@@ -47,29 +87,96 @@ public class SongCache {
      * @param songList List of songs to add
      */
     public static void addSongs(List<Song> songList) {
-        if (songList != null) {
+        if (songList == null || songList.isEmpty()) {
+            return;
+        }
+        synchronized (writeLock) {
+            SongLibrary.Editor editor = library.edit();
             for (Song song : songList) {
-                if (!songs.contains(song)) {
-                    songs.add(song);
+                if (editor.add(song)) {
+                    searchIndex.add(song);
+                    suggestions.add(song, PlayCounts.getInstance().get(song.getFilePath()));
+                    indexId(song);
                 }
             }
+            publish(editor.build());
+        }
+    }
+
+    /**
+     * Apply an incremental rescan result in place.
+     * Changed songs replace the entry with the same file path at its current
+     * position, removed paths are dropped and added songs are appended.
+     * @param delta Added/changed/removed songs from a rescan
+     */
+    public static void applyDelta(LibraryDelta delta) {
+        if (delta == null || delta.isEmpty()) {
+            return;
+        }
+        synchronized (writeLock) {
+            SongLibrary.Editor editor = library.edit();
+            for (Song song : delta.getChanged()) {
+                unindexId(editor.put(song));
+                searchIndex.add(song);
+                suggestions.add(song, PlayCounts.getInstance().get(song.getFilePath()));
+                indexId(song);
+            }
+            for (Song song : delta.getAdded()) {
+                unindexId(editor.put(song));
+                searchIndex.add(song);
+                suggestions.add(song, PlayCounts.getInstance().get(song.getFilePath()));
+                indexId(song);
+            }
+            for (String path : delta.getRemovedPaths()) {
+                unindexId(editor.remove(path));
+                searchIndex.remove(path);
+                suggestions.remove(path);
+            }
+            publish(editor.build());
         }
     }
 
+    /**
+     * Persist the cache into a binary snapshot for fast cold start
+     * @param file Snapshot file to write
+     * @return true if the snapshot was written
+     */
+    public static boolean saveSnapshot(Path file) {
+        return LibrarySnapshot.write(file, getAllSongs());
+    }
+
     /**
      * Remove a song from the cache
-     * @param song Song to remove
+     * @param song Song to remove (matched by file path)
      * @return true if song was removed, false otherwise
      */
     public static boolean removeSong(Song song) {
-        return songs.remove(song);
+        if (song == null) {
+            return false;
+        }
+        synchronized (writeLock) {
+            if (!library.containsPath(song.getFilePath())) {
+                return false;
+            }
+            SongLibrary.Editor editor = library.edit();
+            unindexId(editor.remove(song.getFilePath()));
+            publish(editor.build());
+            searchIndex.remove(song.getFilePath());
+            suggestions.remove(song.getFilePath());
+            return true;
+        }
     }
 
     /**
      * Clear all songs from the cache
      */
     public static void clearCache() {
-        songs.clear();
+        synchronized (writeLock) {
+            publish(SongLibrary.EMPTY);
+            searchIndex.clear();
+            suggestions.rebuild(List.of(), PlayCounts.getInstance());
+            byId.clear();
+        }
     }
 
     /**
@@ -77,7 +184,7 @@ public class SongCache {
      * @return Number of songs
      */
     public static int getSize() {
-        return songs.size();
+        return library.size();
     }
 
     /**
@@ -85,15 +192,125 @@ public class SongCache {
      * @return true if cache is empty, false otherwise
      */
     public static boolean isEmpty() {
-        return songs.isEmpty();
+        return library.isEmpty();
     }
 
     /**
      * Check if a song exists in the cache
-     * @param song Song to check
+     * @param song Song to check (matched by file path)
      * @return true if song exists, false otherwise
      */
     public static boolean contains(Song song) {
-        return songs.contains(song);
+        return song != null && library.containsPath(song.getFilePath());
+    }
+
+    /**
+     * Get the cached song for a file path
+     * @param filePath Absolute file path
+     * @return The song, or null if not cached
+     */
+    public static Song getSongByPath(String filePath) {
+        return library.getByPath(filePath);
+    }
+
+    /**
+     * Get the cached song with a database ID
+     * @param songId Database song_id
+     * @return The song, or null if no cached song has that ID
+     */
+    public static Song getSongById(int songId) {
+        return byId.get(songId);
+    }
+
+    /**
+     * Get cached songs by artist (case-insensitive)
+     * @param artist Artist name
+     * @return Immutable list of songs
+     */
+    public static List<Song> getSongsByArtist(String artist) {
+        return library.getByArtist(artist);
+    }
+
+    /**
+     * Get cached songs on an album (case-insensitive)
+     * @param album Album name
+     * @return Immutable list of songs
+     */
+    public static List<Song> getSongsByAlbum(String album) {
+        return library.getByAlbum(album);
+    }
+
+    /**
+     * Search cached songs by title, artist and album (all words must match,
+     * the last word as a prefix), best match first
+     * @param query Search text
+     * @param limit Maximum results (0 = all)
+     * @return Matching songs
+     */
+    public static List<Song> search(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    /**
+     * Typo-tolerant search(): words also match titles, artists and albums
+     * a few edits away. Meant as a fallback when search() finds nothing.
+     * @param query Search text
+     * @param limit Maximum results (0 = all)
+     * @return Matching songs, closest and best matches first
+     */
+    public static List<Song> searchFuzzy(String query, int limit) {
+        if (FUZZY_MAX_EDITS <= 0) {
+            return new ArrayList<>();
+        }
+        return searchIndex.searchFuzzy(query, limit, FUZZY_MAX_EDITS);
+    }
+
+    /**
+     * Type-ahead completions (titles, artists, albums) for typed text,
+     * weighted by play count
+     * @param prefix Text typed so far
+     * @param k Maximum number of suggestions
+     * @return Suggestions, best first
+     */
+    public static List<SuggestionIndex.Suggestion> suggest(String prefix, int k) {
+        return suggestions.complete(prefix, k);
+    }
+
+    /**
+     * Count a play of a song (persisted in PlayCounts, reflected in suggest())
+     * @param song Song that started playing
+     */
+    public static void recordPlay(Song song) {
+        if (song == null || song.getFilePath() == null) {
+            return;
+        }
+        PlayCounts.getInstance().increment(song.getFilePath());
+        suggestions.recordPlay(song.getFilePath());
+    }
+
+    /**
+     * Record a database ID assigned to a cached song after it was scanned
+     * @param song Song whose songId was just set
+     */
+    public static void updateSongId(Song song) {
+        if (song != null && song.getSongId() > 0 && library.getByPath(song.getFilePath()) == song) {
+            byId.put(song.getSongId(), song);
+        }
+    }
+
+    private static void publish(SongLibrary next) {
+        library = next;
+    }
+
+    private static void indexId(Song song) {
+        if (song != null && song.getSongId() > 0) {
+            byId.put(song.getSongId(), song);
+        }
+    }
+
+    private static void unindexId(Song song) {
+        if (song != null && song.getSongId() > 0) {
+            byId.remove(song.getSongId(), song);
+        }
     }
 }
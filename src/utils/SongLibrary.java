@@ -0,0 +1,150 @@
+package utils;
+
+import Model.Song;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * SongLibrary - immutable, indexed view of the local library
+ *
+ * One instance is published by SongCache at a time; writers build a new
+ * instance and swap it in, so readers can use the song list and indexes
+ * without locks or copies.
+ *
+ * Indexes:
+ * - primary: file path -> song (one song per path)
+ * - secondary: artist and album (case-insensitive) -> songs in library order
+ */
+public final class SongLibrary {
+    public static final SongLibrary EMPTY = new SongLibrary(new LinkedHashMap<>());
+
+    private final List<Song> songs;
+    private final Map<String, Song> byPath;
+    private final Map<String, List<Song>> byArtist;
+    private final Map<String, List<Song>> byAlbum;
+
+    private SongLibrary(LinkedHashMap<String, Song> pathIndex) {
+        this.byPath = pathIndex;
+        this.songs = Collections.unmodifiableList(new ArrayList<>(pathIndex.values()));
+        Map<String, List<Song>> artists = new HashMap<>();
+        Map<String, List<Song>> albums = new HashMap<>();
+        for (Song s : songs) {
+            artists.computeIfAbsent(key(s.getArtist()), k -> new ArrayList<>()).add(s);
+            albums.computeIfAbsent(key(s.getAlbum()), k -> new ArrayList<>()).add(s);
+        }
+        artists.replaceAll((k, v) -> Collections.unmodifiableList(v));
+        albums.replaceAll((k, v) -> Collections.unmodifiableList(v));
+        this.byArtist = artists;
+        this.byAlbum = albums;
+    }
+
+    /**
+     * Build a library from songs; the first song seen for a path wins
+     */
+    public static SongLibrary of(List<Song> songList) {
+        LinkedHashMap<String, Song> index = new LinkedHashMap<>();
+        if (songList != null) {
+            for (Song s : songList) {
+                if (s != null) {
+                    index.putIfAbsent(s.getFilePath(), s);
+                }
+            }
+        }
+        return index.isEmpty() ? EMPTY : new SongLibrary(index);
+    }
+
+    /**
+     * Start a modified copy of this library
+     */
+    Editor edit() {
+        return new Editor(new LinkedHashMap<>(byPath));
+    }
+
+    /**
+     * Get all songs in library order (immutable, shared - do not copy per read)
+     */
+    public List<Song> getSongs() {
+        return songs;
+    }
+
+    /**
+     * Get the song stored for a file path, or null
+     */
+    public Song getByPath(String filePath) {
+        return byPath.get(filePath);
+    }
+
+    /**
+     * Check if a file path is in the library
+     */
+    public boolean containsPath(String filePath) {
+        return byPath.containsKey(filePath);
+    }
+
+    /**
+     * Get songs by artist (case-insensitive), in library order
+     */
+    public List<Song> getByArtist(String artist) {
+        return byArtist.getOrDefault(key(artist), List.of());
+    }
+
+    /**
+     * Get songs on an album (case-insensitive), in library order
+     */
+    public List<Song> getByAlbum(String album) {
+        return byAlbum.getOrDefault(key(album), List.of());
+    }
+
+    public int size() {
+        return songs.size();
+    }
+
+    public boolean isEmpty() {
+        return songs.isEmpty();
+    }
+
+    private static String key(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Accumulates changes against a private copy of the path index, then
+     * builds the next immutable library in one pass
+     */
+    static final class Editor {
+        private final LinkedHashMap<String, Song> index;
+
+        private Editor(LinkedHashMap<String, Song> index) {
+            this.index = index;
+        }
+
+        /**
+         * Add a song unless its path is already present
+         */
+        boolean add(Song song) {
+            return song != null && index.putIfAbsent(song.getFilePath(), song) == null;
+        }
+
+        /**
+         * Add or replace (keeping the existing position) the song for its path
+         *
+         * @return the replaced song, or null
+         */
+        Song put(Song song) {
+            return song == null ? null : index.put(song.getFilePath(), song);
+        }
+
+        Song remove(String filePath) {
+            return index.remove(filePath);
+        }
+
+        SongLibrary build() {
+            return index.isEmpty() ? EMPTY : new SongLibrary(index);
+        }
+    }
+}
@@ -0,0 +1,493 @@
+package utils;
+
+import Model.Song;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * SongSearchIndex - in-memory inverted index over title, artist and album
+ *
+ * - Tokens are case-folded with diacritics stripped ("Beyoncé" -> "beyonce")
+ * - Each song gets an int document id; ids only grow, so every posting list
+ *   is a sorted int array that new songs are appended to
+ * - A query matches songs containing every word (AND); the last word is a
+ *   prefix so partially typed input matches
+ * - Results are ranked with BM25 over field-weighted term frequencies
+ *   (a title hit counts more than an album hit)
+ *
+ * searchFuzzy() additionally lets each word match indexed terms within a
+ * small edit distance (see FuzzyTermIndex); closer terms score higher.
+ *
+ * Removed songs are only marked dead until more than half of the document
+ * ids are dead; then the index is rebuilt from the live songs. Document
+ * frequencies still count dead songs until then, which only shifts scores
+ * slightly.
+ *
+ * Thread safety: writes take the write lock; any number of searches can run
+ * in parallel. SongCache keeps this index in step with the library.
+ */
+public final class SongSearchIndex {
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_WEIGHT = 3;
+    private static final int ARTIST_WEIGHT = 2;
+    private static final int ALBUM_WEIGHT = 1;
+    // Closest fuzzy terms a single query word may expand to
+    private static final int MAX_FUZZY_TERMS = 64;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> terms = new HashMap<>();
+    // Sorted dictionary for prefix lookups; new terms wait in recentTerms
+    // until there are enough of them to merge
+    private String[] sortedTerms = new String[0];
+    private final TreeSet<String> recentTerms = new TreeSet<>();
+    private final FuzzyTermIndex fuzzy = new FuzzyTermIndex();
+    private final Map<String, Integer> docByPath = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private Song[] docs = new Song[1024];
+    private int[] docLength = new int[1024];
+    private int nextDoc = 0;
+    private int liveCount = 0;
+    private long totalLength = 0;
+
+    /**
+     * Split text into normalized search tokens
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        // Fast path for plain ASCII text, which is most tags
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 128) {
+                tokens.clear();
+                for (String t : NON_WORD.split(normalize(text))) {
+                    if (!t.isEmpty()) {
+                        tokens.add(t);
+                    }
+                }
+                return tokens;
+            }
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                token.append(c);
+            } else if (c >= 'A' && c <= 'Z') {
+                token.append((char) (c + ('a' - 'A')));
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    /**
+     * Case-fold and strip diacritics
+     */
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT).trim();
+    }
+
+    /**
+     * Replace the whole index with songs
+     */
+    public void rebuild(Collection<Song> songs) {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            recentTerms.clear();
+            fuzzy.clear();
+            docByPath.clear();
+            live.clear();
+            int capacity = Math.max(1024, songs.size() + songs.size() / 4);
+            docs = new Song[capacity];
+            docLength = new int[capacity];
+            nextDoc = 0;
+            liveCount = 0;
+            totalLength = 0;
+            for (Song song : songs) {
+                addLocked(song, false);
+            }
+            sortedTerms = terms.keySet().toArray(new String[0]);
+            Arrays.sort(sortedTerms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Index a song, replacing any song already indexed for its path
+     */
+    public void add(Song song) {
+        if (song == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(song.getFilePath());
+            addLocked(song, true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop the song indexed for a file path
+     */
+    public void remove(String filePath) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(filePath);
+            if (nextDoc > 1024 && liveCount < nextDoc / 2) {
+                compactLocked();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        rebuild(List.of());
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find songs matching every word of query, best match first
+     *
+     * @param limit maximum results (0 = all)
+     */
+    public List<Song> search(String query, int limit) {
+        return search(query, limit, 0);
+    }
+
+    /**
+     * Like search(), but a word also matches terms within a few edits of it
+     * (typos, transpositions); exact matches still rank above near ones
+     *
+     * @param limit    maximum results (0 = all)
+     * @param maxEdits largest edit distance allowed for long words; shorter
+     *                 words get less (see FuzzyTermIndex.editBudget)
+     */
+    public List<Song> searchFuzzy(String query, int limit, int maxEdits) {
+        return search(query, limit, Math.max(0, maxEdits));
+    }
+
+    private List<Song> search(String query, int limit, int maxEdits) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            // Each query word expands to one or more indexed terms; fuzzy
+            // matches carry a score factor that shrinks with their distance.
+            // Factors are kept per word (keyed by the word's list), so a term
+            // one word matches exactly is not down-weighted by another word
+            // that reaches it fuzzily
+            List<List<Postings>> expanded = new ArrayList<>(words.size());
+            Map<List<Postings>, Map<Postings, Double>> factors = maxEdits > 0 ? new IdentityHashMap<>() : null;
+            for (int i = 0; i < words.size(); i++) {
+                String w = words.get(i);
+                boolean last = i == words.size() - 1;
+                List<Postings> lists = new ArrayList<>(1);
+                if (last) {
+                    int from = Arrays.binarySearch(sortedTerms, w);
+                    for (int t = from >= 0 ? from : -from - 1; t < sortedTerms.length
+                            && sortedTerms[t].startsWith(w); t++) {
+                        lists.add(terms.get(sortedTerms[t]));
+                    }
+                    for (String t : recentTerms.subSet(w, true, w + Character.MAX_VALUE, false)) {
+                        lists.add(terms.get(t));
+                    }
+                } else {
+                    Postings p = terms.get(w);
+                    if (p != null) {
+                        lists.add(p);
+                    }
+                }
+                if (factors != null) {
+                    List<FuzzyTermIndex.Match> near = fuzzy.lookup(w, maxEdits, last);
+                    if (near.size() > MAX_FUZZY_TERMS) {
+                        near.sort(Comparator.comparingInt(m -> m.distance));
+                        near = near.subList(0, MAX_FUZZY_TERMS);
+                    }
+                    Map<Postings, Double> wordFactors = new IdentityHashMap<>();
+                    for (FuzzyTermIndex.Match m : near) {
+                        Postings p = terms.get(m.term);
+                        if (m.distance > 0 && !lists.contains(p)) {
+                            wordFactors.put(p, 1.0 / (1 + m.distance));
+                            lists.add(p);
+                        }
+                    }
+                    if (!wordFactors.isEmpty()) {
+                        factors.put(lists, wordFactors);
+                    }
+                }
+                if (lists.isEmpty()) {
+                    return new ArrayList<>();
+                }
+                expanded.add(lists);
+            }
+
+            int[] candidates = null;
+            // Start from the rarest word so intersections stay small
+            expanded.sort(Comparator.comparingInt(SongSearchIndex::totalDocs));
+            for (List<Postings> lists : expanded) {
+                int[] docsForWord = lists.size() == 1 ? lists.get(0).docsView() : union(lists);
+                candidates = candidates == null ? docsForWord : intersect(candidates, docsForWord);
+                if (candidates.length == 0) {
+                    return new ArrayList<>();
+                }
+            }
+
+            double avgLength = liveCount == 0 ? 1 : (double) totalLength / liveCount;
+            int n = Math.max(1, liveCount);
+            double[] scores = new double[candidates.length];
+            for (List<Postings> lists : expanded) {
+                Map<Postings, Double> wordFactors = factors == null ? null : factors.get(lists);
+                for (Postings p : lists) {
+                    double idf = Math.log(1 + (n - p.size + 0.5) / (p.size + 0.5));
+                    if (wordFactors != null) {
+                        idf *= wordFactors.getOrDefault(p, 1.0);
+                    }
+                    // Walk whichever side is shorter
+                    if (p.size > candidates.length * 8) {
+                        for (int c = 0; c < candidates.length; c++) {
+                            int tf = p.frequency(candidates[c]);
+                            if (tf > 0) {
+                                scores[c] += bm25(idf, tf, candidates[c], avgLength);
+                            }
+                        }
+                    } else {
+                        for (int k = 0; k < p.size; k++) {
+                            int c = Arrays.binarySearch(candidates, p.docs[k]);
+                            if (c >= 0) {
+                                scores[c] += bm25(idf, p.freqs[k], p.docs[k], avgLength);
+                            }
+                        }
+                    }
+                }
+            }
+
+            return topResults(candidates, scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Live candidates by descending score; with a limit only the best
+     * limit candidates are kept (bounded min-heap) instead of sorting all
+     */
+    private List<Song> topResults(int[] candidates, double[] scores, int limit) {
+        int k = limit > 0 ? Math.min(limit, candidates.length) : candidates.length;
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.max(1, k),
+                (a, b) -> Double.compare(scores[a], scores[b]));
+        for (int c = 0; c < candidates.length; c++) {
+            if (!live.get(candidates[c])) {
+                continue;
+            }
+            if (heap.size() < k) {
+                heap.add(c);
+            } else if (scores[c] > scores[heap.peek()]) {
+                heap.poll();
+                heap.add(c);
+            }
+        }
+        Song[] ordered = new Song[heap.size()];
+        for (int i = ordered.length - 1; i >= 0; i--) {
+            ordered[i] = docs[candidates[heap.poll()]];
+        }
+        return new ArrayList<>(Arrays.asList(ordered));
+    }
+
+    private double bm25(double idf, int tf, int doc, double avgLength) {
+        double norm = K1 * (1 - B + B * docLength[doc] / avgLength);
+        return idf * tf * (K1 + 1) / (tf + norm);
+    }
+
+    /**
+     * @param trackNewTerms false during rebuild, which sorts the dictionary once at the end
+     */
+    private void addLocked(Song song, boolean trackNewTerms) {
+        if (nextDoc == docs.length) {
+            docs = Arrays.copyOf(docs, docs.length * 2);
+            docLength = Arrays.copyOf(docLength, docLength.length * 2);
+        }
+        int doc = nextDoc++;
+        Map<String, Integer> tf = new HashMap<>();
+        int length = countTokens(song.getTitle(), TITLE_WEIGHT, tf)
+                + countTokens(song.getArtist(), ARTIST_WEIGHT, tf)
+                + countTokens(song.getAlbum(), ALBUM_WEIGHT, tf);
+        for (Map.Entry<String, Integer> e : tf.entrySet()) {
+            Postings p = terms.get(e.getKey());
+            if (p == null) {
+                p = new Postings();
+                terms.put(e.getKey(), p);
+                fuzzy.add(e.getKey());
+                if (trackNewTerms) {
+                    recentTerms.add(e.getKey());
+                }
+            }
+            p.append(doc, e.getValue());
+        }
+        if (recentTerms.size() > 1024) {
+            mergeRecentTermsLocked();
+        }
+        docs[doc] = song;
+        docLength[doc] = length;
+        live.set(doc);
+        liveCount++;
+        totalLength += length;
+        docByPath.put(song.getFilePath(), doc);
+    }
+
+    private void mergeRecentTermsLocked() {
+        if (recentTerms.isEmpty()) {
+            return;
+        }
+        String[] merged = new String[sortedTerms.length + recentTerms.size()];
+        int i = 0, k = 0;
+        for (String t : recentTerms) {
+            while (i < sortedTerms.length && sortedTerms[i].compareTo(t) < 0) {
+                merged[k++] = sortedTerms[i++];
+            }
+            merged[k++] = t;
+        }
+        System.arraycopy(sortedTerms, i, merged, k, sortedTerms.length - i);
+        sortedTerms = merged;
+        recentTerms.clear();
+    }
+
+    private void removeLocked(String filePath) {
+        Integer doc = filePath == null ? null : docByPath.remove(filePath);
+        if (doc == null) {
+            return;
+        }
+        live.clear(doc);
+        liveCount--;
+        totalLength -= docLength[doc];
+        docs[doc] = null;
+    }
+
+    private void compactLocked() {
+        List<Song> songs = new ArrayList<>(liveCount);
+        for (int doc = live.nextSetBit(0); doc >= 0; doc = live.nextSetBit(doc + 1)) {
+            songs.add(docs[doc]);
+        }
+        rebuild(songs);
+    }
+
+    private static int countTokens(String text, int weight, Map<String, Integer> tf) {
+        List<String> tokens = tokenize(text);
+        for (String t : tokens) {
+            tf.merge(t, weight, Integer::sum);
+        }
+        return tokens.size() * weight;
+    }
+
+    private static int totalDocs(List<Postings> lists) {
+        int total = 0;
+        for (Postings p : lists) {
+            total += p.size;
+        }
+        return total;
+    }
+
+    private static int[] union(List<Postings> lists) {
+        int total = totalDocs(lists);
+        int[] all = new int[total];
+        int at = 0;
+        for (Postings p : lists) {
+            System.arraycopy(p.docs, 0, all, at, p.size);
+            at += p.size;
+        }
+        Arrays.sort(all);
+        int unique = 0;
+        for (int i = 0; i < all.length; i++) {
+            if (i == 0 || all[i] != all[i - 1]) {
+                all[unique++] = all[i];
+            }
+        }
+        return Arrays.copyOf(all, unique);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[k++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, k);
+    }
+
+    /**
+     * Sorted document ids and weighted term frequencies for one term
+     */
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] freqs = new int[4];
+        int size;
+
+        void append(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+
+        int frequency(int doc) {
+            int i = Arrays.binarySearch(docs, 0, size, doc);
+            return i >= 0 ? freqs[i] : 0;
+        }
+
+        int[] docsView() {
+            return size == docs.length ? docs : Arrays.copyOf(docs, size);
+        }
+    }
+}
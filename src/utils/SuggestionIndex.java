@@ -0,0 +1,486 @@
+package utils;
+
+import Model.Song;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * SuggestionIndex - type-ahead completions for the search bars
+ *
+ * Every distinct title, artist and album in the library is one suggestion,
+ * stored in a path-compressed (radix) trie under its normalized text (case
+ * folded, diacritics stripped, see SongSearchIndex.normalize). Names starting
+ * with "the " are also reachable without it.
+ *
+ * A suggestion's weight is PLAY_WEIGHT per play (PlayCounts) plus one per
+ * song carrying it. Each trie node stores the best weight in its subtree, so
+ * complete() walks to the prefix node and expands best-first, touching only
+ * about k nodes per level instead of the whole subtree.
+ *
+ * SongCache keeps this index in step with the library; methods are
+ * synchronized and cheap enough to call on the EDT for every keystroke.
+ */
+public final class SuggestionIndex {
+    private static final int PLAY_WEIGHT = 5;
+    private static final Node[] NO_NODES = new Node[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    /**
+     * What a suggestion completes to
+     */
+    public enum Kind {
+        TITLE, ARTIST, ALBUM
+    }
+
+    /**
+     * One completion returned to the UI
+     */
+    public static final class Suggestion {
+        private final String text;
+        private final Kind kind;
+        private final int weight;
+
+        Suggestion(String text, Kind kind, int weight) {
+            this.text = text;
+            this.kind = kind;
+            this.weight = weight;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    private final Node root = new Node("");
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<String, Entry[]> bySong = new HashMap<>();
+    private final Map<String, Integer> songPlays = new HashMap<>();
+
+    /**
+     * Replace the whole index
+     */
+    public synchronized void rebuild(List<Song> songs, PlayCounts plays) {
+        root.kids = NO_NODES;
+        root.here = NO_ENTRIES;
+        root.best = 0;
+        entries.clear();
+        bySong.clear();
+        songPlays.clear();
+        for (Song song : songs) {
+            addLocked(song, plays.get(song.getFilePath()));
+        }
+    }
+
+    /**
+     * Add a song, replacing the one indexed for its path
+     */
+    public synchronized void add(Song song, int plays) {
+        if (song == null) {
+            return;
+        }
+        removeLocked(song.getFilePath());
+        addLocked(song, plays);
+    }
+
+    /**
+     * Drop the song indexed for a file path
+     */
+    public synchronized void remove(String filePath) {
+        removeLocked(filePath);
+    }
+
+    /**
+     * Count one play of the song at filePath
+     */
+    public synchronized void recordPlay(String filePath) {
+        Entry[] songEntries = bySong.get(filePath);
+        if (songEntries == null) {
+            return;
+        }
+        songPlays.merge(filePath, 1, Integer::sum);
+        for (Entry e : songEntries) {
+            e.plays++;
+            refresh(e);
+        }
+    }
+
+    /**
+     * Best completions for what the user typed so far
+     *
+     * @param prefix typed text
+     * @param k      maximum number of suggestions
+     */
+    public synchronized List<Suggestion> complete(String prefix, int k) {
+        String p = key(prefix);
+        if (p.isEmpty() || k <= 0) {
+            return Collections.emptyList();
+        }
+        if (Character.isWhitespace(prefix.charAt(prefix.length() - 1))) {
+            p += ' '; // the last word is complete
+        }
+
+        // Walk to the node covering the prefix (it may end inside an edge)
+        Node node = root;
+        int pos = 0;
+        while (pos < p.length()) {
+            int ci = childIndex(node, p.charAt(pos));
+            if (ci < 0) {
+                return Collections.emptyList();
+            }
+            Node child = node.kids[ci];
+            int n = Math.min(child.label.length(), p.length() - pos);
+            if (!child.label.regionMatches(0, p, pos, n)) {
+                return Collections.emptyList();
+            }
+            pos += n;
+            node = child;
+        }
+
+        List<Suggestion> out = new ArrayList<>(k);
+        Set<Entry> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        queue.add(new Candidate(node.best, node, null));
+        while (!queue.isEmpty() && out.size() < k) {
+            Candidate c = queue.poll();
+            if (c.entry != null) {
+                if (seen.add(c.entry)) {
+                    out.add(new Suggestion(c.entry.display, c.entry.kind, c.weight));
+                }
+                continue;
+            }
+            for (Entry e : c.node.here) {
+                queue.add(new Candidate(e.weight(), null, e));
+            }
+            for (Node kid : c.node.kids) {
+                queue.add(new Candidate(kid.best, kid, null));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Get the number of distinct suggestions
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void addLocked(Song song, int plays) {
+        List<Entry> songEntries = new ArrayList<>(3);
+        collect(song.getTitle(), Kind.TITLE, songEntries);
+        collect(song.getArtist(), Kind.ARTIST, songEntries);
+        collect(song.getAlbum(), Kind.ALBUM, songEntries);
+        for (Entry e : songEntries) {
+            e.songs++;
+            e.plays += plays;
+            refresh(e);
+        }
+        bySong.put(song.getFilePath(), songEntries.toArray(NO_ENTRIES));
+        if (plays > 0) {
+            songPlays.put(song.getFilePath(), plays);
+        }
+    }
+
+    private void removeLocked(String filePath) {
+        Entry[] songEntries = filePath == null ? null : bySong.remove(filePath);
+        if (songEntries == null) {
+            return;
+        }
+        Integer plays = songPlays.remove(filePath);
+        for (Entry e : songEntries) {
+            e.songs--;
+            e.plays -= plays == null ? 0 : plays;
+            if (e.songs <= 0) {
+                entries.remove(e.id);
+                for (String k : e.keys) {
+                    delete(k, e);
+                }
+            } else {
+                refresh(e);
+            }
+        }
+    }
+
+    private void collect(String text, Kind kind, List<Entry> out) {
+        if (text == null || text.isBlank() || "Unknown".equals(text)) {
+            return;
+        }
+        String k = key(text);
+        if (k.isEmpty()) {
+            return;
+        }
+        String id = kind.ordinal() + k;
+        Entry e = entries.get(id);
+        if (e == null) {
+            String[] keys = k.startsWith("the ") && k.length() > 4
+                    ? new String[] { k, k.substring(4) }
+                    : new String[] { k };
+            e = new Entry(id, text.trim(), kind, keys);
+            entries.put(id, e);
+            for (String key : keys) {
+                insert(key, e);
+            }
+        }
+        if (!out.contains(e)) {
+            out.add(e);
+        }
+    }
+
+    private static String key(String text) {
+        return SongSearchIndex.normalize(text).replaceAll("\\s+", " ");
+    }
+
+    // ------------------------------------------------------------ trie
+
+    private void insert(String key, Entry entry) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        int pos = 0;
+        while (true) {
+            path.add(node);
+            if (pos == key.length()) {
+                node.here = append(node.here, entry);
+                break;
+            }
+            int ci = childIndex(node, key.charAt(pos));
+            if (ci < 0) {
+                Node leaf = new Node(key.substring(pos));
+                leaf.here = new Entry[] { entry };
+                node.kids = insertAt(node.kids, -ci - 1, leaf);
+                path.add(leaf);
+                break;
+            }
+            Node child = node.kids[ci];
+            int common = commonPrefix(child.label, key, pos);
+            if (common < child.label.length()) {
+                // Split the edge where the new key diverges
+                Node mid = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                mid.kids = new Node[] { child };
+                mid.best = child.best;
+                node.kids[ci] = mid;
+                child = mid;
+            }
+            node = child;
+            pos += common;
+        }
+        recompute(path);
+    }
+
+    private void delete(String key, Entry entry) {
+        List<Node> path = find(key);
+        if (path == null) {
+            return;
+        }
+        Node node = path.get(path.size() - 1);
+        node.here = without(node.here, entry);
+
+        // Prune empty leaves and merge single-child nodes back into one edge
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node n = path.get(i);
+            Node parent = path.get(i - 1);
+            if (n.here.length == 0 && n.kids.length == 0) {
+                parent.kids = removeAt(parent.kids, childIndex(parent, n.label.charAt(0)));
+                path.remove(i);
+            } else if (n.here.length == 0 && n.kids.length == 1) {
+                Node only = n.kids[0];
+                n.label = n.label + only.label;
+                n.kids = only.kids;
+                n.here = only.here;
+                n.best = only.best;
+            }
+        }
+        recompute(path);
+    }
+
+    /**
+     * Re-derive subtree bests on every path holding entry
+     */
+    private void refresh(Entry entry) {
+        for (String k : entry.keys) {
+            List<Node> path = find(k);
+            if (path != null) {
+                recompute(path);
+            }
+        }
+    }
+
+    private List<Node> find(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        int pos = 0;
+        path.add(node);
+        while (pos < key.length()) {
+            int ci = childIndex(node, key.charAt(pos));
+            if (ci < 0) {
+                return null;
+            }
+            node = node.kids[ci];
+            if (!key.startsWith(node.label, pos)) {
+                return null;
+            }
+            pos += node.label.length();
+            path.add(node);
+        }
+        return path;
+    }
+
+    private static void recompute(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node n = path.get(i);
+            int best = 0;
+            for (Entry e : n.here) {
+                best = Math.max(best, e.weight());
+            }
+            for (Node kid : n.kids) {
+                best = Math.max(best, kid.best);
+            }
+            n.best = best;
+        }
+    }
+
+    private static int childIndex(Node node, char c) {
+        int lo = 0, hi = node.kids.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char m = node.kids[mid].label.charAt(0);
+            if (m < c) {
+                lo = mid + 1;
+            } else if (m > c) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -lo - 1;
+    }
+
+    private static int commonPrefix(String label, String key, int pos) {
+        int n = Math.min(label.length(), key.length() - pos);
+        int i = 0;
+        while (i < n && label.charAt(i) == key.charAt(pos + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static Node[] insertAt(Node[] kids, int at, Node node) {
+        Node[] out = new Node[kids.length + 1];
+        System.arraycopy(kids, 0, out, 0, at);
+        out[at] = node;
+        System.arraycopy(kids, at, out, at + 1, kids.length - at);
+        return out;
+    }
+
+    private static Node[] removeAt(Node[] kids, int at) {
+        if (at < 0) {
+            return kids;
+        }
+        Node[] out = new Node[kids.length - 1];
+        System.arraycopy(kids, 0, out, 0, at);
+        System.arraycopy(kids, at + 1, out, at, kids.length - at - 1);
+        return out.length == 0 ? NO_NODES : out;
+    }
+
+    private static Entry[] append(Entry[] here, Entry e) {
+        Entry[] out = Arrays.copyOf(here, here.length + 1);
+        out[here.length] = e;
+        return out;
+    }
+
+    private static Entry[] without(Entry[] here, Entry e) {
+        for (int i = 0; i < here.length; i++) {
+            if (here[i] == e) {
+                Entry[] out = new Entry[here.length - 1];
+                System.arraycopy(here, 0, out, 0, i);
+                System.arraycopy(here, i + 1, out, i, here.length - i - 1);
+                return out.length == 0 ? NO_ENTRIES : out;
+            }
+        }
+        return here;
+    }
+
+    /**
+     * Trie node; label is the edge text from the parent
+     */
+    private static final class Node {
+        String label;
+        Node[] kids = NO_NODES;
+        Entry[] here = NO_ENTRIES;
+        int best;
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * One distinct title, artist or album
+     */
+    private static final class Entry {
+        final String id;
+        final String display;
+        final Kind kind;
+        final String[] keys;
+        int songs;
+        int plays;
+
+        Entry(String id, String display, Kind kind, String[] keys) {
+            this.id = id;
+            this.display = display;
+            this.kind = kind;
+            this.keys = keys;
+        }
+
+        int weight() {
+            return plays * PLAY_WEIGHT + songs;
+        }
+    }
+
+    /**
+     * Queue item for best-first expansion: a subtree or a single entry
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+        final int weight;
+        final Node node;
+        final Entry entry;
+
+        Candidate(int weight, Node node, Entry entry) {
+            this.weight = weight;
+            this.node = node;
+            this.entry = entry;
+        }
+
+        @Override
+        public int compareTo(Candidate o) {
+            if (weight != o.weight) {
+                return Integer.compare(o.weight, weight);
+            }
+            // Entries before subtrees of equal weight, then alphabetical
+            if ((entry == null) != (o.entry == null)) {
+                return entry != null ? -1 : 1;
+            }
+            return entry != null ? entry.display.compareToIgnoreCase(o.entry.display) : 0;
+        }
+    }
+}
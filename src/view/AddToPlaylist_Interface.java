@@ -43,6 +43,7 @@ public class AddToPlaylist_Interface extends javax.swing.JFrame {
         initComponents();
         initPlaylistGrid();
         setupPlaylistGrid();
+        SearchSuggestions.install(SearchBar, null);
     }
 
     /**
@@ -6,14 +6,17 @@ package view;
 
 import Controller.SongController;
 import Controller.SongSearchController;
+import Model.LibraryDelta;
 import Model.PlaySource;
 import Model.Song;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 import javax.swing.JOptionPane;
-import javax.swing.table.DefaultTableModel;
+import service.LibraryBootstrap;
 import service.PlaybackManager;
+import utils.LibraryChangeNotifier;
 
 public class AllSongs extends javax.swing.JFrame implements SongSearchView {
 
@@ -22,21 +25,30 @@ public class AllSongs extends javax.swing.JFrame implements SongSearchView {
     private final SongSearchController searchController = new SongSearchController();
     private List<Song> allSongs = Collections.emptyList();
     private List<Song> masterSongs = Collections.emptyList();
+    private final SongTableModel tableModel = new SongTableModel(SongTableModel.Column.SN,
+            SongTableModel.Column.TITLE, SongTableModel.Column.ARTIST, SongTableModel.Column.DURATION);
+    private final Consumer<LibraryDelta> libraryCallback = delta -> loadAllSongs();
 
     public AllSongs() {
         initComponents();
         setLocationRelativeTo(null);
+        tableModel.install(jTable2);
         setAllSongsColumnWidths();
-        loadAllSongs();
+        // Fill the table once the library has loaded (at once if it has)
+        LibraryBootstrap.getInstance().whenReady(songs -> loadAllSongs());
+        SearchSuggestions.install(SearchBar, text -> searchController.searchLocal(text, masterSongs, this));
+
+        // Refresh when LibraryWatcher picks up changes in the music folder
+        LibraryChangeNotifier.register(libraryCallback);
 
         jTable2.addMouseListener(new java.awt.event.MouseAdapter() {
             @Override
             public void mouseClicked(java.awt.event.MouseEvent evt) {
                 int row = jTable2.rowAtPoint(evt.getPoint());
-                if (row >= 0 && allSongs != null && row < allSongs.size()) {
-                    Song selectedSong = allSongs.get(row);
-
-                    PlaybackManager.getInstance().setPlaylist(allSongs, row, PlaySource.ALL_SONGS);
+                Song selectedSong = tableModel.getSongAt(row);
+                if (selectedSong != null) {
+                    // Play in the order shown, which may be sorted
+                    PlaybackManager.getInstance().setPlaylist(tableModel.getSongs(), row, PlaySource.ALL_SONGS);
 
                     Player playerWindow = Player.getInstance();
                     playerWindow.setPlaySource(PlaySource.ALL_SONGS);
@@ -61,21 +73,19 @@ public class AllSongs extends javax.swing.JFrame implements SongSearchView {
     public void updateSongTable(List<Song> songs) {
         logger.fine(() -> "AllSongs updateSongTable count=" + (songs == null ? 0 : songs.size()));
         allSongs = songs != null ? songs : Collections.emptyList();
-        DefaultTableModel model = (DefaultTableModel) jTable2.getModel();
-        model.setRowCount(0);
-        for (int i = 0; i < allSongs.size(); i++) {
-            Song song = allSongs.get(i);
-            String duration = String.format("%d:%02d", song.getDurationSeconds() / 60,
-                    song.getDurationSeconds() % 60);
-            model.addRow(new Object[] { i + 1, song.getTitle(), song.getArtist(), duration });
-        }
+        tableModel.setSongs(allSongs);
     }
 
     @Override
     public void clearSongTable() {
         allSongs = Collections.emptyList();
-        DefaultTableModel model = (DefaultTableModel) jTable2.getModel();
-        model.setRowCount(0);
+        tableModel.clear();
+    }
+
+    @Override
+    public void dispose() {
+        LibraryChangeNotifier.unregister(libraryCallback);
+        super.dispose();
     }
 
     @Override
@@ -386,24 +396,8 @@ public class AllSongs extends javax.swing.JFrame implements SongSearchView {
         masterSongs = songController.getAllSongs();
         allSongs = masterSongs;
 
-        // Get table model and clear existing rows
-        DefaultTableModel model = (DefaultTableModel) jTable2.getModel();
-        model.setRowCount(0);
-
-        if (allSongs == null || allSongs.isEmpty()) {
-            return;
-        }
-
-        // Populate table with all songs (3 columns: Title, Artist, Duration)
-        for (int i = 0; i < allSongs.size(); i++) {
-            Song song = allSongs.get(i);
-            String title = song.getTitle();
-            String artist = song.getArtist();
-            int durationSeconds = song.getDurationSeconds();
-            String duration = String.format("%d:%02d", durationSeconds / 60, durationSeconds % 60);
-
-            model.addRow(new Object[] { i + 1, title, artist, duration });
-        }
+        // The table model reads cells straight from the list (no row copies)
+        tableModel.setSongs(allSongs);
     }
 
     private void setAllSongsColumnWidths() {
@@ -4,32 +4,36 @@
  */
 package view;
 
-import Dao.LikedSongDao;
 import Dao.SongDAO;
 import Model.PlaySource;
+import Model.PlaybackSnapshot;
 import Model.Song;
 import Model.UserSession;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
+import service.LikedSongStore;
 import service.PlaybackManager;
 import utils.NowPlayingState;
-import utils.NowPlayingState.NowPlayingListener;
 import utils.LikedSongsNotifier;
+import utils.PlaybackEventBus;
+import utils.PlaybackStateStore;
+import utils.SongCache;
 
 /**
  * Player UI - Singleton pattern ensures only one player window exists
  * Displays metadata and controls for the currently playing song
- * Observes NowPlayingState for automatic UI updates
+ * Observes PlaybackStateStore for automatic UI updates
  */
-public class Player extends javax.swing.JFrame implements NowPlayingListener {
+public class Player extends javax.swing.JFrame {
 
     private static final java.util.logging.Logger logger = java.util.logging.Logger.getLogger(Player.class.getName());
     private static Player instance;
 
     private final PlaybackManager playbackManager;
-    private final LikedSongDao likedSongDao;
+    private final LikedSongStore likedSongStore;
     private final SongDAO songDao;
 
     /**
@@ -60,35 +64,54 @@ public class Player extends javax.swing.JFrame implements NowPlayingListener {
         initComponents();
         playbackManager = PlaybackManager.getInstance();
         songDao = new SongDAO();
-        likedSongDao = new LikedSongDao();
+        likedSongStore = LikedSongStore.getInstance();
 
         // Initialize PlayPausebtn with play icon
         setPlayPauseIcon(false);
 
+        // Progress bar above the control buttons (added here, outside the
+        // generated layout code)
+        javax.swing.JPanel controls = new javax.swing.JPanel(new java.awt.BorderLayout());
+        controls.setOpaque(false);
+        ((javax.swing.GroupLayout) jPanel1.getLayout()).replace(buttonsHolderPanel, controls);
+        controls.add(new SeekBar(), java.awt.BorderLayout.NORTH);
+        controls.add(buttonsHolderPanel, java.awt.BorderLayout.CENTER);
+        pack();
+
         // Set window properties
         setLocationRelativeTo(null);
         setDefaultCloseOperation(javax.swing.WindowConstants.HIDE_ON_CLOSE);
 
-        // Listen for now playing changes
-        NowPlayingState.getInstance().addListener(this);
+        // Listen for song, play state and loop changes (not position);
+        // delivered off the EDT because the liked lookup may have to load
+        // the user's likes first
+        PlaybackStateStore.getInstance().subscribe(this, PlaybackEventBus.Delivery.BACKGROUND,
+                s -> java.util.Arrays.asList(s.getSong(), s.isPlaying(), s.isLoop()), Player::onNowPlayingChanged);
     }
 
     /**
-     * Called when now playing song changes
+     * Called (on a bus thread) when now playing song changes
      */
-    @Override
-    public void onNowPlayingChanged(Song song, boolean playing) {
+    private void onNowPlayingChanged(PlaybackSnapshot snapshot) {
+        Song song = snapshot.getSong();
         if (song == null) {
             return;
         }
 
-        // Check if song is liked in database (if user is logged in and song has ID)
+        // Check if song is liked (in-memory set, if user is logged in and song has ID)
         UserSession session = UserSession.getInstance();
         if (session.isLoggedIn() && song.getSongId() > 0) {
-            boolean isLiked = likedSongDao.isSongLiked(session.getUserId(), song.getSongId());
+            boolean isLiked = likedSongStore.isLiked(session.getUserId(), song.getSongId());
             song.setLiked(isLiked);
         }
 
+        SwingUtilities.invokeLater(() -> showNowPlaying(song, snapshot.isPlaying(), snapshot.isLoop()));
+    }
+
+    /**
+     * Update the window for the now playing song (EDT)
+     */
+    private void showNowPlaying(Song song, boolean playing, boolean looping) {
         // Update metadata display
         updateMetadata(song);
 
@@ -108,7 +131,6 @@ public class Player extends javax.swing.JFrame implements NowPlayingListener {
         }
 
         // Update loop button state
-        boolean looping = playbackManager.isLooping();
         if (looping) {
             loopSongBtn.setBackground(new java.awt.Color(100, 100, 50)); // Dark when active
             loopSongBtn.setOpaque(true);
@@ -625,6 +647,7 @@ public class Player extends javax.swing.JFrame implements NowPlayingListener {
 
             if (songId > 0) {
                 currentSong.setSongId(songId);
+                SongCache.updateSongId(currentSong);
                 logger.info("Song inserted successfully with ID: " + songId);
             } else {
                 logger.warning("Failed to insert song into database");
@@ -638,37 +661,21 @@ public class Player extends javax.swing.JFrame implements NowPlayingListener {
 
         boolean isCurrentlyLiked = currentSong.isLiked();
 
-        // Toggle like state with database
+        // Toggle like state; the store saves it to the database in the background
+        likedSongStore.setLiked(userId, songId, !isCurrentlyLiked);
+        currentSong.setLiked(!isCurrentlyLiked);
         if (isCurrentlyLiked) {
-            // Unlike the song
-            boolean success = likedSongDao.unlikeSong(userId, songId);
-
-            if (success) {
-                currentSong.setLiked(false);
-                likeSongBtn.setBackground(new java.awt.Color(164, 183, 203)); // Default when not liked
-                likeSongBtn.setOpaque(true);
-                likeSongBtn.setBorderPainted(false);
-                logger.info("Unliked song: " + currentSong.getTitle());
-                LikedSongsNotifier.notifyChanged();
-            } else {
-                logger.warning("Failed to unlike song in database");
-            }
-
+            likeSongBtn.setBackground(new java.awt.Color(164, 183, 203)); // Default when not liked
+            likeSongBtn.setOpaque(true);
+            likeSongBtn.setBorderPainted(false);
+            logger.info("Unliked song: " + currentSong.getTitle());
         } else {
-            // Like the song
-            boolean success = likedSongDao.likeSong(userId, songId);
-
-            if (success) {
-                currentSong.setLiked(true);
-                likeSongBtn.setBackground(new java.awt.Color(100, 50, 100)); // Dark purple when liked
-                likeSongBtn.setOpaque(true);
-                likeSongBtn.setBorderPainted(false);
-                logger.info("Liked song: " + currentSong.getTitle());
-                LikedSongsNotifier.notifyChanged();
-            } else {
-                logger.warning("Failed to like song in database");
-            }
+            likeSongBtn.setBackground(new java.awt.Color(100, 50, 100)); // Dark purple when liked
+            likeSongBtn.setOpaque(true);
+            likeSongBtn.setBorderPainted(false);
+            logger.info("Liked song: " + currentSong.getTitle());
         }
+        LikedSongsNotifier.notifyChanged();
     }// GEN-LAST:event_likeSongBtnActionPerformed
 
     /**
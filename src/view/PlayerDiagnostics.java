@@ -0,0 +1,86 @@
+package view;
+
+import java.awt.*;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import javax.swing.*;
+import service.MediaPlayerPool;
+
+/**
+ * Small window listing the live native media players (MediaPlayerPool) with
+ * the pool's counters, refreshed every second while it is open. Opened with
+ * Ctrl+Shift+D from a window that called installShortcut().
+ */
+public class PlayerDiagnostics extends JDialog {
+    private static final int REFRESH_MILLIS = 1000;
+    private static PlayerDiagnostics open;
+
+    private final JLabel statsLabel = new JLabel();
+    private final JTextArea playersArea = new JTextArea(8, 70);
+    private final Timer refreshTimer = new Timer(REFRESH_MILLIS, e -> refresh());
+
+    private PlayerDiagnostics(Window owner) {
+        super(owner, "Media players", ModalityType.MODELESS);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+        playersArea.setEditable(false);
+        playersArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        statsLabel.setBorder(BorderFactory.createEmptyBorder(6, 8, 6, 8));
+
+        setLayout(new BorderLayout());
+        add(statsLabel, BorderLayout.NORTH);
+        add(new JScrollPane(playersArea), BorderLayout.CENTER);
+        pack();
+        setLocationRelativeTo(owner);
+    }
+
+    /**
+     * Open the window from owner with Ctrl+Shift+D
+     */
+    public static void installShortcut(JFrame owner) {
+        KeyStroke key = KeyStroke.getKeyStroke(KeyEvent.VK_D, InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK);
+        JRootPane root = owner.getRootPane();
+        root.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(key, "playerDiagnostics");
+        root.getActionMap().put("playerDiagnostics", new AbstractAction() {
+            @Override
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                showFor(owner);
+            }
+        });
+    }
+
+    /**
+     * Show the window, or bring the open one to the front
+     */
+    public static void showFor(Window owner) {
+        if (open == null) {
+            open = new PlayerDiagnostics(owner);
+        }
+        open.setVisible(true);
+        open.toFront();
+    }
+
+    @Override
+    public void setVisible(boolean visible) {
+        if (visible) {
+            refresh();
+            refreshTimer.start();
+        }
+        super.setVisible(visible);
+    }
+
+    @Override
+    public void dispose() {
+        refreshTimer.stop();
+        if (open == this) {
+            open = null;
+        }
+        super.dispose();
+    }
+
+    private void refresh() {
+        MediaPlayerPool pool = MediaPlayerPool.getInstance();
+        statsLabel.setText(pool.getStats());
+        playersArea.setText(String.join("\n", pool.getDiagnostics()));
+    }
+}
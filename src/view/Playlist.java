@@ -11,11 +11,13 @@ import Model.PlaylistModel;
 import Model.Song;
 import Model.UserSession;
 import java.awt.*;
+import java.util.ArrayList;
 import java.util.List;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import service.LibraryBootstrap;
 import service.PlaybackManager;
 import service.PlaylistManager;
+import service.SearchScheduler;
 import service.SearchService;
 
 /**
@@ -30,13 +32,21 @@ public class Playlist extends javax.swing.JFrame {
     private final SongController songController;
     private final PlaylistDao playlistDao;
     private final SearchService searchService = SearchService.getInstance();
+    private final SearchScheduler.Channel searchChannel = searchService.openChannel("playlist");
     private JList<Song> songList;
     private List<Song> playlistSongs; // For future extension: filtering songs into playlists
     private JScrollPane playlistScrollPane;
     private JPanel playlistGridPanel;
     private JTable searchResultsTable;
     private JScrollPane searchResultsScroll;
-    private List<Song> searchResults = new java.util.ArrayList<>();
+    private final SongTableModel searchResultsModel = new SongTableModel(SongTableModel.Column.SN,
+            SongTableModel.Column.TITLE, SongTableModel.Column.ARTIST, SongTableModel.Column.ALBUM,
+            SongTableModel.Column.DURATION);
+    // Search results loaded so far; further pages load when the table is scrolled to the end
+    private String searchTerm;
+    private List<Song> searchResults = List.of();
+    private boolean searchHasMore = false;
+    private boolean searchLoading = false;
 
     /**
      * Creates new form Playlist with a shared controller.
@@ -49,6 +59,7 @@ public class Playlist extends javax.swing.JFrame {
         initSongList();
         initSearchResultsTable();
         loadPlaylistCards();
+        SearchSuggestions.install(SearchBar, text -> performSearch());
 
         // After initComponents, configure NowPlaying panel with NowPlayingCard
         NowPlaying.removeAll();
@@ -70,6 +81,7 @@ public class Playlist extends javax.swing.JFrame {
         initSongList();
         initSearchResultsTable();
         loadPlaylistCards();
+        SearchSuggestions.install(SearchBar, text -> performSearch());
 
         // After initComponents, configure NowPlaying panel with NowPlayingCard
         NowPlaying.removeAll();
@@ -431,13 +443,8 @@ public class Playlist extends javax.swing.JFrame {
      * Table to show song search results inside Playlist view.
      */
     private void initSearchResultsTable() {
-        searchResultsTable = new JTable(new DefaultTableModel(
-                new Object[] { "SN", "Title", "Artist", "Album", "Duration" }, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        });
+        searchResultsTable = new JTable();
+        searchResultsModel.install(searchResultsTable);
 
         searchResultsTable.addMouseListener(new java.awt.event.MouseAdapter() {
             @Override
@@ -452,6 +459,12 @@ public class Playlist extends javax.swing.JFrame {
         });
 
         searchResultsScroll = new JScrollPane(searchResultsTable);
+        searchResultsScroll.getVerticalScrollBar().addAdjustmentListener(e -> {
+            JScrollBar bar = searchResultsScroll.getVerticalScrollBar();
+            if (!e.getValueIsAdjusting() && bar.getValue() + bar.getVisibleAmount() >= bar.getMaximum()) {
+                loadMoreSearchResults();
+            }
+        });
         searchResultsScroll.setVisible(false);
         searchResultsScroll.setBounds(10, 250, 970, 320);
         jPanel1.add(searchResultsScroll);
@@ -509,22 +522,20 @@ public class Playlist extends javax.swing.JFrame {
 
     /**
      * Initialize song list by loading songs from SongCache via SongController.
-     * Does not scan local files - uses pre-loaded songs from cache.
+     * Does not scan local files - waits for LibraryBootstrap instead.
      * Supports future extension for filtering songs into specific playlists.
      */
     private void initSongList() {
-        // Load songs from SongCache via SongController (no file scanning)
-        playlistSongs = songController.getAllSongs();
-
         songList = new JList<>(new DefaultListModel<>());
-        DefaultListModel<Song> model = (DefaultListModel<Song>) songList.getModel();
 
-        // Populate the list with all songs (future: filter by playlist)
-        if (playlistSongs != null) {
-            for (Song s : playlistSongs) {
-                model.addElement(s);
-            }
-        }
+        // Populate the list with all songs once the library has loaded
+        // (future: filter by playlist)
+        LibraryBootstrap.getInstance().whenReady(songs -> {
+            playlistSongs = songs;
+            DefaultListModel<Song> model = (DefaultListModel<Song>) songList.getModel();
+            model.clear();
+            model.addAll(playlistSongs);
+        });
 
         songList.setCellRenderer(new ListCellRenderer<>());
         songList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -564,22 +575,19 @@ public class Playlist extends javax.swing.JFrame {
         String term = SearchBar.getText().trim();
 
         if (term.isEmpty() || term.equals("Search") || term.equals("               Search")) {
+            searchChannel.cancel();
+            searchTerm = null;
             showPlaylistsGrid();
             return;
         }
 
-        searchService.searchSongs(term, results -> {
+        searchTerm = term;
+        searchLoading = true;
+        searchService.searchSongs(searchChannel, term, 0, SearchService.PAGE_SIZE, results -> {
             searchResults = results;
-            javax.swing.table.DefaultTableModel model = (javax.swing.table.DefaultTableModel) searchResultsTable
-                    .getModel();
-            model.setRowCount(0);
-
-            for (int i = 0; i < results.size(); i++) {
-                Song song = results.get(i);
-                String duration = String.format("%d:%02d", song.getDurationSeconds() / 60,
-                        song.getDurationSeconds() % 60);
-                model.addRow(new Object[] { i + 1, song.getTitle(), song.getArtist(), song.getAlbum(), duration });
-            }
+            searchHasMore = results.size() >= SearchService.PAGE_SIZE;
+            searchLoading = false;
+            searchResultsModel.setSongs(results);
 
             playlistCardRendererPanel.setVisible(false);
             playlistScrollPane.setVisible(false);
@@ -587,6 +595,7 @@ public class Playlist extends javax.swing.JFrame {
             jPanel1.revalidate();
             jPanel1.repaint();
         }, ex -> {
+            searchLoading = false;
             logger.log(java.util.logging.Level.SEVERE, "Search failed", ex);
             JOptionPane.showMessageDialog(this,
                     "Unable to search songs right now. Please try again.",
@@ -595,6 +604,34 @@ public class Playlist extends javax.swing.JFrame {
         });
     }
 
+    /**
+     * Append the next page of the current search to the results table
+     */
+    private void loadMoreSearchResults() {
+        if (searchTerm == null || searchLoading || !searchHasMore) {
+            return;
+        }
+        String term = searchTerm;
+        int offset = searchResults.size();
+        searchLoading = true;
+        // On the same channel, so a new search typed meanwhile wins
+        searchService.searchSongs(searchChannel, term, offset, SearchService.PAGE_SIZE, page -> {
+            searchLoading = false;
+            if (!term.equals(searchTerm)) {
+                return;
+            }
+            List<Song> all = new ArrayList<>(offset + page.size());
+            all.addAll(searchResults);
+            all.addAll(page);
+            searchResults = all;
+            searchHasMore = page.size() >= SearchService.PAGE_SIZE;
+            searchResultsModel.setSongs(all);
+        }, ex -> {
+            searchLoading = false;
+            logger.log(java.util.logging.Level.WARNING, "Loading more search results failed", ex);
+        });
+    }
+
     private void showPlaylistsGrid() {
         searchResultsScroll.setVisible(false);
         playlistCardRendererPanel.setVisible(true);
@@ -602,12 +639,13 @@ public class Playlist extends javax.swing.JFrame {
     }
 
     private void playFromSearchResults(int row) {
-        if (searchResults == null || row < 0 || row >= searchResults.size()) {
+        Song selectedSong = searchResultsModel.getSongAt(row);
+        if (selectedSong == null) {
             return;
         }
 
-        Song selectedSong = searchResults.get(row);
-        PlaybackManager.getInstance().setPlaylist(searchResults, row, PlaySource.PLAYLIST);
+        // Play in the order shown, which may be sorted
+        PlaybackManager.getInstance().setPlaylist(searchResultsModel.getSongs(), row, PlaySource.PLAYLIST);
         Player playerWindow = Player.getInstance();
         playerWindow.setPlaySource(PlaySource.PLAYLIST);
         playerWindow.setVisible(true);
@@ -620,16 +658,10 @@ public class Playlist extends javax.swing.JFrame {
                 boolean cellHasFocus) {
             super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
             if (value instanceof Song s) {
-                String duration = formatDuration(s.getDurationSeconds());
+                String duration = SongTableModel.formatDuration(s.getDurationSeconds());
                 setText(s.getTitle() + "  —  " + s.getArtist() + "  (" + duration + ")");
             }
             return this;
         }
-
-        private String formatDuration(int seconds) {
-            int m = seconds / 60;
-            int s = seconds % 60;
-            return String.format("%d:%02d", m, s);
-        }
     }
 }
@@ -13,6 +13,7 @@ import Model.UserSession;
 import java.awt.*;
 import java.util.List;
 import javax.swing.*;
+import service.LibraryBootstrap;
 import service.PlaybackManager;
 import service.PlaylistManager;
 
@@ -43,6 +44,7 @@ public class Playlist_CRUD extends javax.swing.JFrame {
         initPlaylistGrid();
         initSongList();
         loadPlaylistCards();
+        SearchSuggestions.install(SearchTextField, null);
 
         // After initComponents, configure NowPlaying panel with NowPlayingCard
         NowPlaying.removeAll();
@@ -63,6 +65,7 @@ public class Playlist_CRUD extends javax.swing.JFrame {
         initPlaylistGrid();
         initSongList();
         loadPlaylistCards();
+        SearchSuggestions.install(SearchTextField, null);
 
         // After initComponents, configure NowPlaying panel with NowPlayingCard
         NowPlaying.removeAll();
@@ -440,22 +443,20 @@ public class Playlist_CRUD extends javax.swing.JFrame {
 
     /**
      * Initialize song list by loading songs from SongCache via SongController.
-     * Does not scan local files - uses pre-loaded songs from cache.
+     * Does not scan local files - waits for LibraryBootstrap instead.
      * Supports future extension for filtering songs into specific playlists.
      */
     private void initSongList() {
-        // Load songs from SongCache via SongController (no file scanning)
-        playlistSongs = songController.getAllSongs();
-
         songList = new JList<>(new DefaultListModel<>());
-        DefaultListModel<Song> model = (DefaultListModel<Song>) songList.getModel();
 
-        // Populate the list with all songs (future: filter by playlist)
-        if (playlistSongs != null) {
-            for (Song s : playlistSongs) {
-                model.addElement(s);
-            }
-        }
+        // Populate the list with all songs once the library has loaded
+        // (future: filter by playlist)
+        LibraryBootstrap.getInstance().whenReady(songs -> {
+            playlistSongs = songs;
+            DefaultListModel<Song> model = (DefaultListModel<Song>) songList.getModel();
+            model.clear();
+            model.addAll(playlistSongs);
+        });
 
         songList.setCellRenderer(new ListCellRenderer<>());
         songList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -0,0 +1,190 @@
+package view;
+
+import java.awt.Component;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.DefaultListModel;
+import javax.swing.JList;
+import javax.swing.JPopupMenu;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import utils.SongCache;
+import utils.SuggestionIndex.Suggestion;
+
+/**
+ * Type-ahead dropdown for a search field.
+ * Suggestions come from SongCache.suggest() (in memory, no database), are
+ * refreshed on every edit and can be picked with the mouse or Up/Down/Enter.
+ */
+final class SearchSuggestions {
+
+    private static final int MAX_SUGGESTIONS = 8;
+
+    private final JTextField field;
+    private final Consumer<String> onChoose;
+    private final DefaultListModel<Suggestion> model = new DefaultListModel<>();
+    private final JList<Suggestion> list = new JList<>(model);
+    private final JPopupMenu popup = new JPopupMenu();
+    private boolean updating = false;
+
+    private SearchSuggestions(JTextField field, Consumer<String> onChoose) {
+        this.field = field;
+        this.onChoose = onChoose;
+    }
+
+    /**
+     * Attach suggestions to a search field
+     *
+     * @param field    the search bar
+     * @param onChoose run with the chosen text after it is put in the field
+     *                 (may be null)
+     */
+    static void install(JTextField field, Consumer<String> onChoose) {
+        new SearchSuggestions(field, onChoose).wire();
+    }
+
+    private void wire() {
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFocusable(false);
+        list.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> l, Object value, int index, boolean isSelected,
+                    boolean cellHasFocus) {
+                Suggestion s = (Suggestion) value;
+                String kind = s.getKind().name().charAt(0) + s.getKind().name().substring(1).toLowerCase();
+                return super.getListCellRendererComponent(l, s.getText() + "   · " + kind, index, isSelected,
+                        cellHasFocus);
+            }
+        });
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int row = list.locationToIndex(e.getPoint());
+                if (row >= 0) {
+                    choose(model.get(row));
+                }
+            }
+        });
+        popup.setFocusable(false);
+        popup.add(list);
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                scheduleRefresh();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                scheduleRefresh();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+
+        // Consuming the key here keeps Enter from also firing the field's action
+        field.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (!popup.isVisible()) {
+                    return;
+                }
+                int size = model.getSize();
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_DOWN:
+                        list.setSelectedIndex(Math.min(size - 1, list.getSelectedIndex() + 1));
+                        e.consume();
+                        break;
+                    case KeyEvent.VK_UP:
+                        list.setSelectedIndex(Math.max(0, list.getSelectedIndex() - 1));
+                        e.consume();
+                        break;
+                    case KeyEvent.VK_ENTER:
+                        if (list.getSelectedIndex() >= 0) {
+                            choose(list.getSelectedValue());
+                            e.consume();
+                        } else {
+                            popup.setVisible(false);
+                        }
+                        break;
+                    case KeyEvent.VK_ESCAPE:
+                        popup.setVisible(false);
+                        e.consume();
+                        break;
+                    default:
+                        break;
+                }
+            }
+        });
+
+        field.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                popup.setVisible(false);
+            }
+        });
+    }
+
+    private void scheduleRefresh() {
+        // Text set by choose() must not reopen the popup
+        if (!updating) {
+            SwingUtilities.invokeLater(this::refresh);
+        }
+    }
+
+    private void refresh() {
+        if (!field.isShowing() || !field.hasFocus()) {
+            return;
+        }
+        String text = field.getText();
+        if (text.isBlank() || "Search".equals(text.trim())) {
+            popup.setVisible(false);
+            return;
+        }
+
+        List<Suggestion> suggestions = SongCache.suggest(text, MAX_SUGGESTIONS);
+        model.clear();
+        for (Suggestion s : suggestions) {
+            model.addElement(s);
+        }
+        if (suggestions.isEmpty()) {
+            popup.setVisible(false);
+            return;
+        }
+        list.clearSelection();
+        list.setVisibleRowCount(suggestions.size());
+        popup.setPreferredSize(null);
+        popup.pack();
+        popup.setPopupSize(Math.max(field.getWidth(), popup.getPreferredSize().width),
+                popup.getPreferredSize().height);
+        if (!popup.isVisible()) {
+            popup.show(field, 0, field.getHeight());
+        }
+        field.requestFocusInWindow();
+    }
+
+    private void choose(Suggestion s) {
+        popup.setVisible(false);
+        updating = true;
+        try {
+            field.setText(s.getText());
+        } finally {
+            updating = false;
+        }
+        if (onChoose != null) {
+            onChoose.accept(s.getText());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package view;
+
+import java.awt.*;
+import javax.swing.*;
+import service.PlaybackManager;
+import service.PositionTicker;
+
+/**
+ * Progress bar with elapsed/total time for the Player window. Follows
+ * PositionTicker while shown; dragging the slider seeks on release.
+ */
+public class SeekBar extends JPanel implements PositionTicker.PositionListener {
+    private final JSlider slider;
+    private final JLabel elapsedLabel;
+    private final JLabel totalLabel;
+    private boolean updating = false;
+
+    /**
+     * Creates a new SeekBar instance
+     */
+    public SeekBar() {
+        setLayout(new BorderLayout(8, 0));
+        setOpaque(false);
+        setBorder(BorderFactory.createEmptyBorder(4, 10, 4, 10));
+
+        elapsedLabel = timeLabel();
+        totalLabel = timeLabel();
+        slider = new JSlider(0, 0, 0);
+        slider.setOpaque(false);
+        slider.setFocusable(false);
+
+        // Seek once the user lets go, not on every drag step
+        slider.addChangeListener(e -> {
+            if (!updating && !slider.getValueIsAdjusting()) {
+                PlaybackManager.getInstance().seek(slider.getValue());
+            }
+        });
+
+        add(elapsedLabel, BorderLayout.WEST);
+        add(slider, BorderLayout.CENTER);
+        add(totalLabel, BorderLayout.EAST);
+
+        PositionTicker.getInstance().register(this, this);
+    }
+
+    /**
+     * Called via PositionListener on the EDT
+     */
+    @Override
+    public void onPositionChanged(long positionMillis, long durationMillis) {
+        if (slider.getValueIsAdjusting()) {
+            return; // the user is dragging
+        }
+        updating = true;
+        try {
+            int max = (int) Math.min(Integer.MAX_VALUE, Math.max(0, durationMillis));
+            if (slider.getMaximum() != max) {
+                slider.setMaximum(max);
+            }
+            slider.setValue((int) Math.min(max, positionMillis));
+        } finally {
+            updating = false;
+        }
+        elapsedLabel.setText(format(positionMillis));
+        totalLabel.setText(format(durationMillis));
+    }
+
+    private static JLabel timeLabel() {
+        JLabel label = new JLabel(format(0));
+        label.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        label.setForeground(new Color(255, 255, 255));
+        return label;
+    }
+
+    private static String format(long millis) {
+        long seconds = Math.max(0, millis) / 1000;
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+}
@@ -0,0 +1,309 @@
+package view;
+
+import Model.Song;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableColumnModel;
+
+/**
+ * SongTableModel - Read-only table model shared by the song tables
+ * (AllSongs, liked songs, playlist search results)
+ *
+ * - Backed directly by a song list (held by reference, never copied) and
+ *   optionally an int array of list indexes giving the rows in display
+ *   order; cells are computed when the table paints them
+ * - setSongs(), sort() and filter() fire a single tableDataChanged
+ * - sort() and filter() only build a new index array; getSongs() returns
+ *   the rows in display order for PlaybackManager without copying songs
+ * - Durations are formatted once per distinct length and cached
+ *
+ * Like any Swing model it is only used on the EDT. The list passed to
+ * setSongs() must not be modified afterwards (views replace their lists).
+ */
+public class SongTableModel extends AbstractTableModel {
+    private static final int CACHED_DURATIONS = 60 * 60;
+    private static final String[] durations = new String[CACHED_DURATIONS];
+
+    /**
+     * Columns a song table can show
+     */
+    public enum Column {
+        SN("SN", Integer.class),
+        TITLE("Title", String.class),
+        ARTIST("Artist", String.class),
+        ALBUM("Album", String.class),
+        DURATION("Duration", String.class);
+
+        private final String header;
+        private final Class<?> type;
+
+        Column(String header, Class<?> type) {
+            this.header = header;
+            this.type = type;
+        }
+    }
+
+    private final Column[] columns;
+    private List<Song> songs = Collections.emptyList();
+    // Display order as indexes into songs; null means songs in list order
+    private int[] rows;
+    private Column sortedBy;
+    private boolean descending;
+
+    public SongTableModel(Column... columns) {
+        this.columns = columns.clone();
+    }
+
+    /**
+     * Show a list in its own order
+     */
+    public void setSongs(List<Song> songs) {
+        setSongs(songs, null);
+    }
+
+    /**
+     * Show the songs at the given indexes of a list, in that order
+     */
+    public void setSongs(List<Song> songs, int[] rows) {
+        this.songs = songs == null ? Collections.emptyList() : songs;
+        this.rows = rows;
+        sortedBy = null;
+        fireTableDataChanged();
+    }
+
+    public void clear() {
+        setSongs(null);
+    }
+
+    public Song getSongAt(int row) {
+        return row < 0 || row >= getRowCount() ? null : songs.get(index(row));
+    }
+
+    /**
+     * The rows in display order, as an unmodifiable list (the backing list
+     * itself when it is shown unsorted and unfiltered)
+     */
+    public List<Song> getSongs() {
+        if (rows == null) {
+            return songs;
+        }
+        List<Song> base = songs;
+        int[] order = rows;
+        return new AbstractList<Song>() {
+            @Override
+            public Song get(int index) {
+                return base.get(order[index]);
+            }
+
+            @Override
+            public int size() {
+                return order.length;
+            }
+        };
+    }
+
+    /**
+     * Keep only the rows whose song matches
+     */
+    public void filter(Predicate<? super Song> keep) {
+        int count = getRowCount();
+        int[] kept = new int[count];
+        int n = 0;
+        for (int row = 0; row < count; row++) {
+            int i = index(row);
+            if (keep.test(songs.get(i))) {
+                kept[n++] = i;
+            }
+        }
+        rows = n == count ? kept : Arrays.copyOf(kept, n);
+        fireTableDataChanged();
+    }
+
+    /**
+     * Order the rows (stable) by a comparator
+     */
+    public void sort(Comparator<? super Song> order) {
+        int count = getRowCount();
+        int[] sorted = new int[count];
+        for (int row = 0; row < count; row++) {
+            sorted[row] = index(row);
+        }
+        mergeSort(sorted, new int[count], 0, count, order);
+        rows = sorted;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Sort by a column; sorting by the same column again reverses the
+     * order. SN sorts back to list order.
+     */
+    public void sortBy(Column column) {
+        descending = column == sortedBy && !descending;
+        Comparator<Song> order = comparator(column);
+        if (order == null) {
+            int count = getRowCount();
+            int[] sorted = new int[count];
+            for (int row = 0; row < count; row++) {
+                sorted[row] = index(row);
+            }
+            Arrays.sort(sorted);
+            if (descending) {
+                reverse(sorted);
+            }
+            rows = sorted;
+            fireTableDataChanged();
+        } else {
+            sort(descending ? order.reversed() : order);
+        }
+        sortedBy = column;
+    }
+
+    /**
+     * Show this model in a table (keeping the table's column resizability)
+     * and sort when a column header is clicked
+     */
+    public void install(JTable table) {
+        TableColumnModel old = table.getColumnModel();
+        boolean[] resizable = null;
+        if (old.getColumnCount() == columns.length) {
+            resizable = new boolean[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                resizable[i] = old.getColumn(i).getResizable();
+            }
+        }
+        table.setModel(this);
+        if (resizable != null) {
+            for (int i = 0; i < columns.length; i++) {
+                table.getColumnModel().getColumn(i).setResizable(resizable[i]);
+            }
+        }
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.columnAtPoint(e.getPoint());
+                if (column >= 0) {
+                    sortBy(columns[table.convertColumnIndexToModel(column)]);
+                }
+            }
+        });
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows == null ? songs.size() : rows.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column].header;
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return columns[column].type;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Song song = songs.get(index(row));
+        switch (columns[column]) {
+            case SN:
+                return row + 1;
+            case TITLE:
+                return song.getTitle();
+            case ARTIST:
+                return song.getArtist();
+            case ALBUM:
+                return song.getAlbum();
+            case DURATION:
+                return formatDuration(song.getDurationSeconds());
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Format seconds as m:ss, cached for songs under an hour
+     */
+    public static String formatDuration(int seconds) {
+        if (seconds < 0 || seconds >= CACHED_DURATIONS) {
+            return String.format("%d:%02d", seconds / 60, seconds % 60);
+        }
+        String text = durations[seconds];
+        if (text == null) {
+            text = String.format("%d:%02d", seconds / 60, seconds % 60);
+            durations[seconds] = text;
+        }
+        return text;
+    }
+
+    private int index(int row) {
+        return rows == null ? row : rows[row];
+    }
+
+    private Comparator<Song> comparator(Column column) {
+        switch (column) {
+            case TITLE:
+                return Comparator.comparing(Song::getTitle, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+            case ARTIST:
+                return Comparator.comparing(Song::getArtist, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+            case ALBUM:
+                return Comparator.comparing(Song::getAlbum, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+            case DURATION:
+                return Comparator.comparingInt(Song::getDurationSeconds);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Stable merge sort of list indexes, comparing the songs they point to
+     */
+    private void mergeSort(int[] a, int[] tmp, int from, int to, Comparator<? super Song> order) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(a, tmp, from, mid, order);
+        mergeSort(a, tmp, mid, to, order);
+        if (order.compare(songs.get(a[mid - 1]), songs.get(a[mid])) <= 0) {
+            return;
+        }
+        System.arraycopy(a, from, tmp, from, to - from);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && order.compare(songs.get(tmp[i]), songs.get(tmp[j])) <= 0)) {
+                a[k] = tmp[i++];
+            } else {
+                a[k] = tmp[j++];
+            }
+        }
+    }
+
+    private static void reverse(int[] a) {
+        for (int i = 0, j = a.length - 1; i < j; i++, j--) {
+            int t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+    }
+}
@@ -6,16 +6,20 @@ package view;
 
 import Controller.SongController;
 import Controller.SongSearchController;
+import Model.LibraryDelta;
 import Model.PlaySource;
 import Model.Song;
 import java.awt.Image;
 import java.io.File;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import service.LibraryBootstrap;
 import service.PlaybackManager;
+import utils.LibraryChangeNotifier;
 
 /**
  *
@@ -29,15 +33,33 @@ public class UserDashboard extends javax.swing.JFrame implements SongSearchView
     private final SongSearchController searchController = new SongSearchController();
     private List<Song> loadedSongs = Collections.emptyList();
     private List<Song> allSongsCache = Collections.emptyList();
-    private static boolean songsLoadedOnce = false;
+    private static final int RECENT_ROWS = 10;
+    private final SongTableModel recentModel = new SongTableModel(SongTableModel.Column.SN,
+            SongTableModel.Column.TITLE, SongTableModel.Column.ARTIST, SongTableModel.Column.DURATION);
+    private final javax.swing.JLabel loadingStatus = new javax.swing.JLabel();
+    private boolean disposed = false;
+    private final Consumer<LibraryDelta> libraryCallback = delta -> refreshFromLibrary();
+    private final LibraryBootstrap.Listener bootstrapListener = new LibraryBootstrap.Listener() {
+        @Override
+        public void onSongs(List<Song> page) {
+            showLoadedPage(page);
+        }
+
+        @Override
+        public void onProgress(LibraryBootstrap.Progress progress) {
+            loadingStatus.setText(progress.toString());
+        }
+    };
 
     /**
      * Creates new form UserDashboard
      */
     public UserDashboard() {
         initComponents();
+        recentModel.install(jTable1);
         setRecentlyPlayedColumnWidths();
         jTable1.setFillsViewportHeight(true);
+        PlayerDiagnostics.installShortcut(this);
 
         // Display logged-in username
         Model.UserSession session = Model.UserSession.getInstance();
@@ -45,40 +67,17 @@ public class UserDashboard extends javax.swing.JFrame implements SongSearchView
             Userdisplay.setText("Hello, " + session.getUsername());
         }
 
-        // STEP 1: Load local songs once during application startup
-        if (!songsLoadedOnce) {
-            logger.info("Starting to load local songs from Music directory...");
-
-            // Use dynamic, safe path - NOT hardcoded
-            String musicPath = System.getProperty("user.home") + File.separator + "Music";
-            songController.loadLocalSongsOnce(musicPath);
-            songsLoadedOnce = true;
-
-            logger.info("Local songs loading completed.");
-        }
-
-        // STEP 2: Fetch all songs AFTER loading
-        List<Song> allSongs = songController.getAllSongs();
-        allSongsCache = allSongs;
-        logger.info("Total songs fetched from cache: " + (allSongs != null ? allSongs.size() : 0));
-
-        // STEP 3: Render songs if available
-        if (allSongs != null && !allSongs.isEmpty()) {
-            logger.info("Starting dashboard rendering with " + allSongs.size() + " songs...");
-
-            // Store in loadedSongs for UI interaction
-            loadedSongs = allSongs;
+        // The library loads in the background and the dashboard fills in as
+        // songs arrive; the full library is rendered once it is ready
+        initLoadingStatus();
+        LibraryBootstrap bootstrap = LibraryBootstrap.getInstance();
+        bootstrap.addListener(bootstrapListener);
+        // Use dynamic, safe path - NOT hardcoded
+        bootstrap.start(System.getProperty("user.home") + File.separator + "Music");
+        bootstrap.whenReady(songs -> onLibraryReady());
 
-            // Render recommendation buttons
-            loadSongsToUI(allSongs);
-
-            // Render Recently Played table
-            renderRecentlyPlayed(allSongs);
-
-            logger.info("Dashboard rendering completed.");
-        } else {
-            logger.warning("No songs found in cache. Music directory may be empty or inaccessible.");
-        }
+        // Refresh when LibraryWatcher picks up changes in the music folder
+        LibraryChangeNotifier.register(libraryCallback);
 
         // Add mouse click listener to recently played table
         // When user clicks a song: load full playlist into PlaybackManager and start
@@ -86,12 +85,11 @@ public class UserDashboard extends javax.swing.JFrame implements SongSearchView
         jTable1.addMouseListener(new java.awt.event.MouseAdapter() {
             @Override
             public void mouseClicked(java.awt.event.MouseEvent evt) {
-                int row = jTable1.rowAtPoint(evt.getPoint());
-                if (row >= 0 && loadedSongs != null && row < loadedSongs.size()) {
-                    Song selectedSong = loadedSongs.get(row);
-
+                Song selectedSong = recentModel.getSongAt(jTable1.rowAtPoint(evt.getPoint()));
+                int index = selectedSong == null ? -1 : loadedSongs.indexOf(selectedSong);
+                if (index >= 0) {
                     // Send full playlist and selected index to PlaybackManager
-                    PlaybackManager.getInstance().setPlaylist(loadedSongs, row, PlaySource.DASHBOARD);
+                    PlaybackManager.getInstance().setPlaylist(loadedSongs, index, PlaySource.DASHBOARD);
 
                     // Open Player UI with correct play source
                     Player playerWindow = Player.getInstance();
@@ -484,7 +482,8 @@ public class UserDashboard extends javax.swing.JFrame implements SongSearchView
                 javax.swing.JOptionPane.QUESTION_MESSAGE);
 
         if (confirm == javax.swing.JOptionPane.YES_OPTION) {
-            // Clear user session
+            // Save pending likes, then clear user session
+            service.LikedSongStore.getInstance().logout();
             Model.UserSession.getInstance().clearSession();
 
             this.dispose();
@@ -702,38 +701,20 @@ public class UserDashboard extends javax.swing.JFrame implements SongSearchView
      * @param songs List of songs to display
      */
     private void renderRecentlyPlayed(List<Song> songs) {
-        logger.info("renderRecentlyPlayed called with " + (songs != null ? songs.size() : 0) + " songs");
-
-        // Get the table model
-        DefaultTableModel model = (DefaultTableModel) jTable1.getModel();
-
-        // Verify table structure
-        int columnCount = model.getColumnCount();
-        logger.info("JTable column count: " + columnCount);
-
-        // Clear existing rows
-        model.setRowCount(0);
-
         if (songs == null || songs.isEmpty()) {
             logger.warning("No songs to render in Recently Played table.");
+            recentModel.clear();
             return;
         }
 
-        // Display up to the first 10 songs
-        int limit = Math.min(10, songs.size());
-        logger.info("Rendering " + limit + " songs in Recently Played table...");
-
+        // Display up to the first RECENT_ROWS songs, read straight from the list
+        int limit = Math.min(RECENT_ROWS, songs.size());
+        int[] rows = new int[limit];
         for (int i = 0; i < limit; i++) {
-            Song song = songs.get(i);
-            String title = song.getTitle();
-            String artist = song.getArtist();
-            int durationSeconds = song.getDurationSeconds();
-            String duration = String.format("%d:%02d", durationSeconds / 60, durationSeconds % 60);
-
-            model.addRow(new Object[] { i + 1, title, artist, duration });
+            rows[i] = i;
         }
-
-        logger.info("Successfully added " + model.getRowCount() + " rows to Recently Played table.");
+        recentModel.setSongs(songs, rows);
+        logger.fine(() -> "Rendered " + limit + " songs in Recently Played table");
     }
 
     /**
@@ -752,15 +733,7 @@ public class UserDashboard extends javax.swing.JFrame implements SongSearchView
     public void updateSongTable(List<Song> songs) {
         logger.fine(() -> "UI updateSongTable count=" + (songs == null ? 0 : songs.size()));
         loadedSongs = songs != null ? songs : Collections.emptyList();
-        DefaultTableModel model = (DefaultTableModel) jTable1.getModel();
-        model.setRowCount(0);
-
-        for (int i = 0; i < loadedSongs.size(); i++) {
-            Song song = loadedSongs.get(i);
-            String duration = String.format("%d:%02d", song.getDurationSeconds() / 60,
-                    song.getDurationSeconds() % 60);
-            model.addRow(new Object[] { i + 1, song.getTitle(), song.getArtist(), duration });
-        }
+        recentModel.setSongs(loadedSongs);
 
         // Refresh recommendation buttons with the filtered set
         loadSongsToUI(loadedSongs);
@@ -769,8 +742,63 @@ public class UserDashboard extends javax.swing.JFrame implements SongSearchView
     @Override
     public void clearSongTable() {
         loadedSongs = Collections.emptyList();
-        DefaultTableModel model = (DefaultTableModel) jTable1.getModel();
-        model.setRowCount(0);
+        recentModel.clear();
+    }
+
+    /**
+     * Re-render recommendations and the table after the library changed on disk
+     */
+    private void refreshFromLibrary() {
+        allSongsCache = songController.getAllSongs();
+        loadedSongs = allSongsCache;
+        loadSongsToUI(allSongsCache);
+        renderRecentlyPlayed(allSongsCache);
+    }
+
+    /**
+     * Status line under the Recently Played heading, shown while the library
+     * loads
+     */
+    private void initLoadingStatus() {
+        loadingStatus.setFont(new java.awt.Font("Segoe UI", 0, 12)); // NOI18N
+        loadingStatus.setForeground(new java.awt.Color(102, 102, 102));
+        loadingStatus.setText("Loading library...");
+        // Index 0 keeps it above the background image
+        jPanel1.add(loadingStatus, 0);
+        loadingStatus.setBounds(440, 440, 460, 30);
+    }
+
+    /**
+     * Show songs from the library as it loads, until the table is full
+     */
+    private void showLoadedPage(List<Song> page) {
+        if (loadedSongs.size() >= RECENT_ROWS) {
+            return;
+        }
+        List<Song> songs = new ArrayList<>(loadedSongs);
+        songs.addAll(page.subList(0, Math.min(page.size(), RECENT_ROWS - songs.size())));
+        loadSongsToUI(songs);
+        renderRecentlyPlayed(songs);
+    }
+
+    private void onLibraryReady() {
+        LibraryBootstrap.getInstance().removeListener(bootstrapListener);
+        if (disposed) {
+            return;
+        }
+        loadingStatus.setVisible(false);
+        refreshFromLibrary();
+        if (allSongsCache.isEmpty()) {
+            logger.warning("No songs found in cache. Music directory may be empty or inaccessible.");
+        }
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+        LibraryBootstrap.getInstance().removeListener(bootstrapListener);
+        LibraryChangeNotifier.unregister(libraryCallback);
+        super.dispose();
     }
 
     @Override
@@ -11,7 +11,10 @@ import Model.UserSession;
 import java.awt.BorderLayout;
 import java.util.ArrayList;
 import java.util.List;
+import service.LikedSongStore;
 import service.PlaybackManager;
+import service.SearchScheduler;
+import service.SearchService;
 import utils.LikedSongsNotifier;
 import javax.swing.JOptionPane;
 import java.util.concurrent.ExecutorService;
@@ -30,13 +33,16 @@ public class likedsong extends javax.swing.JFrame {
     private static final java.util.logging.Logger logger = java.util.logging.Logger
             .getLogger(likedsong.class.getName());
     private List<Song> likedSongs = new ArrayList<>();
+    private final SongTableModel tableModel = new SongTableModel(SongTableModel.Column.SN,
+            SongTableModel.Column.TITLE, SongTableModel.Column.ARTIST, SongTableModel.Column.DURATION);
     private final LikedSongDao likedSongDao;
-    private List<Song> displayedSongs = new ArrayList<>();
     private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(r -> {
         Thread t = new Thread(r, "liked-songs-search");
         t.setDaemon(true);
         return t;
     });
+    private final SearchScheduler.Channel searchChannel = SearchScheduler.getInstance()
+            .openChannel("liked-songs", SearchService.DEBOUNCE_MILLIS);
     private final Runnable refreshCallback = this::refreshLikedSongs;
 
     /**
@@ -46,10 +52,13 @@ public class likedsong extends javax.swing.JFrame {
         this.likedSongDao = new LikedSongDao();
         initComponents();
         loadLikedSongs();
+        SearchSuggestions.install(SearchBar, text -> performSearch());
 
         // Refresh when Player toggles like/unlike
         LikedSongsNotifier.register(refreshCallback);
 
+        tableModel.install(LikedSongTable);
+
         // Play on double-click
         LikedSongTable.addMouseListener(new java.awt.event.MouseAdapter() {
             @Override
@@ -85,35 +94,22 @@ public class likedsong extends javax.swing.JFrame {
         }
 
         int userId = session.getUserId();
+        // Likes are written behind; save pending ones so the query sees them
+        LikedSongStore.getInstance().flush();
         likedSongs = likedSongDao.getLikedSongs(userId);
 
-        List<Song> toRender = new ArrayList<>(likedSongs);
+        List<Song> toRender = likedSongs;
         SwingUtilities.invokeLater(() -> renderLikedSongs(toRender));
 
         logger.info("Loaded " + likedSongs.size() + " liked songs");
     }
 
     /**
-     * Render liked songs in the table
-     * TODO: Implement table rendering similar to other views
+     * Render liked songs in the table. The list is shown by reference, so
+     * callers hand over a list they no longer modify.
      */
     private void renderLikedSongs(List<Song> songs) {
-        displayedSongs = songs == null ? new ArrayList<>() : new ArrayList<>(songs);
-        javax.swing.table.DefaultTableModel model = new javax.swing.table.DefaultTableModel(
-                new Object[] { "SN", "Title", "Artist", "Duration" }, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
-
-        for (int i = 0; i < displayedSongs.size(); i++) {
-            Song s = displayedSongs.get(i);
-            String duration = String.format("%d:%02d", s.getDurationSeconds() / 60, s.getDurationSeconds() % 60);
-            model.addRow(new Object[] { i + 1, s.getTitle(), s.getArtist(), duration });
-        }
-
-        LikedSongTable.setModel(model);
+        tableModel.setSongs(songs);
     }
 
     private void refreshLikedSongs() {
@@ -130,23 +126,24 @@ public class likedsong extends javax.swing.JFrame {
 
         String term = SearchBar.getText().trim();
         if (term.isEmpty() || term.equals("Search") || term.equals("               Search")) {
+            searchChannel.cancel();
             renderLikedSongs(likedSongs);
             return;
         }
 
         int userId = session.getUserId();
-        searchExecutor.submit(() -> {
-            List<Song> results = likedSongDao.searchLikedSongs(userId, term);
-            SwingUtilities.invokeLater(() -> {
-                if (results.isEmpty()) {
-                    JOptionPane.showMessageDialog(this,
-                            "No liked songs found for: " + term,
-                            "Search Results",
-                            JOptionPane.INFORMATION_MESSAGE);
-                }
-                renderLikedSongs(results);
-            });
-        });
+        searchChannel.submit(ticket -> {
+            LikedSongStore.getInstance().flush();
+            return likedSongDao.searchLikedSongs(userId, term, 0, 0, ticket);
+        }, results -> {
+            if (results.isEmpty()) {
+                JOptionPane.showMessageDialog(this,
+                        "No liked songs found for: " + term,
+                        "Search Results",
+                        JOptionPane.INFORMATION_MESSAGE);
+            }
+            renderLikedSongs(results);
+        }, null);
     }
 
     /**
@@ -487,7 +484,8 @@ public class likedsong extends javax.swing.JFrame {
      * Sends full liked songs list and index to PlaybackManager
      */
     private void playSongFromLiked(int index) {
-        List<Song> source = (displayedSongs == null || displayedSongs.isEmpty()) ? likedSongs : displayedSongs;
+        // Rows in the order shown, which may be sorted or a search result
+        List<Song> source = tableModel.getRowCount() == 0 ? likedSongs : tableModel.getSongs();
         if (index >= 0 && index < source.size()) {
             Song selectedSong = source.get(index);
 
@@ -536,6 +534,7 @@ public class likedsong extends javax.swing.JFrame {
     public void dispose() {
         LikedSongsNotifier.unregister(refreshCallback);
         searchExecutor.shutdownNow();
+        searchChannel.cancel();
         super.dispose();
     }
 
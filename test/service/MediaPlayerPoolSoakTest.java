@@ -0,0 +1,126 @@
+package service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javafx.application.Platform;
+import javafx.embed.swing.JFXPanel;
+import javafx.scene.media.MediaPlayer;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Plays thousands of short generated WAV clips through MediaPlayerPool the
+ * way PlayerController does (create on the FX thread, play, release the
+ * previous player) and checks that the live player count and the heap stay
+ * flat. Native decoder memory is held per live player, so a flat live count
+ * means a flat native footprint. Skipped where the JavaFX toolkit cannot
+ * start (e.g. a headless build machine).
+ */
+public class MediaPlayerPoolSoakTest {
+    private static final int CLIPS = Integer.getInteger("mellow.soak.clips", 2000);
+    private static final float SAMPLE_RATE = 8000;
+    private static final int CLIP_MILLIS = 100;
+
+    @BeforeClass
+    public static void startToolkit() {
+        try {
+            new JFXPanel(); // Initializes the JavaFX toolkit, as PlayerController does
+        } catch (RuntimeException | Error e) {
+            Assume.assumeNoException("JavaFX is not available", e);
+        }
+    }
+
+    @Test
+    public void livePlayersAndHeapStayFlat() throws Exception {
+        MediaPlayerPool pool = MediaPlayerPool.getInstance();
+        int baseline = onFx(pool::getLiveCount);
+        Path dir = Files.createTempDirectory("mellow-soak");
+        List<Path> clips = new ArrayList<>();
+        MediaPlayer[] current = new MediaPlayer[1];
+        long heapAtWarmup = 0;
+        try {
+            for (int i = 0; i < CLIPS; i++) {
+                Path clip = writeClip(dir.resolve("clip-" + i + ".wav"), 220 + i % 660);
+                clips.add(clip);
+                String uri = clip.toUri().toString();
+                int live = onFx(() -> {
+                    MediaPlayer next = pool.create(uri, "current");
+                    next.play();
+                    pool.release(current[0]);
+                    current[0] = next;
+                    return pool.getLiveCount();
+                });
+                assertTrue("live players after clip " + i + ": " + pool.getStats(), live <= baseline + 1);
+                if (i == CLIPS / 10) {
+                    heapAtWarmup = usedHeap();
+                }
+            }
+        } finally {
+            onFx(() -> {
+                pool.release(current[0]);
+                return null;
+            });
+            for (Path clip : clips) {
+                Files.deleteIfExists(clip);
+            }
+            Files.deleteIfExists(dir);
+        }
+
+        assertEquals(baseline, (int) onFx(pool::getLiveCount));
+        long growth = usedHeap() - heapAtWarmup;
+        assertTrue("heap grew by " + growth + " bytes over " + CLIPS + " clips", growth < 32L * 1024 * 1024);
+    }
+
+    /**
+     * Write a mono 16-bit sine tone
+     */
+    private static Path writeClip(Path file, int frequency) throws IOException {
+        int samples = (int) (SAMPLE_RATE * CLIP_MILLIS / 1000);
+        byte[] pcm = new byte[samples * 2];
+        for (int i = 0; i < samples; i++) {
+            short s = (short) (Math.sin(2 * Math.PI * frequency * i / SAMPLE_RATE) * Short.MAX_VALUE / 4);
+            pcm[2 * i] = (byte) s;
+            pcm[2 * i + 1] = (byte) (s >> 8);
+        }
+        AudioFormat format = new AudioFormat(SAMPLE_RATE, 16, 1, true, false);
+        try (AudioInputStream in = new AudioInputStream(new ByteArrayInputStream(pcm), format, samples)) {
+            AudioSystem.write(in, AudioFileFormat.Type.WAVE, file.toFile());
+        }
+        return file;
+    }
+
+    private static <T> T onFx(Callable<T> task) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(task.call());
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result.get(10, TimeUnit.SECONDS);
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
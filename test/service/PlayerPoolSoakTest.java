@@ -0,0 +1,147 @@
+package service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Soaks PlayerPool with stand-in players that hold a native-sized buffer
+ * until they are closed, following PlayerController's pattern: a current
+ * player, a preload that takes over, and now and then a crossfade or a
+ * preload that is dropped without a release.
+ */
+public class PlayerPoolSoakTest {
+    private static final int CLIPS = Integer.getInteger("mellow.soak.clips", 5000);
+    private static final int MAX_LIVE = 3;
+    private static final int BUFFER_BYTES = 256 * 1024;
+
+    private static final class FakePlayer {
+        final String uri;
+        byte[] decoderBuffer = new byte[BUFFER_BYTES];
+        boolean playing = false;
+        int closes = 0;
+
+        FakePlayer(String uri) {
+            this.uri = uri;
+        }
+    }
+
+    private final List<FakePlayer> opened = new ArrayList<>();
+    private final PlayerPool<FakePlayer> pool = new PlayerPool<>(MAX_LIVE, new PlayerPool.Driver<FakePlayer>() {
+        @Override
+        public FakePlayer open(String uri) {
+            FakePlayer p = new FakePlayer(uri);
+            opened.add(p);
+            return p;
+        }
+
+        @Override
+        public Object status(FakePlayer player) {
+            return player.playing ? "PLAYING" : "READY";
+        }
+
+        @Override
+        public boolean isPlaying(FakePlayer player) {
+            return player.playing;
+        }
+
+        @Override
+        public void close(FakePlayer player) {
+            player.playing = false;
+            player.decoderBuffer = null;
+            player.closes++;
+        }
+    });
+
+    @Test
+    public void liveCountAndHeapStayFlat() {
+        FakePlayer current = pool.open("clip-0", "current");
+        current.playing = true;
+        FakePlayer fadingOut = null;
+        FakePlayer forgotten = null;
+        long heapAtWarmup = 0;
+
+        for (int i = 1; i < CLIPS; i++) {
+            FakePlayer next = pool.open("clip-" + i, "preload");
+            if (i % 7 == 0) {
+                // Preload that no longer matches; forgotten, left for eviction
+                forgotten = next;
+                next = pool.open("clip-" + i + "-redo", "preload");
+            }
+            pool.setRole(next, "current");
+            next.playing = true;
+            pool.close(fadingOut);
+            fadingOut = null;
+            if (i % 5 == 0) {
+                // Crossfade: the old player keeps playing until the next change
+                fadingOut = current;
+            } else {
+                pool.close(current);
+            }
+            current = next;
+
+            assertTrue("live players: " + pool.getStats(), pool.getLiveCount() <= MAX_LIVE);
+            if (i == CLIPS / 10) {
+                opened.removeIf(p -> p.closes > 0);
+                heapAtWarmup = usedHeap();
+            }
+        }
+        pool.close(fadingOut);
+        pool.close(current);
+
+        // Only a forgotten preload the pool has not needed to evict yet is left
+        if (forgotten.closes == 0) {
+            assertEquals(1, pool.getLiveCount());
+            pool.close(forgotten);
+        }
+        assertEquals(0, pool.getLiveCount());
+        assertTrue(pool.getPeak() <= MAX_LIVE);
+        assertEquals(pool.getCreated(), pool.getDisposed());
+        assertTrue("forgotten preloads were evicted", pool.getEvicted() > 0);
+        for (FakePlayer p : opened) {
+            assertEquals(p.uri + " closed once", 1, p.closes);
+        }
+
+        // Every leaked player would keep BUFFER_BYTES reachable
+        opened.clear();
+        long growth = usedHeap() - heapAtWarmup;
+        assertTrue("heap grew by " + growth + " bytes", growth < 64L * BUFFER_BYTES);
+    }
+
+    @Test
+    public void releaseIsIdempotent() {
+        FakePlayer p = pool.open("clip", "current");
+        pool.close(p);
+        pool.close(p);
+        pool.close(null);
+        assertEquals(1, p.closes);
+        assertEquals(1, pool.getDisposed());
+        assertEquals(0, pool.getLiveCount());
+    }
+
+    @Test
+    public void playingPlayersAreNeverEvicted() {
+        List<FakePlayer> players = new ArrayList<>();
+        for (int i = 0; i < MAX_LIVE + 2; i++) {
+            FakePlayer p = pool.open("clip-" + i, "current");
+            p.playing = true;
+            players.add(p);
+        }
+        for (FakePlayer p : players) {
+            assertEquals(0, p.closes);
+        }
+        assertEquals(0, pool.getEvicted());
+        assertEquals(MAX_LIVE + 2, pool.getLiveCount());
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,114 @@
+package service;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+import utils.PlaybackStateStore;
+
+/**
+ * Drives PositionTicker's throttling from a synthetic clock
+ */
+public class PositionTickerTest {
+    private static final long PUBLISH_MILLIS = 250;
+
+    private final PlaybackStateStore store = PlaybackStateStore.getInstance();
+    private long now;
+    private long position;
+    private long duration;
+    private PositionTicker ticker;
+
+    @Before
+    public void setUp() {
+        now = 1_000;
+        position = 0;
+        duration = 180_000;
+        store.update(s -> s.withPosition(-1));
+        ticker = new PositionTicker(new PositionTicker.PositionSource() {
+            @Override
+            public long getPositionMillis() {
+                return position;
+            }
+
+            @Override
+            public long getDurationMillis() {
+                return duration;
+            }
+        }, () -> now, PUBLISH_MILLIS);
+    }
+
+    @Test
+    public void firstSamplePublishesAtOnce() {
+        position = 100;
+        ticker.sample(false);
+        assertEquals(100, store.current().getPositionMillis());
+        assertEquals(100, ticker.getPositionMillis());
+        assertEquals(180_000, ticker.getDurationMillis());
+    }
+
+    @Test
+    public void samplesWithinPublishIntervalAreHeldBack() {
+        position = 100;
+        ticker.sample(false);
+
+        now += 50;
+        position = 150;
+        ticker.sample(false);
+        now += 150;
+        position = 300;
+        ticker.sample(false);
+        assertEquals(100, store.current().getPositionMillis());
+        // The latest sample is still readable between publishes
+        assertEquals(300, ticker.getPositionMillis());
+
+        now += 50;
+        position = 350;
+        ticker.sample(false);
+        assertEquals(350, store.current().getPositionMillis());
+    }
+
+    @Test
+    public void forcedSampleIgnoresInterval() {
+        position = 100;
+        ticker.sample(false);
+
+        now += 10;
+        position = 120;
+        ticker.sample(true);
+        assertEquals(120, store.current().getPositionMillis());
+    }
+
+    @Test
+    public void unchangedPositionIsNotPublished() {
+        position = 100;
+        ticker.sample(false);
+        long version = store.current().getVersion();
+
+        for (int i = 0; i < 10; i++) {
+            now += PUBLISH_MILLIS;
+            ticker.sample(false);
+        }
+        assertEquals(version, store.current().getVersion());
+    }
+
+    @Test
+    public void seekPublishesAtOnceAndRestartsInterval() {
+        position = 100;
+        ticker.sample(false);
+
+        now += 10;
+        ticker.onSeek(60_000);
+        assertEquals(60_000, store.current().getPositionMillis());
+        assertEquals(60_000, ticker.getPositionMillis());
+
+        // The player still reports the old time until the seek lands
+        now += 100;
+        ticker.sample(false);
+        assertEquals(60_000, store.current().getPositionMillis());
+
+        now += PUBLISH_MILLIS;
+        position = 60_400;
+        ticker.sample(false);
+        assertEquals(60_400, store.current().getPositionMillis());
+    }
+}
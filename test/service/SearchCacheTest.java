@@ -0,0 +1,92 @@
+package service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import Model.Song;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Checks SearchCache's prefix reuse against the rows and order the database
+ * returns for the longer term (relevance DESC, song_name; relevance is 0 for
+ * LIKE-only queries)
+ */
+public class SearchCacheTest {
+    private static final long GENERATION = 1;
+
+    private final SearchCache cache = new SearchCache(100, 10_000, 60_000);
+
+    @Test
+    public void stopwordIsMatchedAnywhereLikeTheDatabase() {
+        // "th" and "the" (a stopword) are both LIKE '%w%', ordered by name
+        cache.put("th", 0, 0, songs("Brother", "Other Side", "Smooth", "The Wall"), GENERATION);
+
+        assertTitles(cache.get("the", 0, 0, GENERATION), "Brother", "Other Side", "The Wall");
+        assertEquals(1, cache.getStats().getPrefixHits());
+    }
+
+    @Test
+    public void shortWordsAreMatchedAnywhere() {
+        cache.put("a", 0, 0, songs("Abbey Road", "Crab", "Kabul", "Mango"), GENERATION);
+
+        assertTitles(cache.get("ab", 0, 0, GENERATION), "Abbey Road", "Crab", "Kabul");
+        assertTitles(cache.get("ab", 1, 1, GENERATION), "Crab");
+    }
+
+    @Test
+    public void likeOnlyTermsAddingWordsKeepNameOrder() {
+        cache.put("the", 0, 0, songs("Brother", "Other Side", "The Wall"), GENERATION);
+
+        assertTitles(cache.get("the o", 0, 0, GENERATION), "Brother", "Other Side");
+        assertTitles(cache.get("the wa", 0, 0, GENERATION), "The Wall");
+    }
+
+    @Test
+    public void indexedWordDoesNotCoverStopwordExtension() {
+        // The database gives "All About Us" for "about" (LIKE) but not for
+        // "abou" (FULLTEXT, where the stopword token "about" is not indexed)
+        cache.put("abou", 0, 0, songs("Aboutface", "Abound"), GENERATION);
+
+        assertNull(cache.get("about", 0, 0, GENERATION));
+    }
+
+    @Test
+    public void relevanceOrderIsNotDerivedFromNameOrder() {
+        // "be" is ordered by name, "beat" by FULLTEXT relevance
+        cache.put("be", 0, 0, songs("Beat It", "Beatles Forever", "Maybe"), GENERATION);
+
+        assertNull(cache.get("beat", 0, 0, GENERATION));
+    }
+
+    @Test
+    public void indexedWordsNarrowIndexedWords() {
+        cache.put("beat", 0, 0, songs("Beatles Forever", "Beat It"), GENERATION);
+
+        assertTitles(cache.get("beatl", 0, 0, GENERATION), "Beatles Forever");
+    }
+
+    @Test
+    public void fullPagesAreNotReused() {
+        cache.put("th", 0, 2, songs("Brother", "Other Side"), GENERATION);
+
+        assertNull(cache.get("the", 0, 2, GENERATION));
+    }
+
+    private static List<Song> songs(String... titles) {
+        List<Song> songs = new ArrayList<>();
+        for (String title : titles) {
+            songs.add(new Song(title, "Band", "Hits", 180, "/music/" + title + ".mp3"));
+        }
+        return songs;
+    }
+
+    private static void assertTitles(List<Song> page, String... titles) {
+        List<String> actual = new ArrayList<>();
+        for (Song s : page) {
+            actual.add(s.getTitle());
+        }
+        assertEquals(List.of(titles), actual);
+    }
+}